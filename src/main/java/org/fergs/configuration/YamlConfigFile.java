@@ -142,8 +142,9 @@ public final class YamlConfigFile {
         if (o instanceof Number n)
             return n.intValue();
 
+        if (o == null) return def;
+
         try {
-            assert o != null;
             return Integer.parseInt(o.toString());
         } catch (NumberFormatException e) {
             return def;
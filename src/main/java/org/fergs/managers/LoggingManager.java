@@ -2,41 +2,54 @@ package org.fergs.managers;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.fergs.configuration.YamlConfigFile;
+import org.fergs.managers.logging.LogArchiver;
+import org.fergs.managers.logging.LogConsole;
+import org.fergs.managers.logging.LogFileWriter;
+import org.fergs.managers.logging.LogFormatter;
+import org.fergs.managers.logging.LogRingBuffer;
 import org.fergs.objects.LogEntry;
 import org.jetbrains.annotations.NotNull;
 
-import javax.swing.*;
-import java.awt.*;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.*;
 
 @Getter @Setter
 public final class LoggingManager {
+    private static final int MAX_BATCH = 512;
+    private static final int FILE_BUFFER_BYTES = 64 * 1024;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    private static final int BUFFER_CAPACITY = 16 * 1024;
+    private static final int CONSOLE_CAPACITY = 20_000;
+    private static final int DEFAULT_MAX_FILE_MB = 50;
+    private static final int DEFAULT_MAX_TOTAL_MB = 500;
+
     private final Logger logger = Logger.getLogger("org.fergs.Specter");
     private static LoggingManager instance;
 
-    private JFrame consoleFrame;
-    private JTextArea consoleArea;
-    private JScrollPane scrollPane;
+    // The window is only built the first time it is shown
+    private final LogConsole console = new LogConsole(CONSOLE_CAPACITY);
 
-    private Path logFilePath;
+    private volatile Path logFilePath;
+    private LogFileWriter fileWriter;
+    private LogArchiver archiver;
     private boolean fileLoggingEnabled = true;
     private boolean consoleWindowEnabled = true;
 
     private Thread loggingThread;
-    private final BlockingQueue<LogEntry> logQueue = new LinkedBlockingQueue<>();
+    private final LogRingBuffer logBuffer = new LogRingBuffer(BUFFER_CAPACITY);
+    private long reportedDrops;
     private volatile boolean running = true;
 
-    private final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
-    private final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // Only used on the logging thread
+    private final LogFormatter formatter = new LogFormatter();
+    private volatile int minimumLevel = Level.ALL.intValue();
 
     /**
      * Private constructor to prevent instantiation from outside.
@@ -65,73 +78,33 @@ public final class LoggingManager {
     }
 
     /**
-     * Initialize the logging manager with console window and file setup
+     * Initialize the logging manager with file setup; the console window is built when first shown
      */
     private void initialize() {
         setupFileLogging();
-        setupConsoleWindow();
         setupBackgroundLogging();
         configureJavaLogger();
     }
 
     /**
-     * Setup file logging with daily rotation
+     * Setup file logging with daily and size-based rotation. The file is kept open by the logging
+     * thread, which writes it in batches; rolled files are compressed in the background.
      */
     private void setupFileLogging() {
         try {
-
             Path logsDir = Paths.get("logs");
-            if (!Files.exists(logsDir)) {
-                Files.createDirectories(logsDir);
-                System.out.println("Created logs directory");
-            }
-
-            String logFileName = String.format("specter-%s.log",
-                    LocalDateTime.now().format(FILE_DATE_FORMAT));
-            logFilePath = logsDir.resolve(logFileName);
-
-            if (!Files.exists(logFilePath)) {
-                Files.createFile(logFilePath);
-                System.out.println("Created log file: " + logFilePath);
-            }
+            archiver = new LogArchiver(logsDir, megabytes(DEFAULT_MAX_TOTAL_MB));
+            fileWriter = new LogFileWriter(logsDir, FILE_BUFFER_BYTES, FLUSH_INTERVAL_MILLIS,
+                    megabytes(DEFAULT_MAX_FILE_MB), archiver);
+            archiver.recover(fileWriter.getFile());
+            logFilePath = fileWriter.getFile();
+            System.out.println("Logging to file: " + logFilePath);
         } catch (IOException e) {
             System.err.println("Failed to setup file logging: " + e.getMessage());
             fileLoggingEnabled = false;
         }
     }
 
-    /**
-     * Setup the separate console window for log output
-     */
-    private void setupConsoleWindow() {
-        SwingUtilities.invokeLater(() -> {
-            consoleFrame = new JFrame("Specter - Log Console");
-            consoleFrame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
-            consoleFrame.setSize(800, 600);
-
-            consoleArea = new JTextArea();
-            consoleArea.setEditable(false);
-            consoleArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-            consoleArea.setBackground(Color.BLACK);
-            consoleArea.setForeground(Color.GREEN);
-            consoleArea.setCaretColor(Color.GREEN);
-
-            scrollPane = new JScrollPane(consoleArea);
-            scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
-
-            JButton clearButton = new JButton("Clear");
-            clearButton.addActionListener(e -> consoleArea.setText(""));
-
-            JPanel buttonPanel = new JPanel(new FlowLayout());
-            buttonPanel.add(clearButton);
-
-            consoleFrame.add(scrollPane, BorderLayout.CENTER);
-            consoleFrame.add(buttonPanel, BorderLayout.SOUTH);
-
-            consoleFrame.setLocationRelativeTo(null);
-        });
-    }
-
     /**
      * Setup background thread for async logging
      */
@@ -156,7 +129,8 @@ public final class LoggingManager {
                             record.getLevel(),
                             record.getMessage(),
                             record.getThrown(),
-                            record.getParameters()
+                            record.getParameters(),
+                            record.getMillis()
                     ));
                 }
             }
@@ -170,131 +144,154 @@ public final class LoggingManager {
     }
 
     /**
-     * Process log entries from the queue in background thread
+     * Process log entries from the queue in background thread. Entries are taken in batches;
+     * the file is flushed once the buffer fills, the flush interval passes, or a batch holds a
+     * SEVERE entry, and again when the thread stops.
      */
     private void processLogEntries() {
+        final List<LogEntry> batch = new ArrayList<>(MAX_BATCH);
         while (running) {
             try {
-                LogEntry entry = logQueue.take();
-                String formattedMessage = formatLogMessage(entry);
-
-                if (consoleWindowEnabled) {
-                    SwingUtilities.invokeLater(() -> appendToConsole(formattedMessage));
-                }
-
-                if (fileLoggingEnabled) {
-                    writeToFile(formattedMessage);
+                if (logBuffer.drainTo(batch, MAX_BATCH) > 0) {
+                    processBatch(batch);
+                    batch.clear();
+                } else {
+                    logBuffer.awaitEntries(TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS));
                 }
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+                flushFile(false);
             } catch (Exception e) {
+                batch.clear();
                 System.err.println("Error processing log entry: " + e.getMessage());
             }
         }
+
+        // Write out whatever was logged before shutdown
+        while (logBuffer.drainTo(batch, MAX_BATCH) > 0) {
+            processBatch(batch);
+            batch.clear();
+        }
+        flushFile(true);
+        if (fileWriter != null) {
+            try {
+                fileWriter.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close log file: " + e.getMessage());
+            }
+        }
+    }
+
+    private void processBatch(List<LogEntry> batch) {
+        long drops = logBuffer.getDroppedCount();
+        if (drops != reportedDrops) {
+            batch.add(new LogEntry(Level.WARNING, "Log buffer full, dropped " + (drops - reportedDrops)
+                    + " entries (policy " + logBuffer.getPolicy() + ", " + drops + " in total)", null, null));
+            reportedDrops = drops;
+        }
+
+        boolean severe = false;
+        for (LogEntry entry : batch) {
+            StringBuilder line = formatter.format(entry);
+
+            if (consoleWindowEnabled) {
+                console.append(entry.level, entry.thread, line);
+            }
+
+            if (fileLoggingEnabled) {
+                writeToFile(line);
+            }
+            severe |= entry.level.intValue() >= Level.SEVERE.intValue();
+        }
+        if (severe) flushFile(true);
     }
 
     /**
-     * Queue a log entry for background processing
+     * Queue a log entry for background processing. What happens when the buffer is full is
+     * up to its overflow policy; dropped entries are reported by the logging thread.
      */
     private void queueLogEntry(LogEntry entry) {
         try {
-            boolean ok = logQueue.offer(entry);
-            if (!ok) {
-                log(Level.WARNING, "Log queue is full or not accepting entries??");
-                writeToFile(formatLogMessage(entry));
-            }
+            logBuffer.publish(entry);
         } catch (Exception e) {
             System.err.println("Failed to queue log entry: " + e.getMessage());
         }
     }
 
     /**
-     * Format a log message with timestamp, level, and content
+     * Apply the "logging" section of a config, e.g.
+     * <pre>
+     * logging:
+     *   overflow-policy: drop-below-level   # block, drop-oldest, drop-below-level or sample
+     *   protected-level: WARNING
+     *   sample-rate: 10
+     *   level: INFO
+     *   max-file-mb: 50
+     *   max-total-mb: 500
+     * </pre>
+     * Missing or invalid values keep their defaults: block, WARNING, 10, ALL, 50 and 500.
      */
-    private String formatLogMessage(LogEntry entry) {
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("[").append(LocalDateTime.now().format(TIMESTAMP_FORMAT)).append("] ");
-
-        sb.append(String.format("%-7s", entry.level.getName()));
-        sb.append(" - ");
+    public void configure(YamlConfigFile config) {
+        if (config == null) return;
 
-        String message = entry.message;
-        if (entry.params != null && entry.params.length > 0) {
+        String policy = config.getString("logging.overflow-policy");
+        if (policy != null) {
             try {
-                message = String.format(message, entry.params);
-            } catch (Exception ignored) {}
+                logBuffer.setPolicy(LogRingBuffer.OverflowPolicy.valueOf(policy.trim().toUpperCase(Locale.ROOT).replace('-', '_')));
+            } catch (IllegalArgumentException e) {
+                warn("Unknown logging.overflow-policy: " + policy);
+            }
         }
-        sb.append(message);
 
-        if (entry.throwable != null) {
-            sb.append("\n").append(getStackTrace(entry.throwable));
+        String level = config.getString("logging.protected-level");
+        if (level != null) {
+            try {
+                logBuffer.setProtectedLevel(Level.parse(level.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                warn("Unknown logging.protected-level: " + level);
+            }
         }
 
-        sb.append("\n");
-        return sb.toString();
-    }
+        logBuffer.setSampleRate(config.getInt("logging.sample-rate", 10));
 
-    /**
-     * Get stack trace as string
-     */
-    private String getStackTrace(Throwable throwable) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(throwable.getClass().getSimpleName())
-                .append(": ")
-                .append(throwable.getMessage());
-
-        for (StackTraceElement element : throwable.getStackTrace()) {
-            sb.append("\n    at ").append(element.toString());
+        if (fileWriter != null) {
+            fileWriter.setMaxFileBytes(megabytes(config.getInt("logging.max-file-mb", DEFAULT_MAX_FILE_MB)));
+            archiver.setMaxTotalBytes(megabytes(config.getInt("logging.max-total-mb", DEFAULT_MAX_TOTAL_MB)));
         }
 
-        if (throwable.getCause() != null) {
-            sb.append("\nCaused by: ").append(getStackTrace(throwable.getCause()));
+        String minimum = config.getString("logging.level");
+        if (minimum != null) {
+            try {
+                setMinimumLevel(Level.parse(minimum.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                warn("Unknown logging.level: " + minimum);
+            }
         }
-
-        return sb.toString();
     }
 
     /**
-     * Append message to console window
+     * Buffer message for the log file; the writer rotates to a new file at midnight.
+     * Only called on the logging thread.
      */
-    private void appendToConsole(String message) {
-        if (consoleArea != null) {
-            consoleArea.append(message);
-            consoleArea.setCaretPosition(consoleArea.getDocument().getLength());
-
-            int maxLines = 10000;
-            int lines = consoleArea.getLineCount();
-            if (lines > maxLines) {
-                try {
-                    int linesToRemove = lines - maxLines;
-                    int endOffset = consoleArea.getLineEndOffset(linesToRemove - 1);
-                    consoleArea.replaceRange("", 0, endOffset);
-                } catch (Exception ignored) {}
-            }
+    private void writeToFile(CharSequence message) {
+        if (fileWriter == null) return;
+        try {
+            fileWriter.write(message);
+            logFilePath = fileWriter.getFile();
+        } catch (IOException e) {
+            System.err.println("Failed to write to log file: " + e.getMessage());
         }
     }
 
     /**
-     * Write message to log file
+     * Write buffered lines to the log file, either now or once the flush interval has passed.
      */
-    private void writeToFile(String message) {
+    private void flushFile(boolean now) {
+        if (fileWriter == null) return;
         try {
-            // Check if we need to rotate the log file (daily rotation)
-            String currentDate = LocalDateTime.now().format(FILE_DATE_FORMAT);
-            String expectedFileName = String.format("specter-%s.log", currentDate);
-
-            if (!logFilePath.getFileName().toString().equals(expectedFileName)) {
-                // Rotate to new file
-                logFilePath = logFilePath.getParent().resolve(expectedFileName);
-                if (!Files.exists(logFilePath)) {
-                    Files.createFile(logFilePath);
-                }
+            if (now) {
+                fileWriter.flush();
+            } else {
+                fileWriter.flushIfDue(System.currentTimeMillis());
             }
-
-            Files.write(logFilePath, message.getBytes(), StandardOpenOption.APPEND);
         } catch (IOException e) {
             System.err.println("Failed to write to log file: " + e.getMessage());
         }
@@ -304,52 +301,93 @@ public final class LoggingManager {
      * Show the console window
      */
     public void showConsoleWindow() {
-        if (consoleFrame != null) {
-            SwingUtilities.invokeLater(() -> {
-                consoleFrame.setVisible(true);
-                consoleFrame.toFront();
-            });
-        }
+        console.show();
     }
 
     /**
      * Hide the console window
      */
     public void hideConsoleWindow() {
-        if (consoleFrame != null) {
-            SwingUtilities.invokeLater(() -> consoleFrame.setVisible(false));
-        }
+        console.hide();
+    }
+
+    private static long megabytes(int mb) {
+        return Math.max(1, mb) * 1024L * 1024L;
+    }
+
+    /**
+     * Sets the lowest level that is logged; entries below it cost a single comparison.
+     */
+    public void setMinimumLevel(final @NotNull Level level) {
+        minimumLevel = level.intValue();
+        logger.setLevel(level);
+    }
+
+    /**
+     * Returns true if messages at this level are logged. Check it before building an
+     * expensive message or parameter.
+     */
+    public boolean isLoggable(final @NotNull Level level) {
+        return level.intValue() >= minimumLevel && level != Level.OFF;
     }
 
     /**
      * Logs a message at the specified level.
      */
     public void log(final @NotNull Level level, final @NotNull String message) {
-        logger.log(level, message);
+        if (!isLoggable(level)) return;
+        queueLogEntry(new LogEntry(level, message, null, null, System.currentTimeMillis()));
     }
 
     /**
      * Logs a message with an associated Throwable.
      */
     public void log(final @NotNull Level level, final @NotNull String message, final @NotNull Throwable thrown) {
-        logger.log(level, message, thrown);
+        if (!isLoggable(level)) return;
+        queueLogEntry(new LogEntry(level, message, thrown, null, System.currentTimeMillis()));
+    }
+
+    /**
+     * Logs a message with one parameter, {@code {0}} or {@code %s}. The parameter is rendered
+     * later on the logging thread, so it should not be changed after the call.
+     */
+    public void log(final @NotNull Level level, final @NotNull String message, final Object param) {
+        if (!isLoggable(level)) return;
+        queueLogEntry(new LogEntry(level, message, null, new Object[]{param}, System.currentTimeMillis()));
+    }
+
+    /**
+     * Logs a message with two parameters.
+     */
+    public void log(final @NotNull Level level, final @NotNull String message, final Object param1, final Object param2) {
+        if (!isLoggable(level)) return;
+        queueLogEntry(new LogEntry(level, message, null, new Object[]{param1, param2}, System.currentTimeMillis()));
     }
 
     /**
      * Logs a formatted message with parameters.
      */
     public void log(final @NotNull Level level, final @NotNull String message, final @NotNull Object... params) {
-        logger.log(level, message, params);
+        if (!isLoggable(level)) return;
+        queueLogEntry(new LogEntry(level, message, null, params, System.currentTimeMillis()));
     }
 
     public void debug(String message) { log(Level.FINE, message); }
+    public void debug(String message, Object param) { log(Level.FINE, message, param); }
+    public void debug(String message, Object param1, Object param2) { log(Level.FINE, message, param1, param2); }
     public void debug(String message, Object... params) { log(Level.FINE, message, params); }
     public void info(String message) { log(Level.INFO, message); }
+    public void info(String message, Object param) { log(Level.INFO, message, param); }
+    public void info(String message, Object param1, Object param2) { log(Level.INFO, message, param1, param2); }
     public void info(String message, Object... params) { log(Level.INFO, message, params); }
     public void warn(String message) { log(Level.WARNING, message); }
+    public void warn(String message, Object param) { log(Level.WARNING, message, param); }
+    public void warn(String message, Object param1, Object param2) { log(Level.WARNING, message, param1, param2); }
     public void warn(String message, Object... params) { log(Level.WARNING, message, params); }
     public void warn(String message, Throwable thrown) { log(Level.WARNING, message, thrown); }
     public void error(String message) { log(Level.SEVERE, message); }
+    public void error(String message, Object param) { log(Level.SEVERE, message, param); }
+    public void error(String message, Object param1, Object param2) { log(Level.SEVERE, message, param1, param2); }
     public void error(String message, Object... params) { log(Level.SEVERE, message, params); }
     public void error(String message, Throwable thrown) { log(Level.SEVERE, message, thrown); }
 
@@ -358,11 +396,16 @@ public final class LoggingManager {
      */
     public void shutdown() {
         running = false;
+        logBuffer.close();
+        if (archiver != null) archiver.shutdown();
         if (loggingThread != null) {
-            loggingThread.interrupt();
-        }
-        if (consoleFrame != null) {
-            SwingUtilities.invokeLater(() -> consoleFrame.dispose());
+            try {
+                // Give the logging thread a moment to write out buffered lines
+                loggingThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
+        console.dispose();
     }
 }
\ No newline at end of file
@@ -0,0 +1,598 @@
+package org.fergs.managers.logging;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * IndexedLogFile gives random access to the lines of a log file of any size, so opening it reads
+ * nothing up front and only what is looked at is read from disk.
+ * <p>
+ * The file is read with positional reads on one {@link FileChannel}: bulk scans copy large blocks,
+ * and single lines come through a small page buffer per thread. It is deliberately not
+ * memory-mapped. A mapping stays in place until the garbage collector gets to it, and on Windows
+ * a mapped file cannot be renamed or deleted, which would make {@link LogArchiver} fail to roll or
+ * clean up the file on view. A plain channel lets go of the file as soon as it is closed.
+ * <p>
+ * {@link #buildIndex} scans the file once for line breaks and remembers where every
+ * {@value #CHECKPOINT_INTERVAL}th line starts; a line is then found by skipping at most that many
+ * lines from the nearest checkpoint, which keeps the index at about 0.1 bytes per line. Lines can be read while the index is still being built, up to
+ * {@link #getLineCount()}.
+ * <p>
+ * {@link #findTime} finds the first line at or after a time by bisecting the file on the
+ * {@code [yyyy-MM-dd HH:mm:ss.SSS]} prefix that {@link LogFormatter} writes. It does not need the
+ * index, since that format sorts as text in time order. {@link #search} runs a regular
+ * expression over slices of the file in parallel.
+ *
+ * @Author Fergs32
+ */
+public final class IndexedLogFile implements Closeable {
+    private static final int PAGE_SIZE = 64 * 1024;
+    private static final int CHECKPOINT_SHIFT = 6;
+    static final int CHECKPOINT_INTERVAL = 1 << CHECKPOINT_SHIFT;
+    private static final int TIMESTAMP_LENGTH = "yyyy-MM-dd HH:mm:ss.SSS".length();
+    private static final int MAX_LINE_CHARS = 4096;
+    private static final long MIN_SEARCH_SLICE = 8L * 1024 * 1024;
+    private static final long SEARCH_SLICE = 64L * 1024 * 1024;
+    private static final int SEARCH_BLOCK = 1024 * 1024;
+    // Anchors and lookaround, which see past a line when the matcher runs over several
+    private static final Pattern UNBOUNDED = Pattern.compile("[\\^$]|\\\\[AzZG]|\\(\\?<?[=!]");
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final ThreadLocal<Page> pages = ThreadLocal.withInitial(Page::new);
+
+    // Written by the index builder only; lineCount is published last
+    private volatile long[] checkpoints = new long[1024];
+    private volatile long lineCount;
+    private volatile long indexedBytes;
+    private volatile boolean indexComplete;
+
+    private IndexedLogFile(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    /**
+     * Opens a log file. Lines written to it afterwards are not seen.
+     */
+    public static IndexedLogFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new IndexedLogFile(path, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Scans the file for line starts on the calling thread.
+     * @param progress told about each stretch of lines indexed; may be null.
+     * @param cancelled stops the scan when set.
+     */
+    public void buildIndex(Runnable progress, AtomicBoolean cancelled) {
+        long[] marks = checkpoints;
+        long lines = 0;
+        if (size > 0) {
+            marks[0] = 0;
+            lines = 1;
+        }
+
+        byte[] buffer = new byte[256 * 1024];
+        long position = 0;
+        long lastReport = System.nanoTime();
+        while (position < size) {
+            if (cancelled != null && cancelled.get()) return;
+
+            int n = (int) Math.min(buffer.length, size - position);
+            try {
+                read(position, buffer, n);
+            } catch (UncheckedIOException e) {
+                // Closed while indexing
+                if (cancelled != null && cancelled.get()) return;
+                throw e;
+            }
+
+            for (int i = 0; i < n; i++) {
+                if (buffer[i] != '\n') continue;
+                long next = position + i + 1;
+                if (next >= size) continue; // a trailing newline does not start a line
+                if ((lines & (CHECKPOINT_INTERVAL - 1)) == 0) {
+                    int slot = (int) (lines >>> CHECKPOINT_SHIFT);
+                    if (slot == marks.length) {
+                        marks = Arrays.copyOf(marks, marks.length * 2);
+                        checkpoints = marks;
+                    }
+                    marks[slot] = next;
+                }
+                lines++;
+            }
+            position += n;
+
+            // Lines are only complete up to the last newline seen
+            lineCount = position >= size ? lines : Math.max(0, lines - 1);
+            indexedBytes = position;
+            long now = System.nanoTime();
+            if (progress != null && now - lastReport > 100_000_000L) {
+                lastReport = now;
+                progress.run();
+            }
+        }
+        indexComplete = true;
+        if (progress != null) progress.run();
+    }
+
+    /**
+     * Returns the text of a line, cut off after {@value #MAX_LINE_CHARS} characters.
+     * @param line a line number below {@link #getLineCount()}.
+     */
+    public String line(long line) {
+        return lineAt(lineStart(line));
+    }
+
+    /**
+     * Returns the text of the line starting at a byte offset, such as one returned by
+     * {@link #findTime} or {@link #search}, cut off after {@value #MAX_LINE_CHARS} characters.
+     */
+    public String lineAt(long offset) {
+        if (offset < 0 || offset > size) throw new IndexOutOfBoundsException("Offset " + offset + " of " + size);
+        return decode(offset, lineEnd(offset, MAX_LINE_CHARS * 4L), MAX_LINE_CHARS);
+    }
+
+    /**
+     * Returns the byte offset a line starts at.
+     */
+    public long lineStart(long line) {
+        if (line < 0 || line >= lineCount) throw new IndexOutOfBoundsException("Line " + line + " of " + lineCount);
+        long position = checkpoints[(int) (line >>> CHECKPOINT_SHIFT)];
+        for (long skip = line & (CHECKPOINT_INTERVAL - 1); skip > 0; skip--) {
+            position = lineEnd(position, Long.MAX_VALUE) + 1;
+        }
+        return position;
+    }
+
+    /**
+     * Returns the number of the line containing a byte offset, or -1 if the index has not
+     * reached it yet.
+     */
+    public long lineOf(long offset) {
+        long lines = lineCount;
+        if (lines == 0 || offset >= indexedBytes && !indexComplete) return -1;
+
+        long[] marks = checkpoints;
+        int low = 0;
+        int high = (int) ((lines - 1) >>> CHECKPOINT_SHIFT);
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (marks[mid] <= offset) low = mid; else high = mid - 1;
+        }
+
+        long line = (long) low << CHECKPOINT_SHIFT;
+        long position = marks[low];
+        while (line + 1 < lines) {
+            long next = lineEnd(position, Long.MAX_VALUE) + 1;
+            if (next > offset) break;
+            position = next;
+            line++;
+        }
+        return line;
+    }
+
+    /**
+     * Finds the first line stamped at or after a time.
+     * @param timestamp "yyyy-MM-dd HH:mm:ss.SSS", or any prefix of it such as "yyyy-MM-dd HH:mm".
+     * @return the byte offset of that line, or the file size if every line is earlier.
+     */
+    public long findTime(String timestamp) {
+        byte[] target = timestamp.getBytes(StandardCharsets.US_ASCII);
+
+        // Invariant: the first stamped line at or after the target starts in [low, high]
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long mid = low + (high - low) / 2;
+            long stamped = nextStampedLine(mid, high);
+            if (stamped < 0) {
+                high = mid;
+            } else if (compareStamp(stamped, target) < 0) {
+                low = lineEnd(stamped, Long.MAX_VALUE) + 1;
+            } else {
+                high = stamped;
+            }
+        }
+        return Math.min(low, size);
+    }
+
+    /**
+     * Searches every line for a regular expression, using all cores.
+     * @param maxResults the most matches returned.
+     * @param cancelled stops the search when set.
+     * @return the byte offsets of the matching lines, in file order.
+     */
+    public long[] search(Pattern pattern, int maxResults, AtomicBoolean cancelled) {
+        // Enough slices to keep every core busy, and small enough that a search for the first
+        // matches can stop soon after finding them
+        long wanted = Math.max(Runtime.getRuntime().availableProcessors() * 4L, size / SEARCH_SLICE);
+        int slices = (int) Math.max(1, Math.min(wanted, size / MIN_SEARCH_SLICE));
+        long[] bounds = new long[slices + 1];
+        for (int i = 1; i < slices; i++) {
+            long at = size * i / slices;
+            bounds[i] = Math.min(size, lineEnd(at, Long.MAX_VALUE) + 1);
+        }
+        bounds[slices] = size;
+
+        // Patterns that only match ASCII can run on the raw bytes, since UTF-8 never uses ASCII
+        // bytes inside a longer character; anything else needs the lines decoded
+        String regex = pattern.pattern();
+        boolean ascii = matchesOnlyAscii(pattern);
+        // Without anchors or lookaround a line matches alone exactly when a match found in the
+        // lines around it starts in it and checks out on the line by itself, so the matcher can
+        // skip ahead over many lines at once instead of being restarted on each
+        boolean wholeBlock = !UNBOUNDED.matcher(regex).find();
+
+        // Each core takes the next slice in file order. Slices after the first stretch of finished
+        // slices that holds maxResults matches are skipped, so the matches kept are always the
+        // first ones in the file, and a search for them reads little more than it has to
+        AtomicInteger nextSlice = new AtomicInteger();
+        AtomicInteger lastNeeded = new AtomicInteger(slices);
+        AtomicReferenceArray<long[]> found = new AtomicReferenceArray<>(slices);
+        int workers = Math.min(slices, Runtime.getRuntime().availableProcessors());
+        IntStream.range(0, workers).parallel().forEach(worker -> {
+            int slice;
+            while ((slice = nextSlice.getAndIncrement()) < slices && slice <= lastNeeded.get()) {
+                long[] matches = searchSlice(slice, bounds[slice], bounds[slice + 1], pattern, ascii, wholeBlock, maxResults, lastNeeded, cancelled);
+                found.set(slice, matches);
+                if (matches.length >= maxResults) lastNeeded.accumulateAndGet(slice, Math::min);
+                int total = 0;
+                for (int i = 0; i < slices && found.get(i) != null; i++) {
+                    total += found.get(i).length;
+                    if (total >= maxResults) {
+                        lastNeeded.accumulateAndGet(i, Math::min);
+                        break;
+                    }
+                }
+            }
+        });
+
+        long[] offsets = new long[maxResults];
+        int n = 0;
+        for (int slice = 0; slice < slices && n < maxResults && found.get(slice) != null; slice++) {
+            long[] matches = found.get(slice);
+            int take = Math.min(matches.length, maxResults - n);
+            System.arraycopy(matches, 0, offsets, n, take);
+            n += take;
+        }
+        return Arrays.copyOf(offsets, n);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * The number of lines that can be read so far.
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    public long getIndexedBytes() {
+        return indexedBytes;
+    }
+
+    public boolean isIndexComplete() {
+        return indexComplete;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private byte byteAt(long position) {
+        Page page = pages.get();
+        if (position < page.start || position >= page.start + page.length) {
+            page.start = position - position % PAGE_SIZE;
+            page.length = (int) Math.min(PAGE_SIZE, size - page.start);
+            read(page.start, page.bytes, page.length);
+        }
+        return page.bytes[(int) (position - page.start)];
+    }
+
+    /**
+     * Returns the offset of the newline ending the line that contains position, or the file size.
+     */
+    private long lineEnd(long position, long maxBytes) {
+        long limit = maxBytes == Long.MAX_VALUE ? size : Math.min(size, position + maxBytes);
+        for (long i = position; i < limit; i++) {
+            if (byteAt(i) == '\n') return i;
+        }
+        return limit;
+    }
+
+    /**
+     * Returns the start of the first line from position on, below limit, that starts with a
+     * timestamp; stack trace lines and other continuation lines are skipped.
+     */
+    private long nextStampedLine(long position, long limit) {
+        long start = position == 0 || byteAt(position - 1) == '\n' ? position : lineEnd(position, Long.MAX_VALUE) + 1;
+        while (start < limit) {
+            if (isStamped(start)) return start;
+            start = lineEnd(start, Long.MAX_VALUE) + 1;
+        }
+        return -1;
+    }
+
+    private boolean isStamped(long start) {
+        if (start + TIMESTAMP_LENGTH + 1 >= size || byteAt(start) != '[') return false;
+        for (int i = 0; i < 4; i++) {
+            byte b = byteAt(start + 1 + i);
+            if (b < '0' || b > '9') return false;
+        }
+        return byteAt(start + 5) == '-';
+    }
+
+    private int compareStamp(long start, byte[] target) {
+        for (int i = 0; i < target.length; i++) {
+            // A target longer than the stamp runs on into the line, and may run past the file end
+            if (start + 1 + i >= size) return -1;
+            int difference = byteAt(start + 1 + i) - target[i];
+            if (difference != 0) return difference;
+        }
+        return 0;
+    }
+
+    /**
+     * Matches the lines of one slice, reading the file a block at a time. A line longer than
+     * a block is matched on its first {@value #SEARCH_BLOCK} bytes.
+     */
+    private long[] searchSlice(int slice, long start, long end, Pattern pattern, boolean ascii, boolean wholeBlock,
+                               int maxResults, AtomicInteger lastNeeded, AtomicBoolean cancelled) {
+        long[] matches = new long[16];
+        int count = 0;
+        Matcher matcher = pattern.matcher("");
+        byte[] block = new byte[SEARCH_BLOCK];
+        ByteLine bytes = new ByteLine(block);
+
+        long position = start;
+        while (position < end && count < maxResults) {
+            if (cancelled != null && cancelled.get() || slice > lastNeeded.get()) break;
+            int n = (int) Math.min(block.length, end - position);
+            read(position, block, n);
+            boolean last = position + n >= end;
+
+            int complete = last ? n : lastIndexOf(bytes.wrap(0, n), n) + 1;
+            if (wholeBlock && complete > 0) {
+                // Let the matcher look for a candidate across all the lines, then check its line alone
+                CharSequence text = ascii ? bytes.wrap(0, complete) : new String(block, 0, complete, StandardCharsets.UTF_8);
+                bytes.wrap(0, complete);
+                matcher.reset(text);
+                int from = 0;
+                int charLine = 0; // the same line start, in chars and in bytes
+                int byteLine = 0;
+                while (from < text.length() && count < maxResults && matcher.find(from)) {
+                    int candidate = matcher.start();
+                    int lineStart = lastIndexOf(text, candidate) + 1;
+                    int lineEnd = indexOf(text, candidate, text.length());
+                    if (matcher.region(lineStart, lineEnd).find()) {
+                        while (charLine < lineStart) {
+                            charLine = indexOf(text, charLine, lineStart) + 1;
+                            byteLine = ascii ? charLine : indexOf(bytes, byteLine, complete) + 1;
+                        }
+                        if (count == matches.length) matches = Arrays.copyOf(matches, count * 2);
+                        matches[count++] = position + byteLine;
+                        from = lineEnd + 1;
+                    } else {
+                        from = candidate + 1;
+                    }
+                }
+                position = last ? end : position + complete;
+                continue;
+            }
+
+            int lineStart = 0;
+            for (int i = 0; i <= n && count < maxResults; i++) {
+                boolean ends = i < n ? block[i] == '\n' : lineStart < n && (last || lineStart == 0);
+                if (!ends) continue;
+                CharSequence text = ascii ? bytes.wrap(lineStart, i) : new String(block, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                if (matcher.reset(text).find()) {
+                    if (count == matches.length) matches = Arrays.copyOf(matches, count * 2);
+                    matches[count++] = position + lineStart;
+                }
+                lineStart = i + 1;
+            }
+
+            if (last) {
+                position = end;
+            } else if (lineStart == n + 1) {
+                position = lineEnd(position + n, Long.MAX_VALUE) + 1; // skip the rest of a long line
+            } else {
+                position += lineStart;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Returns true if every character the pattern can match is ASCII, so it finds the same lines
+     * in UTF-8 bytes read one char per byte as in the decoded text. A non-ASCII character becomes
+     * two to four bytes there, so {@code .}, a negated class, {@code \W}, {@code \S} or
+     * {@code \D} would match one of its bytes instead of the whole character. Those, escapes that
+     * can name non-ASCII characters and Unicode flags all send the search down the decoding path.
+     * Word boundaries are fine: since Java 19 {@code \b} is ASCII-only, like {@code \w}.
+     */
+    static boolean matchesOnlyAscii(Pattern pattern) {
+        String regex = pattern.pattern();
+        if ((pattern.flags() & (Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS | Pattern.CANON_EQ)) != 0) {
+            return false;
+        }
+        if ((pattern.flags() & Pattern.LITERAL) != 0) return regex.chars().allMatch(c -> c < 0x80);
+
+        int classDepth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c >= 0x80) return false;
+            switch (c) {
+                case '\\' -> {
+                    if (++i == regex.length()) return false;
+                    char escaped = regex.charAt(i);
+                    if (escaped == 'Q') {
+                        int end = regex.indexOf("\\E", i + 1);
+                        i = end < 0 ? regex.length() : end + 1;
+                    } else if ("WSDHVXRhvpPNxu0".indexOf(escaped) >= 0) {
+                        // Negated or Unicode-aware classes, and characters given by code
+                        return false;
+                    }
+                }
+                case '.' -> {
+                    if (classDepth == 0) return false;
+                }
+                case '[' -> {
+                    if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') return false;
+                    classDepth++;
+                }
+                case ']' -> {
+                    if (classDepth > 0) classDepth--;
+                }
+                case '(' -> {
+                    // Inline flags such as (?iu) or (?U:...)
+                    if (i + 1 < regex.length() && regex.charAt(i + 1) == '?') {
+                        int j = i + 2;
+                        while (j < regex.length() && (Character.isLetter(regex.charAt(j)) || regex.charAt(j) == '-')) {
+                            char flag = regex.charAt(j++);
+                            if (flag == 'u' || flag == 'U') return false;
+                        }
+                    }
+                }
+                default -> {}
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the last newline before index 'before', or -1.
+     */
+    private static int lastIndexOf(CharSequence text, int before) {
+        for (int i = before - 1; i >= 0; i--) {
+            if (text.charAt(i) == '\n') return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first newline from 'from' on, or 'to'.
+     */
+    private static int indexOf(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') return i;
+        }
+        return to;
+    }
+
+    /**
+     * Reads bytes of the file into the start of an array.
+     * @throws UncheckedIOException if the read fails, the file was closed, or it shrank.
+     */
+    private void read(long position, byte[] into, int length) {
+        ByteBuffer target = ByteBuffer.wrap(into, 0, length);
+        try {
+            while (target.hasRemaining()) {
+                if (channel.read(target, position + target.position()) < 0) {
+                    throw new EOFException("Log file is shorter than " + size + " bytes");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String decode(long start, long end, int maxChars) {
+        int length = (int) Math.min(end - start, (long) maxChars * 4);
+        byte[] bytes = new byte[length];
+        read(start, bytes, length);
+
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(Math.min(length, maxChars));
+        decoder.decode(ByteBuffer.wrap(bytes), chars, true);
+        chars.flip();
+        int n = chars.length();
+        if (n > 0 && chars.charAt(n - 1) == '\r') n--;
+        return chars.subSequence(0, n).toString();
+    }
+
+    /**
+     * The part of the file a thread last read a single byte from.
+     */
+    private static final class Page {
+        private final byte[] bytes = new byte[PAGE_SIZE];
+        private long start;
+        private int length;
+    }
+
+    /**
+     * A line of ASCII text in a block of bytes, one char per byte.
+     */
+    private static final class ByteLine implements CharSequence {
+        private final byte[] bytes;
+        private int start;
+        private int length;
+
+        private ByteLine(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private ByteLine wrap(int start, int end) {
+            this.start = start;
+            this.length = end - start;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[start + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(bytes, start + from, to - from, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
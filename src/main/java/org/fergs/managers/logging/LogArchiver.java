@@ -0,0 +1,218 @@
+package org.fergs.managers.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * LogArchiver takes log files the {@link LogFileWriter} has rolled over, compresses them and
+ * keeps the logs directory under a total size.
+ * <p>
+ * A rolled file is renamed on the caller's thread to the next segment of its day,
+ * {@code specter-yyyy-MM-dd.N.log}, which is a cheap rename. Compressing it to
+ * {@code specter-yyyy-MM-dd.N.log.gz} happens on one low-priority daemon thread, so the logging
+ * thread never waits for it. After each file is compressed the oldest segments are deleted
+ * until the logs take no more than the configured total; the file being written is never
+ * deleted.
+ * <p>
+ * Segments left uncompressed when the app exited, and the file of a day the app was closed on,
+ * are picked up by {@link #recover(Path)} on the next start.
+ *
+ * @Author Fergs32
+ */
+public final class LogArchiver {
+    private static final Pattern DAY_FILE = Pattern.compile("specter-(\\d{4}-\\d{2}-\\d{2})\\.log");
+    private static final Pattern SEGMENT = Pattern.compile("specter-(\\d{4}-\\d{2}-\\d{2})\\.(\\d+)\\.log(\\.gz)?");
+    private static final String PARTIAL_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final ExecutorService executor;
+    private volatile long maxTotalBytes;
+    private volatile Path activeFile;
+
+    /**
+     * @param directory the logs directory.
+     * @param maxTotalBytes the most bytes all log files together may take.
+     */
+    public LogArchiver(Path directory, long maxTotalBytes) {
+        this.directory = directory;
+        this.maxTotalBytes = maxTotalBytes;
+        this.executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "LogArchiver");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Renames a closed log file to the next segment of its day and queues it for compression.
+     * @param file a closed {@code specter-yyyy-MM-dd.log}.
+     */
+    public void roll(Path file) throws IOException {
+        Matcher day = DAY_FILE.matcher(file.getFileName().toString());
+        if (!day.matches()) throw new IOException("Not a daily log file: " + file);
+
+        Path segment = directory.resolve("specter-" + day.group(1) + "." + nextSegment(day.group(1)) + ".log");
+        Files.move(file, segment, StandardCopyOption.ATOMIC_MOVE);
+        submit(() -> compress(segment));
+    }
+
+    /**
+     * Rolls the daily files of earlier days and queues every uncompressed segment, left behind
+     * by an earlier run, for compression.
+     * @param active the file now being written, which is left alone.
+     */
+    public void recover(Path active) {
+        activeFile = active;
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "specter-*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (file.equals(active)) continue;
+                if (name.endsWith(PARTIAL_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (DAY_FILE.matcher(name).matches()) {
+                    roll(file);
+                } else {
+                    Matcher segment = SEGMENT.matcher(name);
+                    if (segment.matches() && segment.group(3) == null) segments.add(file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to recover old log files: " + e.getMessage());
+        }
+
+        for (Path segment : segments) {
+            submit(() -> compress(segment));
+        }
+        submit(this::enforceRetention);
+    }
+
+    /**
+     * Tells the archiver which file is being written, so retention never deletes it.
+     */
+    public void setActiveFile(Path active) {
+        this.activeFile = active;
+    }
+
+    public void setMaxTotalBytes(long maxTotalBytes) {
+        this.maxTotalBytes = maxTotalBytes;
+        submit(this::enforceRetention);
+    }
+
+    /**
+     * Stops compressing; queued segments are compressed on the next start.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shut down; whatever is left uncompressed is picked up on the next start
+        }
+    }
+
+    private void compress(Path segment) {
+        Path target = segment.resolveSibling(segment.getFileName() + ".gz");
+        Path partial = target.resolveSibling(target.getFileName() + PARTIAL_SUFFIX);
+        try {
+            FileTime modified = Files.getLastModifiedTime(segment);
+            try (InputStream in = Files.newInputStream(segment);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024) {
+                     { def.setLevel(Deflater.BEST_SPEED); }
+                 }) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    if (Thread.currentThread().isInterrupted()) throw new IOException("Interrupted");
+                    out.write(buffer, 0, read);
+                }
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // Keep the segment's time, so retention still deletes the oldest first
+            Files.setLastModifiedTime(target, modified);
+            Files.delete(segment);
+        } catch (IOException e) {
+            System.err.println("Failed to compress " + segment.getFileName() + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {}
+            return;
+        }
+        enforceRetention();
+    }
+
+    /**
+     * Deletes the oldest rolled segments until the logs fit in the total size.
+     */
+    private void enforceRetention() {
+        List<Path> rolled = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "specter-*")) {
+            for (Path file : files) {
+                total += Files.size(file);
+                if (!file.equals(activeFile) && SEGMENT.matcher(file.getFileName().toString()).matches()) rolled.add(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to check log retention: " + e.getMessage());
+            return;
+        }
+        if (total <= maxTotalBytes) return;
+
+        rolled.sort(Comparator.comparing(LogArchiver::lastModified));
+        for (Path file : rolled) {
+            if (total <= maxTotalBytes) break;
+            try {
+                long size = Files.size(file);
+                Files.delete(file);
+                total -= size;
+            } catch (IOException e) {
+                System.err.println("Failed to delete old log file " + file.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns one more than the highest segment number of a day, compressed or not.
+     */
+    private int nextSegment(String date) throws IOException {
+        int highest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "specter-" + date + ".*")) {
+            for (Path file : files) {
+                Matcher segment = SEGMENT.matcher(file.getFileName().toString());
+                if (segment.matches()) highest = Math.max(highest, Integer.parseInt(segment.group(2)));
+            }
+        }
+        return highest + 1;
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package org.fergs.managers.logging;
+
+import javax.swing.*;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * LogConsole is the "Specter - Log Console" window. It keeps the most recent log lines in a
+ * fixed-capacity ring and shows them in a JList, which only paints the rows in view, so the
+ * cost of a frame does not grow with the number of lines kept.
+ * <p>
+ * The logging thread hands lines over with {@link #append}; they wait in a bounded batch that
+ * the event dispatch thread moves into the ring once per frame, with one list model update.
+ * Until the window is first shown, no Swing component exists and nothing runs on the event
+ * dispatch thread; the recent lines are kept so the window opens with them.
+ * <p>
+ * Lines can be filtered by minimum level, by source (the logging thread's name without its
+ * number, e.g. "SpecterScheduler") and by text, which narrows as the user types. Older and
+ * rolled log files are opened in a {@link LogViewer}.
+ *
+ * @Author Fergs32
+ */
+public final class LogConsole {
+    private static final int FRAME_MILLIS = 33;
+    private static final int PROTOTYPE_COLUMNS = 240;
+    private static final String ALL_SOURCES = "All sources";
+    private static final Level[] LEVELS = {Level.ALL, Level.FINE, Level.INFO, Level.WARNING, Level.SEVERE};
+
+    private final int capacity;
+
+    // Handed over from the logging thread, guarded by itself
+    private final ArrayDeque<Row> pending = new ArrayDeque<>();
+
+    // Everything below is only touched on the event dispatch thread
+    private final Row[] ring;
+    private long first; // sequence number of the oldest row kept
+    private long next;  // sequence number the next row gets
+    private final Map<String, String> sources = new HashMap<>();
+
+    private JFrame frame;
+    private JList<Row> list;
+    private JScrollPane scrollPane;
+    private JComboBox<String> sourceBox;
+    private JLabel countLabel;
+    private RowModel model;
+    private Timer timer;
+    private LogViewer viewer;
+
+    private int minimumLevel = Level.ALL.intValue();
+    private String sourceFilter;
+    private String search = "";
+    // Sequence numbers of the rows passing the filter, when one is set
+    private long[] matches = new long[1024];
+    private int matchStart;
+    private int matchEnd;
+
+    /**
+     * @param capacity the most lines kept.
+     */
+    public LogConsole(int capacity) {
+        this.capacity = Math.max(16, capacity);
+        this.ring = new Row[this.capacity];
+    }
+
+    /**
+     * Adds a formatted log entry, one row per line. Called on the logging thread; never blocks
+     * on the event dispatch thread.
+     */
+    public void append(Level level, String thread, CharSequence text) {
+        int length = text.length();
+        if (length > 0 && text.charAt(length - 1) == '\n') length--;
+
+        synchronized (pending) {
+            int start = 0;
+            while (start <= length) {
+                int end = indexOf(text, '\n', start, length);
+                pending.addLast(new Row(level, thread, text.subSequence(start, end).toString()));
+                start = end + 1;
+            }
+            // Rows beyond the capacity would be evicted from the ring straight away
+            while (pending.size() > capacity) pending.pollFirst();
+        }
+    }
+
+    /**
+     * Shows the window, building it the first time.
+     */
+    public void show() {
+        SwingUtilities.invokeLater(() -> {
+            if (frame == null) build();
+            frame.setVisible(true);
+            frame.toFront();
+        });
+    }
+
+    public void hide() {
+        SwingUtilities.invokeLater(() -> {
+            if (frame != null) frame.setVisible(false);
+        });
+    }
+
+    public void dispose() {
+        SwingUtilities.invokeLater(() -> {
+            if (timer != null) timer.stop();
+            if (viewer != null) viewer.dispose();
+            if (frame != null) frame.dispose();
+        });
+    }
+
+    private void build() {
+        frame = new JFrame("Specter - Log Console");
+        frame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+        frame.setSize(800, 600);
+        frame.add(createContent(), BorderLayout.CENTER);
+        frame.setLocationRelativeTo(null);
+
+        // Only take lines in while the window can show them; they wait in the batch meanwhile
+        timer = new Timer(FRAME_MILLIS, e -> drainPending());
+        frame.addComponentListener(new ComponentAdapter() {
+            @Override public void componentShown(ComponentEvent e) { drainPending(); timer.start(); }
+            @Override public void componentHidden(ComponentEvent e) { timer.stop(); }
+        });
+        drainPending();
+    }
+
+    private JPanel createContent() {
+        model = new RowModel();
+        list = new JList<>(model);
+        list.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        list.setBackground(Color.BLACK);
+        list.setForeground(Color.GREEN);
+        list.setSelectionBackground(new Color(0x264F78));
+        list.setSelectionForeground(Color.WHITE);
+        list.setCellRenderer(new RowRenderer());
+        // A fixed row size lets the list work out what is in view without measuring every row
+        list.setPrototypeCellValue(new Row(Level.INFO, "", "x".repeat(PROTOTYPE_COLUMNS)));
+
+        scrollPane = new JScrollPane(list);
+        scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
+
+        JComboBox<Level> levelBox = new JComboBox<>(LEVELS);
+        levelBox.addActionListener(e -> {
+            minimumLevel = ((Level) levelBox.getSelectedItem()).intValue();
+            refilter();
+        });
+
+        sourceBox = new JComboBox<>(new String[]{ALL_SOURCES});
+        sourceBox.setPrototypeDisplayValue("SpecterScheduler-pool");
+        sourceBox.addActionListener(e -> {
+            Object selected = sourceBox.getSelectedItem();
+            sourceFilter = selected == null || ALL_SOURCES.equals(selected) ? null : selected.toString();
+            refilter();
+        });
+
+        JTextField searchField = new JTextField(18);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { onSearch(searchField.getText()); }
+            @Override public void removeUpdate(DocumentEvent e) { onSearch(searchField.getText()); }
+            @Override public void changedUpdate(DocumentEvent e) { onSearch(searchField.getText()); }
+        });
+
+        JButton clearButton = new JButton("Clear");
+        clearButton.addActionListener(e -> clear());
+
+        JButton browseButton = new JButton("Browse logs...");
+        browseButton.addActionListener(e -> {
+            if (viewer == null) viewer = new LogViewer();
+            viewer.show();
+        });
+
+        countLabel = new JLabel();
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("Level"));
+        filterPanel.add(levelBox);
+        filterPanel.add(new JLabel("Source"));
+        filterPanel.add(sourceBox);
+        filterPanel.add(new JLabel("Search"));
+        filterPanel.add(searchField);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout());
+        buttonPanel.add(countLabel);
+        buttonPanel.add(clearButton);
+        buttonPanel.add(browseButton);
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(filterPanel, BorderLayout.NORTH);
+        content.add(scrollPane, BorderLayout.CENTER);
+        content.add(buttonPanel, BorderLayout.SOUTH);
+        return content;
+    }
+
+    /**
+     * Moves the waiting rows into the ring and updates the list once.
+     */
+    private void drainPending() {
+        Row[] batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) return;
+            batch = pending.toArray(new Row[0]);
+            pending.clear();
+        }
+
+        boolean atBottom = isScrolledToBottom();
+        int sizeBefore = model.getSize();
+
+        long evictedBefore = first;
+        for (Row row : batch) {
+            if (next - first == capacity) {
+                ring[(int) (first % capacity)] = null;
+                first++;
+            }
+            row.source = sourceOf(row.thread);
+            ring[(int) (next % capacity)] = row;
+            if (isFiltering() && matches(row)) addMatch(next);
+            next++;
+        }
+        int removed = isFiltering() ? dropEvictedMatches() : (int) Math.min(first - evictedBefore, sizeBefore);
+
+        if (removed > 0) model.removed(removed);
+        int added = model.getSize() - (sizeBefore - removed);
+        if (added > 0) model.added(added);
+
+        updateCount();
+        if (atBottom && model.getSize() > 0) {
+            list.ensureIndexIsVisible(model.getSize() - 1);
+        }
+    }
+
+    private void clear() {
+        synchronized (pending) {
+            pending.clear();
+        }
+        Arrays.fill(ring, null);
+        first = next;
+        matchStart = matchEnd = 0;
+        model.reset();
+        updateCount();
+    }
+
+    private void onSearch(String text) {
+        String previous = search;
+        search = text.trim().toLowerCase(Locale.ROOT);
+        if (search.equals(previous)) return;
+
+        if (!previous.isEmpty() && search.startsWith(previous)) {
+            // A longer query can only match rows that matched the shorter one
+            int kept = matchStart;
+            for (int i = matchStart; i < matchEnd; i++) {
+                if (containsIgnoreCase(ring[(int) (matches[i] % capacity)].text, search)) matches[kept++] = matches[i];
+            }
+            matchEnd = kept;
+            model.reset();
+            updateCount();
+            if (model.getSize() > 0) list.ensureIndexIsVisible(model.getSize() - 1);
+            return;
+        }
+        refilter();
+    }
+
+    /**
+     * Rebuilds the matching rows after a filter changed.
+     */
+    private void refilter() {
+        matchStart = matchEnd = 0;
+        if (isFiltering()) {
+            for (long seq = first; seq < next; seq++) {
+                if (matches(ring[(int) (seq % capacity)])) addMatch(seq);
+            }
+        }
+        model.reset();
+        updateCount();
+        if (model.getSize() > 0) list.ensureIndexIsVisible(model.getSize() - 1);
+    }
+
+    private boolean isFiltering() {
+        return minimumLevel > Level.ALL.intValue() || sourceFilter != null || !search.isEmpty();
+    }
+
+    private boolean matches(Row row) {
+        if (row.level.intValue() < minimumLevel) return false;
+        if (sourceFilter != null && !sourceFilter.equals(row.source)) return false;
+        return search.isEmpty() || containsIgnoreCase(row.text, search);
+    }
+
+    private void addMatch(long seq) {
+        if (matchEnd == matches.length) {
+            if (matchStart > matches.length / 2) {
+                System.arraycopy(matches, matchStart, matches, 0, matchEnd - matchStart);
+                matchEnd -= matchStart;
+                matchStart = 0;
+            } else {
+                matches = Arrays.copyOf(matches, matches.length * 2);
+            }
+        }
+        matches[matchEnd++] = seq;
+    }
+
+    /**
+     * Forgets matches for rows that left the ring.
+     * @return how many were dropped.
+     */
+    private int dropEvictedMatches() {
+        int start = matchStart;
+        while (matchStart < matchEnd && matches[matchStart] < first) matchStart++;
+        return matchStart - start;
+    }
+
+    private Row rowAt(int index) {
+        long seq = isFiltering() ? matches[matchStart + index] : first + index;
+        return ring[(int) (seq % capacity)];
+    }
+
+    private boolean isScrolledToBottom() {
+        BoundedRangeModel bar = scrollPane.getVerticalScrollBar().getModel();
+        return bar.getValue() + bar.getExtent() >= bar.getMaximum() - list.getFixedCellHeight();
+    }
+
+    private void updateCount() {
+        countLabel.setText(model.getSize() + " of " + (next - first) + " lines");
+    }
+
+    /**
+     * Groups threads by name without their number: "SpecterScheduler-3" becomes
+     * "SpecterScheduler".
+     */
+    private String sourceOf(String thread) {
+        String source = sources.get(thread);
+        if (source != null) return source;
+
+        if (thread == null || thread.isEmpty()) {
+            source = "virtual";
+        } else if (thread.startsWith("SwingWorker")) {
+            source = "SwingWorker";
+        } else {
+            int end = thread.length();
+            while (end > 0 && Character.isDigit(thread.charAt(end - 1))) end--;
+            while (end > 0 && (thread.charAt(end - 1) == '-' || thread.charAt(end - 1) == '#')) end--;
+            source = end > 0 ? thread.substring(0, end) : thread;
+        }
+        if (sources.size() < 1024) sources.put(thread, source);
+        addSource(source);
+        return source;
+    }
+
+    private void addSource(String source) {
+        if (sourceBox == null) return;
+        for (int i = 0; i < sourceBox.getItemCount(); i++) {
+            if (sourceBox.getItemAt(i).equals(source)) return;
+        }
+        sourceBox.addItem(source);
+    }
+
+    private static boolean containsIgnoreCase(String text, String lowerNeedle) {
+        final int n = lowerNeedle.length();
+        final char first = lowerNeedle.charAt(0);
+        for (int i = 0, last = text.length() - n; i <= last; i++) {
+            if (Character.toLowerCase(text.charAt(i)) == first && text.regionMatches(true, i + 1, lowerNeedle, 1, n - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == c) return i;
+        }
+        return to;
+    }
+
+    /**
+     * One line of the console. Lines of a multi-line entry, such as a stack trace, share the
+     * entry's level and thread.
+     */
+    private static final class Row {
+        private final Level level;
+        private final String thread;
+        private final String text;
+        private String source;
+
+        private Row(Level level, String thread, String text) {
+            this.level = level;
+            this.thread = thread;
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * The rows in view: the whole ring, or the matching rows while a filter is set.
+     */
+    private final class RowModel extends AbstractListModel<Row> {
+        private int size;
+
+        @Override
+        public int getSize() {
+            return isFiltering() ? matchEnd - matchStart : (int) (next - first);
+        }
+
+        @Override
+        public Row getElementAt(int index) {
+            return rowAt(index);
+        }
+
+        private void removed(int count) {
+            fireIntervalRemoved(this, 0, count - 1);
+            size -= count;
+        }
+
+        private void added(int count) {
+            fireIntervalAdded(this, size, size + count - 1);
+            size += count;
+        }
+
+        private void reset() {
+            if (size > 0) fireIntervalRemoved(this, 0, size - 1);
+            size = getSize();
+            if (size > 0) fireIntervalAdded(this, 0, size - 1);
+        }
+    }
+
+    private static final class RowRenderer extends DefaultListCellRenderer {
+        private static final Color FINE = new Color(0x6A9955);
+        private static final Color WARNING = new Color(0xE5C07B);
+        private static final Color SEVERE = new Color(0xF44747);
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, false);
+            if (!isSelected && value instanceof Row row) {
+                int level = row.level.intValue();
+                if (level >= Level.SEVERE.intValue()) {
+                    setForeground(SEVERE);
+                } else if (level >= Level.WARNING.intValue()) {
+                    setForeground(WARNING);
+                } else if (level < Level.INFO.intValue()) {
+                    setForeground(FINE);
+                }
+            }
+            return this;
+        }
+    }
+}
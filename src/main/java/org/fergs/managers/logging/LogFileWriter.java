@@ -0,0 +1,177 @@
+package org.fergs.managers.logging;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * LogFileWriter appends log lines to the daily {@code specter-yyyy-MM-dd.log} file through one
+ * long-lived {@link FileChannel} and an in-memory buffer, instead of opening, writing and closing
+ * the file for every line.
+ * <p>
+ * Lines are encoded as UTF-8 straight into the buffer, which is written out when it fills up or
+ * when {@link #flushIfDue(long)} finds that the flush interval has passed. The next local midnight
+ * is computed once per file, so checking for rotation is a single comparison per write.
+ * <p>
+ * The file is rolled over at midnight and whenever it reaches the maximum file size: it is
+ * closed, handed to the {@link LogArchiver} to be renamed and compressed in the background, and
+ * a fresh file is started.
+ * <p>
+ * Not thread-safe; it is owned by the logging thread.
+ *
+ * @Author Fergs32
+ */
+public final class LogFileWriter implements Closeable {
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final Path directory;
+    private final LogArchiver archiver;
+    private final ZoneId zone;
+    private final long flushIntervalMillis;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private FileChannel channel;
+    private Path file;
+    private long fileSize;
+    private volatile long maxFileBytes;
+    private long retryRollAtBytes;
+    private long nextRotationMillis;
+    private long lastFlushMillis;
+
+    /**
+     * @param directory the directory the daily files are written to; created if missing.
+     * @param bufferBytes the bytes buffered before they are written to the file.
+     * @param flushIntervalMillis the longest a buffered line waits before it is written.
+     * @param maxFileBytes the size at which the file is rolled over.
+     * @param archiver takes the files that were rolled over.
+     */
+    public LogFileWriter(Path directory, int bufferBytes, long flushIntervalMillis, long maxFileBytes,
+                         LogArchiver archiver) throws IOException {
+        this.directory = directory;
+        this.archiver = archiver;
+        this.maxFileBytes = maxFileBytes;
+        this.zone = ZoneId.systemDefault();
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(4096, bufferBytes));
+
+        Files.createDirectories(directory);
+        open(System.currentTimeMillis());
+    }
+
+    /**
+     * Buffers one line, rolling the file over first if midnight has passed or it is full.
+     * @param line the formatted line, including its line separator.
+     */
+    public void write(CharSequence line) throws IOException {
+        long now = System.currentTimeMillis();
+        if (now >= nextRotationMillis || fileSize + buffer.position() >= Math.max(maxFileBytes, retryRollAtBytes)) {
+            rollOver(now);
+        }
+
+        CharBuffer chars = CharBuffer.wrap(line);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                flush();
+                continue;
+            }
+            if (result.isError()) result.throwException();
+            break;
+        }
+        encoder.reset();
+    }
+
+    /**
+     * Writes the buffer out if the flush interval has passed since the last flush.
+     * @return true if anything was written.
+     */
+    public boolean flushIfDue(long nowMillis) throws IOException {
+        if (buffer.position() == 0 || nowMillis - lastFlushMillis < flushIntervalMillis) return false;
+        flush();
+        return true;
+    }
+
+    /**
+     * Writes every buffered line to the file.
+     */
+    public void flush() throws IOException {
+        lastFlushMillis = System.currentTimeMillis();
+        if (buffer.position() == 0) return;
+
+        if (!channel.isOpen()) {
+            // An interrupt during a write closes the channel; pick the same file up again
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            fileSize += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * The file currently written to.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Sets the size at which the file is rolled over; takes effect with the next line.
+     */
+    public void setMaxFileBytes(long maxFileBytes) {
+        this.maxFileBytes = Math.max(64 * 1024, maxFileBytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void rollOver(long nowMillis) throws IOException {
+        flush();
+        channel.close();
+        try {
+            archiver.roll(file);
+        } catch (IOException e) {
+            // Keep appending to the same file rather than losing lines
+            System.err.println("Failed to roll over log file: " + e.getMessage());
+        }
+        open(nowMillis);
+        if (fileSize >= maxFileBytes) {
+            // The file could not be rolled over; try again after another megabyte, not every line
+            retryRollAtBytes = fileSize + 1024 * 1024;
+        }
+    }
+
+    private void open(long nowMillis) throws IOException {
+        LocalDate today = LocalDate.ofInstant(Instant.ofEpochMilli(nowMillis), zone);
+        file = directory.resolve("specter-" + today.format(FILE_DATE_FORMAT) + ".log");
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = channel.size();
+        retryRollAtBytes = 0;
+        archiver.setActiveFile(file);
+        nextRotationMillis = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        lastFlushMillis = nowMillis;
+    }
+}
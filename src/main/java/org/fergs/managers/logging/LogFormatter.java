@@ -0,0 +1,195 @@
+package org.fergs.managers.logging;
+
+import org.fergs.objects.LogEntry;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+
+/**
+ * LogFormatter turns a {@link LogEntry} into a log line on the logging thread:
+ * <pre>
+ * [2025-03-14 09:26:53.120] INFO    - Scheduled task Ticker@1b6d3586
+ * </pre>
+ * The line is built in one reused StringBuilder. The date and time up to the second are cached
+ * and only rebuilt when an entry falls in a different second, so most lines only append the
+ * milliseconds.
+ * <p>
+ * Parameters are rendered by position, {@code {0}}, {@code {1}}, ..., or in order, {@code %s}
+ * and {@code %d}, and appended with {@link String#valueOf(Object)}. Unlike MessageFormat,
+ * apostrophes are left alone. Placeholders without a matching parameter are kept as written.
+ * <p>
+ * Not thread-safe; each thread that formats needs its own instance.
+ *
+ * @Author Fergs32
+ */
+public final class LogFormatter {
+    private static final int LEVEL_WIDTH = 7;
+
+    private final ZoneRules zoneRules;
+    private final StringBuilder line = new StringBuilder(256);
+    // "yyyy-MM-dd HH:mm:ss." for cachedSecond
+    private final char[] secondPrefix = new char[20];
+    private long cachedSecond = Long.MIN_VALUE;
+
+    public LogFormatter() {
+        this(ZoneId.systemDefault());
+    }
+
+    public LogFormatter(ZoneId zone) {
+        this.zoneRules = zone.getRules();
+    }
+
+    /**
+     * Formats an entry, including its stack trace and the trailing line separator.
+     * @return the line; only valid until the next call.
+     */
+    public StringBuilder format(LogEntry entry) {
+        StringBuilder sb = line;
+        sb.setLength(0);
+        if (sb.capacity() > 64 * 1024) sb.trimToSize(); // don't hold on to one huge stack trace
+
+        sb.append('[');
+        appendTimestamp(sb, entry.timestamp);
+        sb.append("] ");
+
+        String level = entry.level.getName();
+        sb.append(level);
+        for (int i = level.length(); i < LEVEL_WIDTH; i++) sb.append(' ');
+        sb.append(" - ");
+
+        render(sb, entry.message, entry.params);
+
+        if (entry.throwable != null) {
+            sb.append('\n');
+            appendStackTrace(sb, entry.throwable);
+        }
+
+        sb.append('\n');
+        return sb;
+    }
+
+    /**
+     * Appends "yyyy-MM-dd HH:mm:ss.SSS" in the formatter's zone.
+     */
+    public void appendTimestamp(StringBuilder sb, long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        if (second != cachedSecond) {
+            cacheSecond(second);
+        }
+        sb.append(secondPrefix);
+
+        int millis = Math.floorMod(epochMillis, 1000);
+        sb.append((char) ('0' + millis / 100))
+                .append((char) ('0' + millis / 10 % 10))
+                .append((char) ('0' + millis % 10));
+    }
+
+    /**
+     * Appends a message with its placeholders replaced by the parameters.
+     */
+    public static void render(StringBuilder sb, String message, Object[] params) {
+        if (message == null) {
+            sb.append("null");
+            return;
+        }
+        if (params == null || params.length == 0) {
+            sb.append(message);
+            return;
+        }
+
+        final int length = message.length();
+        int next = 0; // the parameter for the next %s
+        int copied = 0;
+        for (int i = 0; i < length - 1; i++) {
+            char c = message.charAt(i);
+            if (c == '{') {
+                int close = i + 1;
+                int index = 0;
+                while (close < length && close - i <= 3 && isDigit(message.charAt(close))) {
+                    index = index * 10 + (message.charAt(close) - '0');
+                    close++;
+                }
+                if (close == i + 1 || close >= length || message.charAt(close) != '}' || index >= params.length) continue;
+
+                sb.append(message, copied, i);
+                appendValue(sb, params[index]);
+                copied = close + 1;
+                i = close;
+            } else if (c == '%') {
+                char conversion = message.charAt(i + 1);
+                if (conversion == '%') {
+                    sb.append(message, copied, i + 1);
+                    copied = i + 2;
+                    i++;
+                } else if ((conversion == 's' || conversion == 'd') && next < params.length) {
+                    sb.append(message, copied, i);
+                    appendValue(sb, params[next++]);
+                    copied = i + 2;
+                    i++;
+                }
+            }
+        }
+        sb.append(message, copied, length);
+    }
+
+    /**
+     * Appends a throwable, its stack and its causes.
+     */
+    public static void appendStackTrace(StringBuilder sb, Throwable throwable) {
+        int depth = 0;
+        for (Throwable t = throwable; t != null && depth < 16; t = t.getCause(), depth++) {
+            if (depth > 0) sb.append("\nCaused by: ");
+            sb.append(t.getClass().getSimpleName()).append(": ").append(t.getMessage());
+            for (StackTraceElement element : t.getStackTrace()) {
+                sb.append("\n    at ").append(element);
+            }
+        }
+    }
+
+    private static void appendValue(StringBuilder sb, Object value) {
+        // Common boxed types are appended without going through toString()
+        if (value instanceof CharSequence cs) {
+            sb.append(cs);
+        } else if (value instanceof Integer n) {
+            sb.append(n.intValue());
+        } else if (value instanceof Long n) {
+            sb.append(n.longValue());
+        } else {
+            sb.append(value);
+        }
+    }
+
+    private void cacheSecond(long second) {
+        Instant instant = Instant.ofEpochSecond(second);
+        LocalDateTime time = LocalDateTime.ofEpochSecond(second, 0, zoneRules.getOffset(instant));
+        char[] p = secondPrefix;
+        int year = time.getYear();
+        p[0] = (char) ('0' + year / 1000 % 10);
+        p[1] = (char) ('0' + year / 100 % 10);
+        p[2] = (char) ('0' + year / 10 % 10);
+        p[3] = (char) ('0' + year % 10);
+        p[4] = '-';
+        twoDigits(p, 5, time.getMonthValue());
+        p[7] = '-';
+        twoDigits(p, 8, time.getDayOfMonth());
+        p[10] = ' ';
+        twoDigits(p, 11, time.getHour());
+        p[13] = ':';
+        twoDigits(p, 14, time.getMinute());
+        p[16] = ':';
+        twoDigits(p, 17, time.getSecond());
+        p[19] = '.';
+        cachedSecond = second;
+    }
+
+    private static void twoDigits(char[] p, int at, int value) {
+        p[at] = (char) ('0' + value / 10);
+        p[at + 1] = (char) ('0' + value % 10);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
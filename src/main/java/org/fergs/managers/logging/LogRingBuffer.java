@@ -0,0 +1,259 @@
+package org.fergs.managers.logging;
+
+import org.fergs.objects.LogEntry;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+/**
+ * LogRingBuffer is the bounded hand-off between threads that log and the logging thread.
+ * <p>
+ * The slots and their sequence numbers are allocated once, up front. Each slot's sequence
+ * number says whether it is free for the producer claiming that position or holds an entry
+ * for the consumer, so producers claim a position with a single compare-and-set and never
+ * take a lock, and no node is allocated per entry. Any thread may take entries out, which is
+ * what lets a producer discard the oldest entry under {@link OverflowPolicy#DROP_OLDEST}.
+ * <p>
+ * When the buffer is full, the {@link OverflowPolicy} decides whether the producer waits or an
+ * entry is dropped. Dropped entries are counted, so the logging thread can report them.
+ *
+ * @Author Fergs32
+ */
+public final class LogRingBuffer {
+    private static final long BLOCK_PARK_NANOS = 50_000;
+
+    /**
+     * What happens to an entry logged while the buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** The producer waits for space; nothing is lost. */
+        BLOCK,
+        /** The oldest waiting entry is discarded to make room. */
+        DROP_OLDEST,
+        /** Entries below the protected level are discarded; the rest wait for space. */
+        DROP_BELOW_LEVEL,
+        /** One in every sample-rate entries below the protected level waits for space; the others are discarded. */
+        SAMPLE
+    }
+
+    private final int mask;
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong overflows = new AtomicLong();
+
+    private volatile OverflowPolicy policy = OverflowPolicy.BLOCK;
+    private volatile int protectedLevel = Level.WARNING.intValue();
+    private volatile int sampleRate = 10;
+    private volatile Thread consumerThread;
+    private final AtomicReference<Thread> waitingConsumer = new AtomicReference<>();
+    private volatile boolean closed;
+
+    /**
+     * @param capacity the most entries held at once, rounded up to a power of two.
+     */
+    public LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.slots = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Hands an entry to the logging thread, applying the overflow policy if the buffer is full.
+     * @return true if the entry was queued, false if it was dropped.
+     */
+    public boolean publish(LogEntry entry) {
+        if (offer(entry)) return true;
+
+        OverflowPolicy policy = this.policy;
+        // Waiting is pointless once nobody drains the buffer, and would deadlock the logging thread itself
+        boolean mayWait = !closed && Thread.currentThread() != consumerThread;
+        boolean isProtected = entry.level.intValue() >= protectedLevel;
+        switch (policy) {
+            case DROP_OLDEST -> {
+                do {
+                    if (poll() != null) dropped.increment();
+                } while (!offer(entry));
+                return true;
+            }
+            case DROP_BELOW_LEVEL -> {
+                if (!isProtected) return drop();
+            }
+            case SAMPLE -> {
+                if (!isProtected && overflows.getAndIncrement() % sampleRate != 0) return drop();
+            }
+            case BLOCK -> {}
+        }
+        return mayWait ? offerWaiting(entry) : drop();
+    }
+
+    /**
+     * Queues an entry if there is room.
+     * @return false if the buffer is full.
+     */
+    public boolean offer(LogEntry entry) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.getAcquire(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = entry;
+                    sequences.setRelease(index, position + 1);
+                    wakeConsumer();
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest entry.
+     * @return the entry, or null if the buffer is empty.
+     */
+    public LogEntry poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.getAcquire(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    LogEntry entry = (LogEntry) slots[index];
+                    slots[index] = null;
+                    sequences.setRelease(index, position + mask + 1);
+                    return entry;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * Moves up to max entries into the list, oldest first.
+     * @return the number of entries moved.
+     */
+    public int drainTo(List<LogEntry> into, int max) {
+        int n = 0;
+        LogEntry entry;
+        while (n < max && (entry = poll()) != null) {
+            into.add(entry);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Parks the calling consumer until an entry is published, the timeout passes or it is
+     * unparked. Returns at once if entries are waiting.
+     */
+    public void awaitEntries(long timeoutNanos) {
+        consumerThread = Thread.currentThread();
+        waitingConsumer.set(consumerThread);
+        try {
+            if (isEmpty() && !closed) LockSupport.parkNanos(this, timeoutNanos);
+        } finally {
+            waitingConsumer.set(null);
+        }
+    }
+
+    /**
+     * Stops producers from waiting for space and wakes a parked consumer. Entries can still be
+     * published while there is room, and drained.
+     */
+    public void close() {
+        closed = true;
+        wakeConsumer();
+    }
+
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    /**
+     * The number of entries waiting; approximate while producers are publishing.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head.get(), slots.length));
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * The number of entries dropped since the buffer was created.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(OverflowPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Sets the level from which DROP_BELOW_LEVEL and SAMPLE never drop entries.
+     */
+    public void setProtectedLevel(Level level) {
+        this.protectedLevel = level.intValue();
+    }
+
+    /**
+     * Sets how many overflowing entries SAMPLE counts for each one it keeps.
+     */
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * Unparks a waiting consumer; only the first producer to see it waiting pays for the unpark.
+     */
+    private void wakeConsumer() {
+        if (waitingConsumer.get() == null) return;
+        Thread consumer = waitingConsumer.getAndSet(null);
+        if (consumer != null) LockSupport.unpark(consumer);
+    }
+
+    private boolean offerWaiting(LogEntry entry) {
+        int spins = 0;
+        while (!offer(entry)) {
+            if (closed) return drop();
+            if (spins++ < 100) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            }
+        }
+        return true;
+    }
+
+    private boolean drop() {
+        dropped.increment();
+        return false;
+    }
+}
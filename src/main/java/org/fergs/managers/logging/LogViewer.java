@@ -0,0 +1,468 @@
+package org.fergs.managers.logging;
+
+import javax.swing.*;
+import javax.swing.Timer;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * LogViewer is the "Specter - Log Viewer" window, for browsing log files of any size, including
+ * rolled and compressed segments.
+ * <p>
+ * A file is opened as an {@link IndexedLogFile}, which does not read it up front, and its lines are
+ * indexed on a background thread. The list shows lines as soon as the first ones are indexed and
+ * grows while the rest are, so the first lines of even a multi-gigabyte file paint at once.
+ * Compressed segments are unpacked to a temporary file first.
+ * <p>
+ * "Go" jumps to the first line at or after a time, found by bisecting the file on its timestamps,
+ * so it does not wait for the index. "Search" runs a regular expression over the whole file on all
+ * cores and lists the matching lines; clicking one jumps to it.
+ *
+ * @Author Fergs32
+ */
+public final class LogViewer {
+    private static final int REFRESH_MILLIS = 100;
+    private static final int PROTOTYPE_COLUMNS = 240;
+    private static final int MAX_RESULTS = 10_000;
+    private static final Pattern TIME_OF_DAY = Pattern.compile("\\d{2}:\\d{2}.*");
+
+    // Only touched on the event dispatch thread
+    private JFrame frame;
+    private JList<String> lineList;
+    private LineModel lineModel;
+    private DefaultListModel<Long> resultModel;
+    private JList<Long> resultList;
+    private JTextField timeField;
+    private JTextField searchField;
+    private JLabel statusLabel;
+    private Timer timer;
+
+    private IndexedLogFile file;
+    private Path unpackedFile;
+    private AtomicBoolean indexCancelled = new AtomicBoolean();
+    private AtomicBoolean searchCancelled = new AtomicBoolean();
+    private long pendingJump = -1;
+    private String searchStatus = "";
+
+    /**
+     * Shows the window, building it the first time.
+     */
+    public void show() {
+        SwingUtilities.invokeLater(() -> {
+            if (frame == null) build();
+            frame.setVisible(true);
+            frame.toFront();
+        });
+    }
+
+    public void dispose() {
+        SwingUtilities.invokeLater(() -> {
+            if (frame == null) return;
+            closeFile();
+            timer.stop();
+            frame.dispose();
+            frame = null;
+        });
+    }
+
+    private void build() {
+        frame = new JFrame("Specter - Log Viewer");
+        frame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+        frame.setSize(1000, 700);
+        frame.add(createContent(), BorderLayout.CENTER);
+        frame.setLocationRelativeTo(null);
+
+        timer = new Timer(REFRESH_MILLIS, e -> refresh());
+        timer.setInitialDelay(0);
+        frame.addComponentListener(new ComponentAdapter() {
+            // An open file keeps a rolled or deleted log on disk; let it go when the window is closed
+            @Override public void componentHidden(ComponentEvent e) { closeFile(); }
+        });
+    }
+
+    private JPanel createContent() {
+        lineModel = new LineModel();
+        lineList = new JList<>(lineModel);
+        styleList(lineList);
+        lineList.setCellRenderer(new LineRenderer());
+        // A fixed row size lets the list work out what is in view without measuring every line
+        lineList.setPrototypeCellValue("x".repeat(PROTOTYPE_COLUMNS));
+
+        resultModel = new DefaultListModel<>();
+        resultList = new JList<>(resultModel);
+        styleList(resultList);
+        resultList.setCellRenderer(new ResultRenderer());
+        resultList.setPrototypeCellValue(0L);
+        resultList.addListSelectionListener(e -> {
+            Long offset = resultList.getSelectedValue();
+            if (!e.getValueIsAdjusting() && offset != null) jumpTo(offset);
+        });
+
+        JScrollPane lineScroll = new JScrollPane(lineList);
+        lineScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, lineScroll, new JScrollPane(resultList));
+        split.setResizeWeight(0.75);
+
+        JButton openButton = new JButton("Open...");
+        openButton.addActionListener(e -> chooseFile());
+
+        timeField = new JTextField(16);
+        timeField.setToolTipText("yyyy-MM-dd HH:mm:ss.SSS, any prefix of it, or HH:mm[:ss] on the file's first day");
+        timeField.addActionListener(e -> jumpToTime());
+        JButton goButton = new JButton("Go");
+        goButton.addActionListener(e -> jumpToTime());
+
+        searchField = new JTextField(22);
+        searchField.setToolTipText("Regular expression");
+        searchField.addActionListener(e -> search());
+        JButton searchButton = new JButton("Search");
+        searchButton.addActionListener(e -> search());
+        JButton stopButton = new JButton("Stop");
+        stopButton.addActionListener(e -> searchCancelled.set(true));
+
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        toolbar.add(openButton);
+        toolbar.add(new JLabel("Time"));
+        toolbar.add(timeField);
+        toolbar.add(goButton);
+        toolbar.add(new JLabel("Regex"));
+        toolbar.add(searchField);
+        toolbar.add(searchButton);
+        toolbar.add(stopButton);
+
+        statusLabel = new JLabel("No file open");
+        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        statusPanel.add(statusLabel);
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(toolbar, BorderLayout.NORTH);
+        content.add(split, BorderLayout.CENTER);
+        content.add(statusPanel, BorderLayout.SOUTH);
+        return content;
+    }
+
+    private static void styleList(JList<?> list) {
+        list.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        list.setBackground(Color.BLACK);
+        list.setForeground(Color.GREEN);
+        list.setSelectionBackground(new Color(0x264F78));
+        list.setSelectionForeground(Color.WHITE);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    }
+
+    private void chooseFile() {
+        Path logs = Paths.get("logs");
+        JFileChooser chooser = new JFileChooser(Files.isDirectory(logs) ? logs.toFile() : null);
+        if (chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+            load(chooser.getSelectedFile().toPath());
+        }
+    }
+
+    private void load(Path path) {
+        closeFile();
+        if (path.getFileName().toString().endsWith(".gz")) {
+            unpack(path);
+            return;
+        }
+
+        try {
+            file = IndexedLogFile.open(path);
+        } catch (IOException e) {
+            statusLabel.setText("Failed to open " + path.getFileName() + ": " + e.getMessage());
+            return;
+        }
+        frame.setTitle("Specter - Log Viewer - " + path.getFileName());
+
+        IndexedLogFile indexing = file;
+        AtomicBoolean cancelled = indexCancelled;
+        Thread indexer = new Thread(() -> indexing.buildIndex(null, cancelled), "LogIndexer");
+        indexer.setDaemon(true);
+        indexer.start();
+        timer.start();
+    }
+
+    /**
+     * Unpacks a compressed segment to a temporary file and opens that.
+     */
+    private void unpack(Path path) {
+        statusLabel.setText("Unpacking " + path.getFileName() + "...");
+        AtomicBoolean cancelled = indexCancelled;
+        new SwingWorker<Path, Void>() {
+            @Override
+            protected Path doInBackground() throws IOException {
+                Path target = Files.createTempFile("specter-", ".log");
+                target.toFile().deleteOnExit();
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(path), 64 * 1024);
+                     OutputStream out = Files.newOutputStream(target)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    int read;
+                    while ((read = in.read(buffer)) > 0) {
+                        if (cancelled.get()) throw new IOException("Cancelled");
+                        out.write(buffer, 0, read);
+                    }
+                } catch (IOException e) {
+                    Files.deleteIfExists(target);
+                    throw e;
+                }
+                return target;
+            }
+
+            @Override
+            protected void done() {
+                Path target;
+                try {
+                    target = get();
+                } catch (Exception e) {
+                    if (!cancelled.get()) statusLabel.setText("Failed to unpack " + path.getFileName() + ": " + e.getCause().getMessage());
+                    return;
+                }
+                if (cancelled.get() || frame == null) {
+                    deleteQuietly(target);
+                    return;
+                }
+                load(target);
+                unpackedFile = target;
+                frame.setTitle("Specter - Log Viewer - " + path.getFileName());
+            }
+        }.execute();
+    }
+
+    private void closeFile() {
+        indexCancelled.set(true);
+        searchCancelled.set(true);
+        indexCancelled = new AtomicBoolean();
+        searchCancelled = new AtomicBoolean();
+        if (timer != null) timer.stop();
+        pendingJump = -1;
+        searchStatus = "";
+        if (resultModel != null) resultModel.clear();
+        if (lineModel != null) lineModel.reset();
+
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException ignored) {}
+            file = null;
+        }
+        if (unpackedFile != null) {
+            deleteQuietly(unpackedFile);
+            unpackedFile = null;
+        }
+        if (frame != null) frame.setTitle("Specter - Log Viewer");
+        if (statusLabel != null) statusLabel.setText("No file open");
+    }
+
+    /**
+     * Shows the lines indexed since the last refresh and makes a jump that was waiting for them.
+     */
+    private void refresh() {
+        if (file == null) return;
+        lineModel.grow();
+        if (pendingJump >= 0) jumpTo(pendingJump);
+        updateStatus();
+        if (file.isIndexComplete()) timer.stop();
+    }
+
+    private void jumpToTime() {
+        if (file == null) return;
+        String time = timeField.getText().trim();
+        if (time.isEmpty()) return;
+        if (TIME_OF_DAY.matcher(time).matches() && file.getLineCount() > 0) {
+            // Just a time of day; take the date from the first line
+            String first = file.line(0);
+            if (first.length() > 11) time = first.substring(1, 11) + " " + time;
+        }
+
+        IndexedLogFile target = file;
+        String timestamp = time;
+        new SwingWorker<Long, Void>() {
+            @Override
+            protected Long doInBackground() {
+                return target.findTime(timestamp);
+            }
+
+            @Override
+            protected void done() {
+                if (file != target) return;
+                try {
+                    long offset = get();
+                    if (offset >= target.getSize()) {
+                        statusLabel.setText("Nothing logged at or after " + timestamp);
+                    } else {
+                        jumpTo(offset);
+                    }
+                } catch (Exception e) {
+                    statusLabel.setText("Failed to find " + timestamp + ": " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Selects the line starting at a byte offset, or remembers it until the index reaches it.
+     */
+    private void jumpTo(long offset) {
+        long line = file.lineOf(offset);
+        if (line >= lineModel.getSize() && file.isIndexComplete()) {
+            pendingJump = -1;
+            statusLabel.setText(String.format("Line %,d is past the %,d lines the list can show", line + 1, lineModel.getSize()));
+            return;
+        }
+        if (line < 0 || line >= lineModel.getSize()) {
+            pendingJump = offset;
+            updateStatus();
+            return;
+        }
+        pendingJump = -1;
+        int index = (int) line;
+        lineList.setSelectedIndex(index);
+        // Put the line near the top rather than at the edge of the view
+        int visible = lineList.getLastVisibleIndex() - lineList.getFirstVisibleIndex();
+        lineList.ensureIndexIsVisible((int) Math.min(lineModel.getSize() - 1L, index + Math.max(0, visible - 2)));
+        lineList.ensureIndexIsVisible(index);
+    }
+
+    private void search() {
+        if (file == null) return;
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(searchField.getText());
+        } catch (PatternSyntaxException e) {
+            statusLabel.setText("Invalid pattern: " + e.getDescription());
+            return;
+        }
+
+        searchCancelled.set(true);
+        AtomicBoolean cancelled = searchCancelled = new AtomicBoolean();
+        resultModel.clear();
+        searchStatus = " - searching...";
+        updateStatus();
+
+        IndexedLogFile target = file;
+        long started = System.nanoTime();
+        new SwingWorker<long[], Void>() {
+            @Override
+            protected long[] doInBackground() {
+                return target.search(pattern, MAX_RESULTS, cancelled);
+            }
+
+            @Override
+            protected void done() {
+                if (file != target || cancelled != searchCancelled) return;
+                long[] offsets;
+                try {
+                    offsets = get();
+                } catch (Exception e) {
+                    searchStatus = " - search failed: " + e.getMessage();
+                    updateStatus();
+                    return;
+                }
+                long millis = (System.nanoTime() - started) / 1_000_000;
+                searchStatus = " - " + offsets.length + (offsets.length == MAX_RESULTS ? "+" : "") + " matches"
+                        + (cancelled.get() ? " (stopped)" : "") + " in " + millis + " ms";
+                for (long offset : offsets) resultModel.addElement(offset);
+                updateStatus();
+            }
+        }.execute();
+    }
+
+    private void updateStatus() {
+        if (file == null) return;
+        String status = String.format("%,d lines", file.getLineCount());
+        if (!file.isIndexComplete()) {
+            status += String.format(" - indexing %d%%", file.getIndexedBytes() * 100 / Math.max(1, file.getSize()));
+        } else if (lineModel.getSize() < file.getLineCount()) {
+            status += String.format(", first %,d shown", lineModel.getSize());
+        }
+        if (pendingJump >= 0) status += " - waiting for the index to reach the line";
+        statusLabel.setText(status + searchStatus);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * The lines indexed so far. Lines are read from the file as they are painted.
+     */
+    private final class LineModel extends AbstractListModel<String> {
+        private int size;
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return file == null ? "" : file.line(index);
+        }
+
+        private void grow() {
+            // The list's height in pixels is an int, which caps how many rows it can hold
+            int rowHeight = Math.max(1, lineList.getFixedCellHeight());
+            int count = (int) Math.min(file.getLineCount(), Integer.MAX_VALUE / rowHeight - 1);
+            if (count > size) {
+                int from = size;
+                size = count;
+                fireIntervalAdded(this, from, count - 1);
+            }
+        }
+
+        private void reset() {
+            if (size == 0) return;
+            int removed = size;
+            size = 0;
+            fireIntervalRemoved(this, 0, removed - 1);
+        }
+    }
+
+    /**
+     * Colours lines by the level after their timestamp, "[yyyy-MM-dd HH:mm:ss.SSS] LEVEL".
+     */
+    private static class LineRenderer extends DefaultListCellRenderer {
+        private static final int LEVEL_COLUMN = 26;
+        private static final Color FINE = new Color(0x6A9955);
+        private static final Color WARNING = new Color(0xE5C07B);
+        private static final Color SEVERE = new Color(0xF44747);
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, false);
+            if (!isSelected && value instanceof String line && line.startsWith("[")) {
+                if (line.startsWith("SEVERE", LEVEL_COLUMN)) {
+                    setForeground(SEVERE);
+                } else if (line.startsWith("WARNING", LEVEL_COLUMN)) {
+                    setForeground(WARNING);
+                } else if (line.startsWith("FINE", LEVEL_COLUMN) || line.startsWith("CONFIG", LEVEL_COLUMN)) {
+                    setForeground(FINE);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Shows a search result, held as the byte offset of its line, as the line's text.
+     */
+    private final class ResultRenderer extends LineRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            Object text = value instanceof Long offset && file != null ? file.lineAt(offset) : "x".repeat(PROTOTYPE_COLUMNS);
+            return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+        }
+    }
+}
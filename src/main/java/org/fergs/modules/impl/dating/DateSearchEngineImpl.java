@@ -15,9 +15,13 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
+import static org.fergs.modules.impl.dating.ResultFeatureMatcher.*;
+
 /**
  * DateSearchEngineImpl is a class that performs web searches using Google Custom Search Engine (CSE)
  * to find dating-related results for a specified target name. It supports proxy usage, headless
@@ -29,6 +33,12 @@ import java.util.stream.Collectors;
  * @Author Fergs32
  */
 public final class DateSearchEngineImpl {
+    private static final Comparator<Ranked> RANK_ORDER = Comparator
+            .comparingInt(Ranked::score).reversed()
+            .thenComparingInt(Ranked::position);
+    // Score-based sorts pick the best maxResults out of this many times as many candidates
+    private static final int CANDIDATE_POOL_FACTOR = 4;
+
     private final LoggingManager LOGGER = LoggingManager.getInstance();
     private final List<String> proxies;
     private final String proxyType;
@@ -41,6 +51,8 @@ public final class DateSearchEngineImpl {
     private final int maxResults;
     private final boolean photosOnly;
     private final boolean verifiedOnly;
+    private final ResultFeatureMatcher matcher;
+    private final SearchResultCache searchCache = SearchResultCache.getInstance();
 
     public DateSearchEngineImpl(List<String> proxies, String proxyType, String targetName) {
         this(proxies, proxyType, targetName, "Any", "Any", "All", "Relevance", 50, false, false);
@@ -59,9 +71,37 @@ public final class DateSearchEngineImpl {
         this.maxResults = maxResults;
         this.photosOnly = photosOnly;
         this.verifiedOnly = verifiedOnly;
+        this.matcher = new ResultFeatureMatcher(ageRange, "All".equals(platform) ? "" : getPlatformSite(platform));
     }
 
     public List<SearchResult> run() {
+        return run(result -> {});
+    }
+
+    /**
+     * Runs the search and hands every accepted result to the listener as soon as the page
+     * it was found on has been parsed, so callers can show results before paging finishes.
+     * Results are streamed in relevance order; the returned list is the final sorted selection.
+     * A score-based sort crawls up to {@value #CANDIDATE_POOL_FACTOR} times maxResults candidates
+     * and keeps the best maxResults of them.
+     * <p>
+     * If the same query was crawled recently, the cached results are filtered and ranked
+     * locally and no browser is started.
+     * <p>
+     * Interrupting the calling thread stops the crawl after the current result; the results
+     * found so far are cached as an incomplete crawl and returned.
+     *
+     * @param onResult called on the search thread for each result that passes the filters.
+     * @return the sorted results, at most maxResults long.
+     */
+    public List<SearchResult> run(Consumer<SearchResult> onResult) {
+        final String searchQuery = buildSearchQuery();
+
+        final List<SearchResult> cached = searchCached(searchQuery, onResult, true);
+        if (cached != null) {
+            return cached;
+        }
+
         WebDriverManager.chromedriver().setup();
 
         ChromeOptions opts = new ChromeOptions()
@@ -69,11 +109,13 @@ public final class DateSearchEngineImpl {
         applyProxy(opts);
 
         final WebDriver driver = new ChromeDriver(opts);
-        final List<SearchResult> all = new ArrayList<>();
+        final int candidateLimit = candidateLimit();
+        final List<Candidate> all = new ArrayList<>();
+        final List<SearchResult> scraped = new ArrayList<>();
         final Set<String> seenUrls = new HashSet<>();
+        final NearDuplicateIndex duplicates = new NearDuplicateIndex();
 
         try {
-            String searchQuery = buildSearchQuery();
             String url = "https://cse.google.com/cse?cx=c7b340447e1e12653&q=" +
                     URLEncoder.encode(searchQuery, StandardCharsets.UTF_8);
 
@@ -83,6 +125,7 @@ public final class DateSearchEngineImpl {
             WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
 
             for (;;) {
+                if (Thread.currentThread().isInterrupted()) break;
                 try {
                     wait.until(ExpectedConditions
                             .presenceOfElementLocated(By.cssSelector(".gsc-webResult")));
@@ -94,6 +137,7 @@ public final class DateSearchEngineImpl {
                         By.cssSelector(".gsc-webResult.gsc-result"));
 
                 for (WebElement item : items) {
+                    if (Thread.currentThread().isInterrupted()) break;
                     try {
                         WebElement linkEl = item.findElement(By.cssSelector(".gs-title a"));
                         String link = linkEl.getAttribute("href");
@@ -114,12 +158,17 @@ public final class DateSearchEngineImpl {
                         seenUrls.add(link); // Add to seen URLs set
 
                         SearchResult result = new SearchResult(title, link, thumb);
+                        scraped.add(result);
+                        Candidate candidate = candidate(result);
 
-                        if (shouldIncludeResult(result)) {
-                            all.add(result);
+                        // Mirrors of an already kept profile are attached to it as variants
+                        if (shouldIncludeResult(candidate) && duplicates.offer(result)) {
+                            all.add(candidate);
+                            onResult.accept(result);
                         }
 
-                        if (all.size() >= maxResults) {
+                        if (all.size() >= candidateLimit) {
+                            searchCache.put(searchQuery, scraped, false);
                             return applySorting(all);
                         }
 
@@ -128,6 +177,7 @@ public final class DateSearchEngineImpl {
                     }
                 }
 
+                if (Thread.currentThread().isInterrupted()) break;
                 try {
                     List<WebElement> nextButtons = driver.findElements(By.cssSelector(".gsc-cursor-page[aria-label='Next']"));
                     if (!nextButtons.isEmpty() && nextButtons.get(0).isDisplayed()) {
@@ -161,16 +211,65 @@ public final class DateSearchEngineImpl {
                 }
             }
 
+            final boolean cancelled = Thread.currentThread().isInterrupted();
+            if (cancelled) LOGGER.log(Level.INFO, "Search cancelled: {0}", searchQuery);
+            searchCache.put(searchQuery, scraped, !cancelled);
             return applySorting(all);
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error during search: {0}", e.getMessage());
-            return all;
+            return applySorting(all);
         } finally {
+            // An interrupted thread would fail quit's WebDriver calls and leave Chrome running
+            final boolean interrupted = Thread.interrupted();
             driver.quit();
+            if (interrupted) Thread.currentThread().interrupt();
         }
     }
 
+    /**
+     * Filters and ranks the results of a recent crawl of this query with the current settings,
+     * without starting a browser. A crawl that stopped early is ranked as far as it got.
+     *
+     * @param onResult called on the calling thread for each result that passes the filters.
+     * @return the sorted results, or null if the query is not in the cache.
+     */
+    public List<SearchResult> rankCached(Consumer<SearchResult> onResult) {
+        return searchCached(buildSearchQuery(), onResult, false);
+    }
+
+    /**
+     * Serves the search from the cache when a recent crawl of the same query covers it,
+     * applying the current filters and sort locally.
+     * @param requireEnough whether an incomplete crawl holding fewer candidates than needed is a miss.
+     * @return the sorted results, or null if the query has to be crawled.
+     */
+    private List<SearchResult> searchCached(String searchQuery, Consumer<SearchResult> onResult,
+                                            boolean requireEnough) {
+        SearchResultCache.Entry entry = searchCache.get(searchQuery);
+        if (entry == null) return null;
+
+        final List<Candidate> candidates = new ArrayList<>();
+        final NearDuplicateIndex duplicates = new NearDuplicateIndex();
+        for (SearchResult cached : entry.results()) {
+            // Fresh copies, so variants collected for this search never leak into the cache
+            SearchResult result = new SearchResult(cached.title, cached.url, cached.thumbnail);
+            Candidate candidate = candidate(result);
+            if (shouldIncludeResult(candidate) && duplicates.offer(result)) {
+                candidates.add(candidate);
+            }
+        }
+
+        // A crawl that stopped early at a smaller cap may not hold enough results for this one
+        if (requireEnough && !entry.complete() && candidates.size() < candidateLimit()) return null;
+
+        LOGGER.log(Level.INFO, "Serving {0} cached results for: {1}", candidates.size(), searchQuery);
+        for (Candidate candidate : candidates) {
+            onResult.accept(candidate.result());
+        }
+        return applySorting(candidates);
+    }
+
     private String buildSearchQuery() {
         StringBuilder query = new StringBuilder(targetName);
 
@@ -242,49 +341,30 @@ public final class DateSearchEngineImpl {
         };
     }
 
-    private boolean shouldIncludeResult(SearchResult result) {
-        String titleLower = result.title.toLowerCase();
-        String urlLower = result.url.toLowerCase();
+    /**
+     * Scans a result once for the features every filter and score below is computed from.
+     */
+    Candidate candidate(SearchResult result) {
+        return new Candidate(result, matcher.scan(result));
+    }
+
+    boolean shouldIncludeResult(Candidate candidate) {
+        final SearchResult result = candidate.result();
+        final long f = candidate.features();
 
         // Apply photos only filter
         if (photosOnly && (result.thumbnail == null || result.thumbnail.isEmpty())) {
             return false;
         }
 
-        if (!"All".equals(platform)) {
-            String platformSite = getPlatformSite(platform);
-            if (!platformSite.isEmpty() && !urlLower.contains(platformSite)) {
-                return false;
-            }
+        if (!"All".equals(platform) && !getPlatformSite(platform).isEmpty() && !any(f, URL_PLATFORM)) {
+            return false;
         }
 
         if (!"Any".equals(ageRange)) {
-            boolean ageMatch = false;
-
-            if (ageRange.equals("55+")) {
-                // Check for 55+ indicators
-                ageMatch = titleLower.matches(".*\\b(5[5-9]|[6-9]\\d)\\b.*") ||
-                          titleLower.contains("mature") ||
-                          titleLower.contains("senior") ||
-                          titleLower.contains("older");
-            } else {
-                String[] ageParts = ageRange.split("-");
-                if (ageParts.length == 2) {
-                    int minAge = Integer.parseInt(ageParts[0]);
-                    int maxAge = Integer.parseInt(ageParts[1]);
-
-                    for (int age = minAge; age <= maxAge; age++) {
-                        if (titleLower.contains(String.valueOf(age)) || urlLower.contains(String.valueOf(age))) {
-                            ageMatch = true;
-                            break;
-                        }
-                    }
-
-                    if (titleLower.contains(ageRange) || urlLower.contains(ageRange)) {
-                        ageMatch = true;
-                    }
-                }
-            }
+            boolean ageMatch = ageRange.equals("55+")
+                    ? any(f, SENIOR_AGE | SENIOR_WORD)
+                    : any(f, AGE);
 
             if (!ageMatch) {
                 return false;
@@ -295,20 +375,11 @@ public final class DateSearchEngineImpl {
             boolean locationMatch = false;
 
             if (location.startsWith("Within")) {
-                locationMatch = titleLower.contains("nearby") ||
-                               titleLower.contains("local") ||
-                               titleLower.contains("miles") ||
-                               titleLower.contains("close") ||
-                               urlLower.contains("local");
+                locationMatch = any(f, NEARBY | LOCAL | MILES | URL_LOCAL);
             } else if (location.equals("Same city")) {
-                locationMatch = titleLower.contains("city") ||
-                               titleLower.contains("local") ||
-                               titleLower.contains("downtown") ||
-                               titleLower.contains("metro");
+                locationMatch = any(f, CITY | LOCAL | METRO);
             } else if (location.equals("Same state")) {
-                locationMatch = titleLower.contains("state") ||
-                               titleLower.contains("region") ||
-                               titleLower.contains("area");
+                locationMatch = any(f, STATE | AREA);
             }
 
             // If we're filtering by location and don't find indicators, exclude
@@ -318,153 +389,161 @@ public final class DateSearchEngineImpl {
         }
 
         // Apply verification filter with enhanced patterns
-        if (verifiedOnly) {
-            boolean verificationMatch = titleLower.contains("verified") ||
-                                       titleLower.contains("authentic") ||
-                                       titleLower.contains("confirmed") ||
-                                       titleLower.contains("validated") ||
-                                       titleLower.contains("real") ||
-                                       titleLower.contains("genuine") ||
-                                       urlLower.contains("verified") ||
-                                       urlLower.contains("authentic") ||
-                                       urlLower.contains("confirmed");
-
-            if (!verificationMatch) {
-                return false;
-            }
-        }
-
-        // Additional quality filters - exclude obviously irrelevant results
-        if (titleLower.contains("spam") || titleLower.contains("fake") ||
-            titleLower.contains("scam") || titleLower.contains("bot")) {
+        if (verifiedOnly && !any(f, VERIFIED | CONFIRMED | URL_VERIFIED | URL_CONFIRMED)) {
             return false;
         }
 
-        return true;
+        // Additional quality filters - exclude obviously irrelevant results
+        return !any(f, SPAM);
     }
 
-    private List<SearchResult> applySorting(List<SearchResult> results) {
+    /**
+     * How many accepted results to collect before ranking. Relevance order is final as results
+     * arrive, so it stops at maxResults; a score-based sort keeps crawling for a larger pool so
+     * the top maxResults are chosen by score rather than by which results came first.
+     */
+    private int candidateLimit() {
         return switch (sortBy) {
-            case "Most Recent" -> results.stream()
-                    .sorted((a, b) -> {
-                        int scoreA = getRecencyScore(a);
-                        int scoreB = getRecencyScore(b);
-                        return Integer.compare(scoreB, scoreA); // Higher score = more recent
-                    })
-                    .collect(Collectors.toList());
+            case "Most Recent", "Distance", "Activity", "Profile Quality" ->
+                    (int) Math.min((long) maxResults * CANDIDATE_POOL_FACTOR, Integer.MAX_VALUE);
+            default -> maxResults;
+        };
+    }
 
-            case "Distance" -> results.stream()
-                    .sorted((a, b) -> {
-                        int distanceScoreA = getDistanceScore(a);
-                        int distanceScoreB = getDistanceScore(b);
-                        return Integer.compare(distanceScoreB, distanceScoreA); // Higher score = closer
-                    })
-                    .collect(Collectors.toList());
+    private List<SearchResult> applySorting(List<Candidate> candidates) {
+        final ToIntFunction<Candidate> scorer = switch (sortBy) {
+            case "Most Recent" -> this::getRecencyScore;            // Higher score = more recent
+            case "Distance" -> this::getDistanceScore;              // Higher score = closer
+            case "Activity" -> this::getActivityScore;              // Higher score = more active
+            case "Profile Quality" -> this::getProfileQualityScore; // Higher score = better quality
+            default -> null;                                        // Relevance (original order from search engine)
+        };
 
-            case "Activity" -> results.stream()
-                    .sorted((a, b) -> {
-                        int activityScoreA = getActivityScore(a);
-                        int activityScoreB = getActivityScore(b);
-                        return Integer.compare(activityScoreB, activityScoreA); // Higher score = more active
-                    })
-                    .collect(Collectors.toList());
+        final int limit = Math.min(maxResults, candidates.size());
+        if (limit <= 0) return new ArrayList<>();
 
-            case "Profile Quality" -> results.stream()
-                    .sorted((a, b) -> {
-                        int qualityScoreA = getProfileQualityScore(a);
-                        int qualityScoreB = getProfileQualityScore(b);
-                        return Integer.compare(qualityScoreB, qualityScoreA); // Higher score = better quality
-                    })
+        if (scorer == null) {
+            return candidates.stream()
+                    .limit(limit)
+                    .map(Candidate::result)
                     .collect(Collectors.toList());
+        }
 
-            default -> results; // Relevance (original order from search engine)
-        };
+        // Score each candidate exactly once; its position keeps ties in relevance order
+        final List<Ranked> ranked = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            ranked.add(new Ranked(candidate.result(), scorer.applyAsInt(candidate), i));
+        }
+
+        final List<Ranked> top = limit < ranked.size() ? selectTop(ranked, limit) : ranked;
+        top.sort(RANK_ORDER);
+
+        return top.stream()
+                .map(Ranked::result)
+                .collect(Collectors.toList());
     }
 
-    private int getRecencyScore(SearchResult result) {
-        String titleLower = result.title.toLowerCase();
-        String urlLower = result.url.toLowerCase();
+    /**
+     * Keeps the best k entries in a bounded heap, so only O(n log k) comparisons are needed
+     * when far more candidates were scraped than will be shown.
+     */
+    private static List<Ranked> selectTop(List<Ranked> ranked, int k) {
+        // Reversed order makes the head the weakest of the current top k
+        final PriorityQueue<Ranked> heap = new PriorityQueue<>(k, RANK_ORDER.reversed());
+        for (Ranked entry : ranked) {
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (RANK_ORDER.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        return new ArrayList<>(heap);
+    }
+
+    int getRecencyScore(Candidate candidate) {
+        final long f = candidate.features();
         int score = 0;
 
         // Look for recent time indicators
-        if (titleLower.contains("today") || titleLower.contains("now")) score += 10;
-        if (titleLower.contains("recent") || titleLower.contains("new")) score += 8;
-        if (titleLower.contains("online") || titleLower.contains("active")) score += 6;
-        if (titleLower.contains("2024") || titleLower.contains("2025")) score += 5;
-        if (titleLower.contains("updated") || titleLower.contains("fresh")) score += 4;
+        if (any(f, NOW)) score += 10;
+        if (any(f, RECENT)) score += 8;
+        if (any(f, ONLINE)) score += 6;
+        if (any(f, YEAR)) score += 5;
+        if (any(f, UPDATED)) score += 4;
 
         // URL patterns that suggest recent content
-        if (urlLower.contains("2024") || urlLower.contains("2025")) score += 3;
-        if (urlLower.contains("recent") || urlLower.contains("new")) score += 2;
+        if (any(f, URL_YEAR)) score += 3;
+        if (any(f, URL_RECENT)) score += 2;
 
         return score;
     }
 
-    private int getDistanceScore(SearchResult result) {
-        String titleLower = result.title.toLowerCase();
-        String urlLower = result.url.toLowerCase();
+    int getDistanceScore(Candidate candidate) {
+        final long f = candidate.features();
         int score = 0;
 
         // Proximity indicators (higher score = closer/better)
-        if (titleLower.contains("nearby") || titleLower.contains("close")) score += 10;
-        if (titleLower.contains("local")) score += 8;
-        if (titleLower.contains("miles")) score += 6;
-        if (titleLower.contains("city") || titleLower.contains("downtown")) score += 4;
-        if (titleLower.contains("area") || titleLower.contains("region")) score += 3;
+        if (any(f, NEARBY)) score += 10;
+        if (any(f, LOCAL)) score += 8;
+        if (any(f, MILES)) score += 6;
+        if (any(f, CITY)) score += 4;
+        if (any(f, AREA)) score += 3;
 
         // URL indicators
-        if (urlLower.contains("local")) score += 2;
+        if (any(f, URL_LOCAL)) score += 2;
 
         return score;
     }
 
-    private int getActivityScore(SearchResult result) {
-        String titleLower = result.title.toLowerCase();
-        String urlLower = result.url.toLowerCase();
+    int getActivityScore(Candidate candidate) {
+        final SearchResult result = candidate.result();
+        final long f = candidate.features();
         int score = 0;
 
         // Image presence (strong activity indicator)
         if (result.thumbnail != null && !result.thumbnail.isEmpty()) score += 15;
 
         // Activity keywords
-        if (titleLower.contains("online") || titleLower.contains("active")) score += 10;
-        if (titleLower.contains("recently") || titleLower.contains("today")) score += 8;
-        if (titleLower.contains("messages") || titleLower.contains("chat")) score += 6;
-        if (titleLower.contains("responses") || titleLower.contains("replies")) score += 5;
-        if (titleLower.contains("views") || titleLower.contains("visits")) score += 4;
-        if (titleLower.contains("likes") || titleLower.contains("matches")) score += 3;
+        if (any(f, ONLINE)) score += 10;
+        if (any(f, RECENTLY)) score += 8;
+        if (any(f, MESSAGES)) score += 6;
+        if (any(f, RESPONSES)) score += 5;
+        if (any(f, VIEWS)) score += 4;
+        if (any(f, LIKES)) score += 3;
 
         // Platform activity indicators
-        if (urlLower.contains("profile") && urlLower.contains("active")) score += 5;
+        if (any(f, URL_PROFILE) && any(f, URL_ACTIVE)) score += 5;
 
         return score;
     }
 
-    private int getProfileQualityScore(SearchResult result) {
-        String titleLower = result.title.toLowerCase();
-        String urlLower = result.url.toLowerCase();
+    int getProfileQualityScore(Candidate candidate) {
+        final SearchResult result = candidate.result();
+        final long f = candidate.features();
         int score = 0;
 
         score += Math.min(result.title.length() / 10, 15);
 
         if (result.thumbnail != null && !result.thumbnail.isEmpty()) score += 20;
 
-        if (titleLower.contains("verified") || titleLower.contains("authentic")) score += 25;
-        if (titleLower.contains("premium") || titleLower.contains("plus")) score += 15;
+        if (any(f, VERIFIED)) score += 25;
+        if (any(f, PREMIUM)) score += 15;
 
-        if (titleLower.contains("photos") || titleLower.contains("pictures")) score += 10;
-        if (titleLower.contains("education") || titleLower.contains("profession")) score += 8;
-        if (titleLower.contains("interests") || titleLower.contains("hobbies")) score += 6;
-        if (titleLower.contains("about") || titleLower.contains("description")) score += 5;
+        if (any(f, PHOTOS)) score += 10;
+        if (any(f, EDUCATION)) score += 8;
+        if (any(f, INTERESTS)) score += 6;
+        if (any(f, ABOUT)) score += 5;
 
-        if (titleLower.contains("reviews") || titleLower.contains("ratings")) score += 12;
-        if (titleLower.contains("connections") || titleLower.contains("matches")) score += 8;
+        if (any(f, REVIEWS)) score += 12;
+        if (any(f, CONNECTIONS)) score += 8;
 
-        if (titleLower.contains("incomplete") || titleLower.contains("basic")) score -= 10;
-        if (titleLower.contains("limited") || titleLower.contains("partial")) score -= 5;
+        if (any(f, INCOMPLETE)) score -= 10;
+        if (any(f, LIMITED)) score -= 5;
 
-        if (urlLower.contains("premium") || urlLower.contains("verified")) score += 5;
-        if (urlLower.contains("profile") && urlLower.contains("complete")) score += 3;
+        if (any(f, URL_PREMIUM)) score += 5;
+        if (any(f, URL_PROFILE) && any(f, URL_COMPLETE)) score += 3;
 
         return Math.max(score, 0); // Ensure non-negative score
     }
@@ -486,4 +565,14 @@ public final class DateSearchEngineImpl {
             opts.setProxy(selProxy);
         }
     }
+
+    /**
+     * A scraped result paired with the feature bitmask its filters and scores are computed from.
+     */
+    record Candidate(SearchResult result, long features) {}
+
+    /**
+     * A result with its precomputed sort score and its position in relevance order.
+     */
+    private record Ranked(SearchResult result, int score, int position) {}
 }
@@ -9,16 +9,15 @@ import org.fergs.ui.notifications.ToastNotification;
 import org.fergs.ui.scroll.CyberScrollPane;
 import org.fergs.utils.JHelper;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ItemEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.awt.image.BufferedImage;
 import java.net.URI;
-import java.net.URL;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
@@ -32,7 +31,8 @@ import java.util.logging.Level;
 public final class DateSearchEngineUI extends AbstractModule {
     private final static LoggingManager LOGGER = LoggingManager.getInstance();
     private final JPanel ui;
-    private final JPanel resultsPanel;
+    private final ResultListModel resultModel = new ResultListModel();
+    private final JList<SearchResult> resultList;
 
     // Filter components
     private JComboBox<String> ageRangeCombo;
@@ -43,6 +43,12 @@ public final class DateSearchEngineUI extends AbstractModule {
     private JCheckBox profilePicsOnlyCheck;
     private JCheckBox verifiedOnlyCheck;
     private List<SearchResult> results = Collections.emptyList();
+    private SwingWorker<List<SearchResult>, SearchResult> activeSearch;
+    private String lastSearchName;
+    private String lastSearchProxyType;
+    private String lastQueryFilters;
+    private ThumbnailLoader thumbnails = newThumbnailLoader(); // null while the module is disabled
+    private ResultCellRenderer resultRenderer = new ResultCellRenderer(thumbnails);
 
     public DateSearchEngineUI() {
         super("dating-engine", "Find dating profiles for information gathering");
@@ -81,10 +87,29 @@ public final class DateSearchEngineUI extends AbstractModule {
 
         ui.add(tabbedPane, BorderLayout.NORTH);
 
-        resultsPanel = new JPanel();
-        resultsPanel.setLayout(new BoxLayout(resultsPanel, BoxLayout.Y_AXIS));
-        resultsPanel.setBackground(new Color(0x1E1E1E));
-        JScrollPane scrollPane = new CyberScrollPane(resultsPanel);
+        // Virtualized list: one renderer stamps every visible row, and fixed cell sizes
+        // mean neither layout nor scrolling has to measure the other rows
+        resultList = new JList<>(resultModel);
+        resultList.setBackground(new Color(0x1E1E1E));
+        resultList.setCellRenderer(resultRenderer);
+        resultList.setFixedCellHeight(ResultCellRenderer.CELL_HEIGHT);
+        resultList.setFixedCellWidth(100);
+        resultList.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        resultList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e)) return;
+                SearchResult r = resultAt(e);
+                if (r != null) browse(r.url);
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) { showVariantsMenu(e); }
+
+            @Override
+            public void mouseReleased(MouseEvent e) { showVariantsMenu(e); }
+        });
+        JScrollPane scrollPane = new CyberScrollPane(resultList);
         ui.add(scrollPane, BorderLayout.CENTER);
     }
 
@@ -171,14 +196,14 @@ public final class DateSearchEngineUI extends AbstractModule {
 
         // Add search button action listener
         runButton.addActionListener(e -> {
-            resultsPanel.removeAll();
+            clearResults();
             String name = nameField.getText().trim();
             String proxyType = none.isSelected() ? "NONE"
                     : http.isSelected() ? "HTTP"
                     : socks4.isSelected() ? "SOCKS4"
                     : "SOCKS5";
 
-            performSearch(name, proxyType);
+            performSearch(name, proxyType, false);
         });
 
         return searchPanel;
@@ -360,7 +385,53 @@ public final class DateSearchEngineUI extends AbstractModule {
         verifiedOnlyCheck.setSelected(false);
     }
 
+    private SearchResult resultAt(MouseEvent e) {
+        int index = resultList.locationToIndex(e.getPoint());
+        if (index < 0 || !resultList.getCellBounds(index, index).contains(e.getPoint())) return null;
+        return resultModel.getElementAt(index);
+    }
+
+    /**
+     * Lists a result and the near-duplicates collapsed into it, each opening in the browser.
+     */
+    private void showVariantsMenu(MouseEvent e) {
+        if (!e.isPopupTrigger()) return;
+        SearchResult r = resultAt(e);
+        if (r == null || r.variants.isEmpty()) return;
+
+        List<SearchResult> listings = new ArrayList<>(r.variants.size() + 1);
+        listings.add(r);
+        listings.addAll(r.variants);
+
+        JPopupMenu menu = new JPopupMenu();
+        for (SearchResult listing : listings) {
+            JMenuItem item = new JMenuItem(listing.url);
+            item.addActionListener(ev -> browse(listing.url));
+            menu.add(item);
+        }
+        menu.show(resultList, e.getX(), e.getY());
+    }
+
+    private static void browse(String url) {
+        try {
+            Desktop.getDesktop().browse(new URI(url));
+        } catch (Exception ignored) {}
+    }
+
+    private void clearResults() {
+        resultModel.clear();
+        resultRenderer.reset();
+    }
+
     private void applyFiltersToResults() {
+        // Age, location, platform, photos and verified are part of the query and need a new crawl;
+        // a change to only the sort or the result count re-ranks the last crawl from the cache
+        if (lastSearchName != null && !lastSearchName.isEmpty()) {
+            final boolean rerankOnly = queryFilters().equals(lastQueryFilters);
+            clearResults();
+            performSearch(lastSearchName, lastSearchProxyType, rerankOnly);
+        }
+
         ToastNotification.builder(SpecterForm.frame)
                 .setTitle("Applying Filters")
                 .setBackground(new Color(0x2A2A2A))
@@ -370,18 +441,39 @@ public final class DateSearchEngineUI extends AbstractModule {
 
     }
 
-    private void performSearch(String name, String proxyType) {
-        new SwingWorker<List<SearchResult>, SearchResult>() {
+    /**
+     * The filters that go into the search query; searches with the same ones share a cache entry.
+     */
+    private String queryFilters() {
+        return String.join("|", (String) ageRangeCombo.getSelectedItem(), (String) locationCombo.getSelectedItem(),
+                (String) platformCombo.getSelectedItem(), String.valueOf(profilePicsOnlyCheck.isSelected()),
+                String.valueOf(verifiedOnlyCheck.isSelected()));
+    }
+
+    /**
+     * Starts a search, stopping the one still running.
+     * @param rerankOnly rank the cached results of the last crawl instead of crawling again,
+     *                   falling back to a crawl if they have expired.
+     */
+    private void performSearch(String name, String proxyType, boolean rerankOnly) {
+        if (activeSearch != null) activeSearch.cancel(true); // interrupts its crawl, which quits Chrome
+
+        lastSearchName = name;
+        lastSearchProxyType = proxyType;
+        lastQueryFilters = queryFilters();
+
+        final String ageRange = (String) ageRangeCombo.getSelectedItem();
+        final String location = (String) locationCombo.getSelectedItem();
+        final String platform = (String) platformCombo.getSelectedItem();
+        final String sortBy = (String) sortByCombo.getSelectedItem();
+        final boolean verifiedOnly = verifiedOnlyCheck.isSelected();
+        final int maxResults = (Integer) maxResultsSpinner.getValue();
+        final boolean photosOnly = profilePicsOnlyCheck.isSelected();
+        final List<SearchResult> shown = new ArrayList<>();
+
+        activeSearch = new SwingWorker<List<SearchResult>, SearchResult>() {
             @Override
             protected List<SearchResult> doInBackground() {
-                String ageRange = (String) ageRangeCombo.getSelectedItem();
-                String location = (String) locationCombo.getSelectedItem();
-                String platform = (String) platformCombo.getSelectedItem();
-                String sortBy = (String) sortByCombo.getSelectedItem();
-                int maxResults = (Integer) maxResultsSpinner.getValue();
-                boolean photosOnly = profilePicsOnlyCheck.isSelected();
-                boolean verifiedOnly = verifiedOnlyCheck.isSelected();
-
                 DateSearchEngineImpl impl = new DateSearchEngineImpl(
                         Specter.getInstance().getConfigurationManager().loadLinesFromClasspath("proxies.txt"),
                         proxyType,
@@ -395,30 +487,49 @@ public final class DateSearchEngineUI extends AbstractModule {
                         verifiedOnly
                 );
 
+                if (rerankOnly) {
+                    List<SearchResult> ranked = impl.rankCached(result -> publish(result));
+                    if (ranked != null) return ranked;
+                }
+
                 LOGGER.info("Starting search for name: " + name + " using proxy type: " + proxyType);
 
-                return impl.run();
+                return impl.run(result -> publish(result));
+            }
+
+            @Override
+            protected void process(List<SearchResult> chunks) {
+                // SwingWorker coalesces publish() calls, so each batch is roughly one frame of results
+                if (activeSearch != this || isDone()) return;
+
+                final int before = shown.size();
+                for (SearchResult r : chunks) {
+                    if (shown.size() >= maxResults) break;
+                    if (!isVisibleResult(r, photosOnly)) continue;
+
+                    shown.add(r);
+                }
+                resultModel.addAll(shown.subList(before, shown.size()));
+                // Variants may have been attached to rows that are already on screen
+                resultList.repaint();
             }
 
             @Override
             protected void done() {
-                try {
-                    results = get();
-                    int maxResults = (Integer) maxResultsSpinner.getValue();
+                if (activeSearch != this || isCancelled()) return;
 
-                    results = results.stream()
+                try {
+                    results = get().stream()
                             .limit(maxResults)
-                            .filter(r -> !profilePicsOnlyCheck.isSelected() ||
-                                    (r.thumbnail != null && !r.thumbnail.isEmpty()))
+                            .filter(r -> isVisibleResult(r, photosOnly))
                             .toList();
 
-                    for (SearchResult r : results) {
-                        JPanel entry = createResultEntry(r);
-                        resultsPanel.add(entry);
-                        resultsPanel.add(Box.createVerticalStrut(8));
+                    // Streamed rows arrive in relevance order; re-lay them out if the final ranking differs
+                    if (!results.equals(shown)) {
+                        resultModel.setAll(results);
+                    } else {
+                        resultList.repaint();
                     }
-                    resultsPanel.revalidate();
-                    resultsPanel.repaint();
 
                     ToastNotification.builder(SpecterForm.frame)
                             .setBackground(new Color(0x2A2A2A))
@@ -430,85 +541,31 @@ public final class DateSearchEngineUI extends AbstractModule {
                     LOGGER.log(Level.SEVERE, "Error during search: ", ex.getMessage());
                 }
             }
-        }.execute();
+        };
+        activeSearch.execute();
     }
 
-    private JPanel createResultEntry(SearchResult r) {
-        JPanel card = new JPanel(new BorderLayout(15, 0));
-        card.setMaximumSize(new Dimension(Integer.MAX_VALUE, 110));
-        card.setBackground(new Color(0x1A1A1A));
-        card.setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createLineBorder(new Color(0x00FF88), 1),
-                BorderFactory.createEmptyBorder(10, 14, 10, 14)
-        ));
-
-        JLabel pic = new JLabel();
-        pic.setPreferredSize(new Dimension(80, 80));
-        pic.setOpaque(true);
-        pic.setBackground(new Color(0x121212));
-        pic.setHorizontalAlignment(SwingConstants.CENTER);
-
-        if (r.thumbnail != null && !r.thumbnail.isEmpty()) {
-            try {
-                URL url = new URL(r.thumbnail);
-                BufferedImage img = ImageIO.read(url);
-                if (img != null) {
-                    Image scaled = img.getScaledInstance(80, 80, Image.SCALE_SMOOTH);
-                    pic.setIcon(new ImageIcon(scaled));
-                }
-            } catch (Exception ex) {
-                LOGGER.log(Level.WARNING, "Failed to load image: ", ex.getMessage());
-            }
-        } else {
-            pic.setText("👤");
-            pic.setFont(new Font("Segoe UI Emoji", Font.PLAIN, 32));
-        }
-
-        pic.setUI(new javax.swing.plaf.basic.BasicLabelUI() {
-            @Override
-            public void paint(Graphics g, JComponent c) {
-                Graphics2D g2 = (Graphics2D) g.create();
-                g2.setClip(new java.awt.geom.Ellipse2D.Float(0, 0, c.getWidth(), c.getHeight()));
-                super.paint(g2, c);
-                g2.dispose();
-            }
-        });
-
-        card.add(pic, BorderLayout.WEST);
-
-        JPanel info = new JPanel();
-        info.setLayout(new BoxLayout(info, BoxLayout.Y_AXIS));
-        info.setOpaque(false);
-
-        JLabel title = new JLabel(r.title);
-        title.setFont(new Font("JetBrains Mono", Font.BOLD, 16));
-        title.setForeground(new Color(0x00FF88));
-
-        JLabel link = new JLabel(r.url);
-        link.setFont(new Font("JetBrains Mono", Font.PLAIN, 12));
-        link.setForeground(new Color(0xBBBBBB));
-
-        info.add(title);
-        info.add(Box.createVerticalStrut(5));
-        info.add(link);
-
-        card.add(info, BorderLayout.CENTER);
-
-        card.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        card.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                try {
-                    Desktop.getDesktop().browse(new URI(r.url));
-                } catch (Exception ignored) {}
-            }
-        });
+    private boolean isVisibleResult(SearchResult r, boolean photosOnly) {
+        return !photosOnly || (r.thumbnail != null && !r.thumbnail.isEmpty());
+    }
 
-        return card;
+    private static ThumbnailLoader newThumbnailLoader() {
+        return new ThumbnailLoader(Paths.get("cache", "thumbnails"), 80, 4);
     }
 
-    @Override public void onEnable() { /* nothing */ }
-    @Override public void onDisable(){ /* nothing */ }
+    @Override public void onEnable() {
+        if (thumbnails == null) {
+            thumbnails = newThumbnailLoader();
+            resultRenderer = new ResultCellRenderer(thumbnails);
+            resultList.setCellRenderer(resultRenderer);
+        }
+    }
+    @Override public void onDisable(){
+        if (activeSearch != null) activeSearch.cancel(true);
+        // Releases the loader threads; a repaint in the meantime just shows placeholders
+        thumbnails.shutdown();
+        thumbnails = null;
+    }
     @Override public void onLoad(JFrame frame){
         ToastNotification.builder(frame)
                 .setBackground(new Color(0x2A2A2A))
@@ -517,4 +574,36 @@ public final class DateSearchEngineUI extends AbstractModule {
                 .show();
     }
     @Override public JPanel getUI(){ return ui; }
+
+    /**
+     * List model that adds and replaces results in bulk, firing one event per batch.
+     */
+    private static final class ResultListModel extends AbstractListModel<SearchResult> {
+        private final List<SearchResult> items = new ArrayList<>();
+
+        @Override
+        public int getSize() { return items.size(); }
+
+        @Override
+        public SearchResult getElementAt(int index) { return items.get(index); }
+
+        void addAll(List<SearchResult> batch) {
+            if (batch.isEmpty()) return;
+            int start = items.size();
+            items.addAll(batch);
+            fireIntervalAdded(this, start, items.size() - 1);
+        }
+
+        void setAll(List<SearchResult> replacement) {
+            clear();
+            addAll(replacement);
+        }
+
+        void clear() {
+            if (items.isEmpty()) return;
+            int end = items.size() - 1;
+            items.clear();
+            fireIntervalRemoved(this, 0, end);
+        }
+    }
 }
\ No newline at end of file
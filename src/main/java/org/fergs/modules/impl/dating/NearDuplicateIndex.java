@@ -0,0 +1,135 @@
+package org.fergs.modules.impl.dating;
+
+import org.fergs.objects.SearchResult;
+import org.fergs.utils.SimHash;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * NearDuplicateIndex collapses search results that point at the same profile under a
+ * slightly different URL, such as another locale, tracking parameters or a mirror host.
+ * <p>
+ * Each result gets a SimHash fingerprint of its normalised title, host and URL path.
+ * Fingerprints are split into {@value #BANDS} bands of {@value #BAND_BITS} bits. Two fingerprints
+ * within {@value #MAX_DISTANCE} bits of each other must agree on at least one whole band, so
+ * only results that share a band bucket are compared, which keeps collapsing O(n).
+ * <p>
+ * A collapsed result is added to the kept result's {@link SearchResult#variants} list.
+ *
+ * @Author Fergs32
+ */
+public final class NearDuplicateIndex {
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = 16;
+    private static final int MAX_DISTANCE = BANDS - 1;
+
+    private final List<Map<Integer, List<Entry>>> bands = new ArrayList<>(BANDS);
+
+    public NearDuplicateIndex() {
+        for (int b = 0; b < BANDS; b++) {
+            bands.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Offers a result to the index.
+     * @param result the result to check.
+     * @return true if the result is new and was indexed, false if it was collapsed into
+     *         an earlier near-duplicate.
+     */
+    public boolean offer(SearchResult result) {
+        final long fingerprint = SimHash.fingerprint(features(result));
+
+        for (int b = 0; b < BANDS; b++) {
+            List<Entry> bucket = bands.get(b).get(band(fingerprint, b));
+            if (bucket == null) continue;
+
+            for (Entry entry : bucket) {
+                if (SimHash.distance(fingerprint, entry.fingerprint()) <= MAX_DISTANCE) {
+                    entry.result().variants.add(result);
+                    return false;
+                }
+            }
+        }
+
+        final Entry entry = new Entry(fingerprint, result);
+        for (int b = 0; b < BANDS; b++) {
+            bands.get(b).computeIfAbsent(band(fingerprint, b), k -> new ArrayList<>()).add(entry);
+        }
+        return true;
+    }
+
+    private static int band(long fingerprint, int band) {
+        return (int) ((fingerprint >>> (band * BAND_BITS)) & ((1L << BAND_BITS) - 1));
+    }
+
+    /**
+     * Title words, plus the host and path segments of the URL with the scheme, query,
+     * fragment, "www." and locale markers removed. The host is weighted twice so two
+     * profiles with similar titles on different sites stay apart.
+     */
+    private static List<String> features(SearchResult result) {
+        final List<String> features = new ArrayList<>();
+        tokenize(result.title, "t:", features);
+
+        String host = "";
+        String path = result.url;
+        try {
+            URI uri = URI.create(result.url);
+            if (uri.getHost() != null) host = uri.getHost();
+            if (uri.getPath() != null) path = uri.getPath();
+        } catch (IllegalArgumentException ignored) {}
+
+        host = normaliseHost(host.toLowerCase(Locale.ROOT));
+        if (!host.isEmpty()) {
+            features.add("h:" + host);
+            features.add("h:" + host);
+        }
+
+        for (String segment : path.toLowerCase(Locale.ROOT).split("/")) {
+            if (segment.isEmpty() || isLocale(segment)) continue;
+            tokenize(segment, "p:", features);
+        }
+        return features;
+    }
+
+    private static String normaliseHost(String host) {
+        if (host.startsWith("www.")) host = host.substring(4);
+
+        // de.tinder.com and en-gb.tinder.com mirror tinder.com
+        int dot = host.indexOf('.');
+        if (dot > 0 && host.indexOf('.', dot + 1) > 0 && isLocale(host.substring(0, dot))) {
+            host = host.substring(dot + 1);
+        }
+        return host;
+    }
+
+    /**
+     * Matches locale codes such as "de", "en-gb" or "pt_br".
+     */
+    private static boolean isLocale(String s) {
+        if (s.length() != 2 && s.length() != 5) return false;
+        if (!Character.isLetter(s.charAt(0)) || !Character.isLetter(s.charAt(1))) return false;
+        if (s.length() == 2) return true;
+        char sep = s.charAt(2);
+        return (sep == '-' || sep == '_') && Character.isLetter(s.charAt(3)) && Character.isLetter(s.charAt(4));
+    }
+
+    private static void tokenize(String text, String prefix, List<String> out) {
+        if (text == null) return;
+
+        final StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                out.add(prefix + token);
+                token.setLength(0);
+            }
+        }
+    }
+
+    private record Entry(long fingerprint, SearchResult result) {}
+}
@@ -0,0 +1,156 @@
+package org.fergs.modules.impl.dating;
+
+import org.fergs.objects.SearchResult;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ResultCellRenderer paints a dating search result as a card inside a virtualized JList.
+ * A single set of components is reused as a rubber stamp for every visible row, so the
+ * component count stays constant no matter how many results the list holds.
+ * <p>
+ * Thumbnails come from the {@link ThumbnailLoader}. Rows without a loaded thumbnail show the
+ * placeholder avatar and the list is repainted once the image arrives. A thumbnail that has
+ * since been evicted from the loader's memory cache is simply requested again.
+ * <p>
+ * Results that near-duplicates were collapsed into carry a "+N similar" badge, and the card's
+ * tooltip lists the collapsed URLs.
+ *
+ * @Author Fergs32
+ */
+public final class ResultCellRenderer implements ListCellRenderer<SearchResult> {
+    /** Card height plus the gap below it; every row has exactly this height. */
+    public static final int CELL_HEIGHT = 110;
+    private static final int MAX_TOOLTIP_VARIANTS = 10;
+
+    private final ThumbnailLoader thumbnails;
+    private final Set<String> loading = new HashSet<>(); // EDT only
+
+    private final JPanel cell;
+    private final JLabel pic;
+    private final JLabel title;
+    private final JLabel link;
+    private final JLabel similar;
+    private final Font placeholderFont = new Font("Segoe UI Emoji", Font.PLAIN, 32);
+
+    public ResultCellRenderer(ThumbnailLoader thumbnails) {
+        this.thumbnails = thumbnails;
+
+        JPanel card = new JPanel(new BorderLayout(15, 0));
+        card.setBackground(new Color(0x1A1A1A));
+        card.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(0x00FF88), 1),
+                BorderFactory.createEmptyBorder(10, 14, 10, 14)
+        ));
+
+        pic = new JLabel();
+        pic.setPreferredSize(new Dimension(80, 80));
+        pic.setOpaque(true);
+        pic.setBackground(new Color(0x121212));
+        pic.setHorizontalAlignment(SwingConstants.CENTER);
+        pic.setUI(new javax.swing.plaf.basic.BasicLabelUI() {
+            @Override
+            public void paint(Graphics g, JComponent c) {
+                Graphics2D g2 = (Graphics2D) g.create();
+                g2.setClip(new java.awt.geom.Ellipse2D.Float(0, 0, c.getWidth(), c.getHeight()));
+                super.paint(g2, c);
+                g2.dispose();
+            }
+        });
+
+        card.add(pic, BorderLayout.WEST);
+
+        JPanel info = new JPanel();
+        info.setLayout(new BoxLayout(info, BoxLayout.Y_AXIS));
+        info.setOpaque(false);
+
+        title = new JLabel();
+        title.setFont(new Font("JetBrains Mono", Font.BOLD, 16));
+        title.setForeground(new Color(0x00FF88));
+
+        link = new JLabel();
+        link.setFont(new Font("JetBrains Mono", Font.PLAIN, 12));
+        link.setForeground(new Color(0xBBBBBB));
+
+        similar = new JLabel();
+        similar.setFont(new Font("JetBrains Mono", Font.BOLD, 11));
+        similar.setForeground(new Color(0x66FFCC));
+
+        info.add(title);
+        info.add(Box.createVerticalStrut(5));
+        info.add(link);
+        info.add(Box.createVerticalStrut(4));
+        info.add(similar);
+
+        card.add(info, BorderLayout.CENTER);
+
+        cell = new JPanel(new BorderLayout());
+        cell.setBackground(new Color(0x1E1E1E));
+        cell.setBorder(BorderFactory.createEmptyBorder(0, 0, 8, 0));
+        cell.add(card, BorderLayout.CENTER);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends SearchResult> list, SearchResult r,
+                                                  int index, boolean isSelected, boolean cellHasFocus) {
+        title.setText(r.title);
+        link.setText(r.url);
+
+        final int variantCount = r.variants.size();
+        similar.setVisible(variantCount > 0);
+        similar.setText(variantCount > 0 ? "+" + variantCount + " similar \u2014 right-click to open" : null);
+        cell.setToolTipText(variantCount > 0 ? variantsTooltip(r.variants) : null);
+
+        boolean hasThumbnail = r.thumbnail != null && !r.thumbnail.isEmpty();
+        ImageIcon icon = hasThumbnail ? thumbnails.getIfCached(r.thumbnail) : null;
+
+        if (icon != null) {
+            pic.setText(null);
+            pic.setIcon(icon);
+        } else {
+            pic.setIcon(null);
+            pic.setText("👤");
+            pic.setFont(placeholderFont);
+
+            // One request per thumbnail at a time; the row repaints with it when it lands in the cache
+            if (hasThumbnail && loading.add(r.thumbnail)) {
+                final String url = r.thumbnail;
+                thumbnails.load(url, loaded -> {
+                    loading.remove(url);
+                    if (loaded != null) list.repaint();
+                });
+            }
+        }
+
+        return cell;
+    }
+
+    private static String variantsTooltip(List<SearchResult> variants) {
+        StringBuilder html = new StringBuilder("<html><b>Similar listings</b>");
+        int shown = 0;
+        for (SearchResult variant : variants) {
+            if (shown++ == MAX_TOOLTIP_VARIANTS) {
+                html.append("<br>\u2026 and ").append(variants.size() - MAX_TOOLTIP_VARIANTS).append(" more");
+                break;
+            }
+            html.append("<br>").append(escape(variant.url));
+        }
+        return html.append("</html>").toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    /**
+     * Forgets the thumbnails requested for the previous results. Call on the EDT when the
+     * list model is cleared.
+     */
+    public void reset() {
+        loading.clear();
+    }
+}
@@ -0,0 +1,180 @@
+package org.fergs.modules.impl.dating;
+
+import org.fergs.objects.SearchResult;
+import org.fergs.utils.KeywordAutomaton;
+
+/**
+ * ResultFeatureMatcher compiles every keyword rule used by the dating search filters and
+ * scores into a single {@link KeywordAutomaton}. Scanning a result walks its title and URL
+ * once each and yields a feature bitmask that all filters and scores are computed from.
+ * <p>
+ * Title and URL features live in separate bits. A keyword carries both its title and URL bits
+ * and the scan keeps only the title bits from the title and only the URL bits from the URL,
+ * so one automaton serves both fields.
+ * <p>
+ * The age and platform rules depend on the selected filters, so a matcher is built per search.
+ *
+ * @Author Fergs32
+ */
+public final class ResultFeatureMatcher {
+    // Title features
+    static final long SENIOR_WORD = 1L;          // mature | senior | older
+    static final long SENIOR_AGE  = 1L << 1;     // a standalone 55..99
+    static final long NEARBY      = 1L << 2;     // nearby | close
+    static final long LOCAL       = 1L << 3;
+    static final long MILES       = 1L << 4;
+    static final long CITY        = 1L << 5;     // city | downtown
+    static final long METRO       = 1L << 6;
+    static final long STATE       = 1L << 7;
+    static final long AREA        = 1L << 8;     // area | region
+    static final long VERIFIED    = 1L << 9;     // verified | authentic
+    static final long CONFIRMED   = 1L << 10;    // confirmed | validated | real | genuine
+    static final long SPAM        = 1L << 11;    // spam | fake | scam | bot
+    static final long NOW         = 1L << 12;    // today | now
+    static final long RECENT      = 1L << 13;    // recent | new
+    static final long RECENTLY    = 1L << 14;    // recently | today
+    static final long ONLINE      = 1L << 15;    // online | active
+    static final long YEAR        = 1L << 16;    // 2024 | 2025
+    static final long UPDATED     = 1L << 17;    // updated | fresh
+    static final long MESSAGES    = 1L << 18;    // messages | chat
+    static final long RESPONSES   = 1L << 19;    // responses | replies
+    static final long VIEWS       = 1L << 20;    // views | visits
+    static final long LIKES       = 1L << 21;    // likes | matches
+    static final long PREMIUM     = 1L << 22;    // premium | plus
+    static final long PHOTOS      = 1L << 23;    // photos | pictures
+    static final long EDUCATION   = 1L << 24;    // education | profession
+    static final long INTERESTS   = 1L << 25;    // interests | hobbies
+    static final long ABOUT       = 1L << 26;    // about | description
+    static final long REVIEWS     = 1L << 27;    // reviews | ratings
+    static final long CONNECTIONS = 1L << 28;    // connections | matches
+    static final long INCOMPLETE  = 1L << 29;    // incomplete | basic
+    static final long LIMITED     = 1L << 30;    // limited | partial
+
+    // URL features
+    static final long URL_LOCAL     = 1L << 32;
+    static final long URL_VERIFIED  = 1L << 33;  // verified | authentic
+    static final long URL_CONFIRMED = 1L << 34;
+    static final long URL_YEAR      = 1L << 35;  // 2024 | 2025
+    static final long URL_RECENT    = 1L << 36;  // recent | new
+    static final long URL_PROFILE   = 1L << 37;
+    static final long URL_ACTIVE    = 1L << 38;
+    static final long URL_PREMIUM   = 1L << 39;  // premium | verified
+    static final long URL_COMPLETE  = 1L << 40;
+    static final long URL_PLATFORM  = 1L << 41;  // the selected platform's site
+
+    // Shared by title and URL
+    static final long AGE = 1L << 48;            // any age in the selected range, or the range itself
+
+    private static final long TITLE_MASK = ((1L << 32) - 1) | AGE;
+    private static final long URL_MASK = (((1L << 48) - 1) & ~((1L << 32) - 1)) | AGE;
+
+    private final KeywordAutomaton automaton;
+
+    /**
+     * Builds a matcher for the given filter selection.
+     * @param ageRange the selected age range, e.g. "18-25", "55+" or "Any".
+     * @param platformSite the selected platform's site, or an empty string for all platforms.
+     */
+    public ResultFeatureMatcher(String ageRange, String platformSite) {
+        KeywordAutomaton.Builder builder = KeywordAutomaton.builder()
+                .add("mature", SENIOR_WORD)
+                .add("senior", SENIOR_WORD)
+                .add("older", SENIOR_WORD)
+                .add("nearby", NEARBY)
+                .add("close", NEARBY)
+                .add("local", LOCAL | URL_LOCAL)
+                .add("miles", MILES)
+                .add("city", CITY)
+                .add("downtown", CITY)
+                .add("metro", METRO)
+                .add("state", STATE)
+                .add("area", AREA)
+                .add("region", AREA)
+                .add("verified", VERIFIED | URL_VERIFIED | URL_PREMIUM)
+                .add("authentic", VERIFIED | URL_VERIFIED)
+                .add("confirmed", CONFIRMED | URL_CONFIRMED)
+                .add("validated", CONFIRMED)
+                .add("real", CONFIRMED)
+                .add("genuine", CONFIRMED)
+                .add("spam", SPAM)
+                .add("fake", SPAM)
+                .add("scam", SPAM)
+                .add("bot", SPAM)
+                .add("today", NOW | RECENTLY)
+                .add("now", NOW)
+                .add("recent", RECENT | URL_RECENT)
+                .add("new", RECENT | URL_RECENT)
+                .add("recently", RECENTLY)
+                .add("online", ONLINE)
+                .add("active", ONLINE | URL_ACTIVE)
+                .add("2024", YEAR | URL_YEAR)
+                .add("2025", YEAR | URL_YEAR)
+                .add("updated", UPDATED)
+                .add("fresh", UPDATED)
+                .add("messages", MESSAGES)
+                .add("chat", MESSAGES)
+                .add("responses", RESPONSES)
+                .add("replies", RESPONSES)
+                .add("views", VIEWS)
+                .add("visits", VIEWS)
+                .add("likes", LIKES)
+                .add("matches", LIKES | CONNECTIONS)
+                .add("premium", PREMIUM | URL_PREMIUM)
+                .add("plus", PREMIUM)
+                .add("photos", PHOTOS)
+                .add("pictures", PHOTOS)
+                .add("education", EDUCATION)
+                .add("profession", EDUCATION)
+                .add("interests", INTERESTS)
+                .add("hobbies", INTERESTS)
+                .add("about", ABOUT)
+                .add("description", ABOUT)
+                .add("reviews", REVIEWS)
+                .add("ratings", REVIEWS)
+                .add("connections", CONNECTIONS)
+                .add("incomplete", INCOMPLETE)
+                .add("basic", INCOMPLETE)
+                .add("limited", LIMITED)
+                .add("partial", LIMITED)
+                .add("profile", URL_PROFILE)
+                .add("complete", URL_COMPLETE);
+
+        if ("55+".equals(ageRange)) {
+            for (int age = 55; age <= 99; age++) {
+                builder.addWord(String.valueOf(age), SENIOR_AGE);
+            }
+        } else if (!"Any".equals(ageRange)) {
+            String[] ageParts = ageRange.split("-");
+            if (ageParts.length == 2) {
+                int minAge = Integer.parseInt(ageParts[0]);
+                int maxAge = Integer.parseInt(ageParts[1]);
+                for (int age = minAge; age <= maxAge; age++) {
+                    builder.add(String.valueOf(age), AGE);
+                }
+                builder.add(ageRange, AGE);
+            }
+        }
+
+        if (!platformSite.isEmpty()) {
+            builder.add(platformSite, URL_PLATFORM);
+        }
+
+        this.automaton = builder.build();
+    }
+
+    /**
+     * Scans the result's title and URL once each.
+     * @param result the search result to scan.
+     * @return the feature bitmask for the result.
+     */
+    public long scan(SearchResult result) {
+        return (automaton.scan(result.title) & TITLE_MASK) | (automaton.scan(result.url) & URL_MASK);
+    }
+
+    /**
+     * Returns true if any of the given feature bits are set.
+     */
+    static boolean any(long features, long bits) {
+        return (features & bits) != 0;
+    }
+}
@@ -0,0 +1,191 @@
+package org.fergs.modules.impl.dating;
+
+import org.fergs.managers.LoggingManager;
+import org.fergs.objects.SearchResult;
+import org.fergs.utils.CacheFiles;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.logging.Level;
+
+import static org.fergs.utils.CacheFiles.readString;
+import static org.fergs.utils.CacheFiles.writeString;
+
+/**
+ * SearchResultCache keeps the raw, unfiltered results of recent dating searches so that
+ * repeating a search does not start another Selenium crawl.
+ * <p>
+ * Entries are keyed by the search query sent to the engine, which already encodes every
+ * filter that changes what the engine returns. Filtering, sorting and the result cap are
+ * applied locally on top of the cached candidates, so changing only those re-ranks
+ * instead of re-crawling.
+ * <p>
+ * There are two tiers: a small in-memory LRU and a gzip-compressed file per query under
+ * cache/searches. Both expire entries after the TTL; expired files are swept from disk on the
+ * first write and then at most once per TTL, so queries that are never repeated do not pile up.
+ * <p>
+ * The lock covers the in-memory LRU only. Files are read, written and swept without holding it,
+ * so a search served from memory never waits on another caller's disk access.
+ *
+ * @Author Fergs32
+ */
+public final class SearchResultCache {
+    private static final LoggingManager LOGGER = LoggingManager.getInstance();
+    private static final int FORMAT_VERSION = 1;
+    private static final int MEMORY_ENTRIES = 32;
+    private static SearchResultCache instance;
+
+    private final Path cacheDir;
+    private final long ttlMillis;
+    private long nextSweep; // guarded by this; 0 until the first write
+    private final Map<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MEMORY_ENTRIES;
+        }
+    };
+
+    /**
+     * @param cacheDir directory for the on-disk tier; created on first write.
+     * @param ttl how long an entry stays valid after it was crawled.
+     */
+    public SearchResultCache(Path cacheDir, Duration ttl) {
+        this.cacheDir = cacheDir;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Get the shared cache used by the dating search engine.
+     */
+    public static synchronized SearchResultCache getInstance() {
+        if (instance == null) {
+            instance = new SearchResultCache(Paths.get("cache", "searches"), Duration.ofMinutes(30));
+        }
+        return instance;
+    }
+
+    /**
+     * Look up the raw results for a query.
+     * @param query the exact query string sent to the search engine.
+     * @return the cached entry, or null if there is none or it has expired.
+     */
+    public Entry get(String query) {
+        Entry entry;
+        synchronized (this) {
+            entry = memory.get(query);
+        }
+
+        if (entry == null) {
+            entry = readFromDisk(query);
+            if (entry != null) {
+                synchronized (this) {
+                    // A put while the file was being read is newer than the file
+                    Entry stored = memory.putIfAbsent(query, entry);
+                    if (stored != null) entry = stored;
+                }
+            }
+        }
+
+        if (entry != null && isExpired(entry)) {
+            synchronized (this) {
+                memory.remove(query, entry);
+            }
+            CacheFiles.deleteQuietly(fileFor(query));
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Store the raw results of a crawl.
+     * @param query the exact query string sent to the search engine.
+     * @param results every scraped result in relevance order, before filtering.
+     * @param complete true if the crawl reached the last page rather than stopping early.
+     */
+    public void put(String query, List<SearchResult> results, boolean complete) {
+        Entry entry = new Entry(List.copyOf(results), System.currentTimeMillis(), complete);
+        boolean sweep;
+        synchronized (this) {
+            memory.put(query, entry);
+
+            sweep = entry.fetchedAt() >= nextSweep;
+            if (sweep) nextSweep = entry.fetchedAt() + ttlMillis;
+        }
+
+        writeToDisk(query, entry);
+        if (sweep) sweepExpired();
+    }
+
+    private void sweepExpired() {
+        // A file's modification time is when it was written, i.e. its entry's fetchedAt
+        int deleted = CacheFiles.deleteOlderThan(cacheDir, "*.gz", ttlMillis);
+        if (deleted > 0) LOGGER.log(Level.FINE, "Removed {0} expired cached searches", deleted);
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.currentTimeMillis() - entry.fetchedAt() > ttlMillis;
+    }
+
+    private Entry readFromDisk(String query) {
+        Path file = fileFor(query);
+        if (!Files.exists(file)) return null;
+
+        try (DataInputStream in = CacheFiles.openCompressed(file)) {
+            if (in.readInt() != FORMAT_VERSION) return null;
+            if (!query.equals(readString(in))) return null;
+
+            long fetchedAt = in.readLong();
+            boolean complete = in.readBoolean();
+            int count = in.readInt();
+            if (count < 0) throw new StreamCorruptedException("Invalid result count " + count);
+
+            // The count comes from the file, so do not trust it for the initial capacity
+            List<SearchResult> results = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                results.add(new SearchResult(readString(in), readString(in), readString(in)));
+            }
+            return new Entry(Collections.unmodifiableList(results), fetchedAt, complete);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read cached search: {0}", e.getMessage());
+            CacheFiles.deleteQuietly(file);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String query, Entry entry) {
+        try {
+            CacheFiles.writeCompressed(fileFor(query), out -> {
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, query);
+                out.writeLong(entry.fetchedAt());
+                out.writeBoolean(entry.complete());
+                out.writeInt(entry.results().size());
+                for (SearchResult r : entry.results()) {
+                    writeString(out, r.title);
+                    writeString(out, r.url);
+                    writeString(out, r.thumbnail);
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write cached search: {0}", e.getMessage());
+        }
+    }
+
+    private Path fileFor(String query) {
+        return cacheDir.resolve(CacheFiles.hash(query) + ".gz");
+    }
+
+    /**
+     * Raw results of one crawl.
+     * @param results every scraped result in relevance order, before filtering.
+     * @param fetchedAt when the crawl finished, in epoch milliseconds.
+     * @param complete true if the crawl reached the last page.
+     */
+    public record Entry(List<SearchResult> results, long fetchedAt, boolean complete) {}
+}
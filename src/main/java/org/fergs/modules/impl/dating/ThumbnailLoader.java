@@ -0,0 +1,276 @@
+package org.fergs.modules.impl.dating;
+
+import org.fergs.managers.LoggingManager;
+import org.fergs.utils.CacheFiles;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * ThumbnailLoader fetches result thumbnails off the EDT and hands back icons already
+ * scaled to the card size.
+ * <p>
+ * Images are decoded with source subsampling so large originals are never fully
+ * materialised, then kept in a size-bounded in-memory LRU and persisted as small PNGs in
+ * a disk cache keyed by the SHA-256 of their URL, so repeated searches paint instantly.
+ * The disk cache is bounded too; when it grows past its budget the least recently used
+ * files are deleted. Concurrent requests for the same URL share a single download, and a
+ * URL that failed is not retried for a minute, so a dead image host is not hit on every
+ * repaint.
+ * <p>
+ * Example usage:
+ * <pre>
+ * ThumbnailLoader loader = new ThumbnailLoader(Paths.get("cache", "thumbnails"), 80, 4);
+ * ImageIcon cached = loader.getIfCached(url);
+ * if (cached == null) loader.load(url, icon -> { if (icon != null) label.setIcon(icon); });
+ * </pre>
+ * </p>
+ * @Author Fergs32
+ */
+public final class ThumbnailLoader {
+    private static final LoggingManager LOGGER = LoggingManager.getInstance();
+    private static final int MEMORY_BUDGET_BYTES = 16 * 1024 * 1024;
+    private static final long DISK_BUDGET_BYTES = 64L * 1024 * 1024;
+    private static final int TIMEOUT_MILLIS = 10_000;
+    private static final long FAILURE_RETRY_MILLIS = 60_000;
+    private static final int MAX_FAILURES_KEPT = 1024;
+
+    private final Path cacheDir;
+    private final int size;
+    private final ExecutorService executor;
+    private final Map<String, ImageIcon> memory;
+    private final Map<String, CompletableFuture<ImageIcon>> inFlight = new ConcurrentHashMap<>();
+    // URL -> time before which it is not fetched again
+    private final Map<String, Long> failedUntil = new ConcurrentHashMap<>();
+    private long diskBytes = -1; // guarded by this; -1 until the cache directory was measured
+
+    /**
+     * @param cacheDir directory for the on-disk thumbnail cache; created on first write.
+     * @param size the width and height thumbnails are decoded to.
+     * @param concurrency the maximum number of thumbnails fetched at once.
+     */
+    public ThumbnailLoader(Path cacheDir, int size, int concurrency) {
+        this.cacheDir = cacheDir;
+        this.size = size;
+
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        this.executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "ThumbnailLoader-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+
+        final int maxEntries = Math.max(16, MEMORY_BUDGET_BYTES / (size * size * 4));
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ImageIcon> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Returns the thumbnail if it is already in memory, without blocking.
+     * @param url the thumbnail URL.
+     * @return the cached icon, or null if it still has to be loaded.
+     */
+    public ImageIcon getIfCached(String url) {
+        return memory.get(url);
+    }
+
+    /**
+     * Loads a thumbnail in the background and passes it to the callback on the EDT.
+     * The callback always runs once; it receives null if the image cannot be loaded, or
+     * failed to load less than a minute ago.
+     * @param url the thumbnail URL.
+     * @param onLoaded receives the scaled icon, or null, on the EDT.
+     */
+    public void load(String url, Consumer<ImageIcon> onLoaded) {
+        ImageIcon cached = memory.get(url);
+        if (cached != null) {
+            SwingUtilities.invokeLater(() -> onLoaded.accept(cached));
+            return;
+        }
+
+        Long retryAt = failedUntil.get(url);
+        if (retryAt != null) {
+            if (System.currentTimeMillis() < retryAt) {
+                SwingUtilities.invokeLater(() -> onLoaded.accept(null));
+                return;
+            }
+            failedUntil.remove(url, retryAt);
+        }
+
+        final CompletableFuture<ImageIcon> created = new CompletableFuture<>();
+        final CompletableFuture<ImageIcon> existing = inFlight.putIfAbsent(url, created);
+        if (existing == null) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        created.complete(fetch(url));
+                    } finally {
+                        inFlight.remove(url, created);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shut down; nothing will ever complete this load
+                inFlight.remove(url, created);
+                created.complete(null);
+            }
+        }
+
+        (existing != null ? existing : created).thenAccept(icon -> SwingUtilities.invokeLater(() -> onLoaded.accept(icon)));
+    }
+
+    /**
+     * Stops the loader threads. Pending loads are dropped.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private ImageIcon fetch(String url) {
+        try {
+            final Path cached = cacheDir.resolve(CacheFiles.hash(url) + ".png");
+            BufferedImage image = null;
+
+            if (Files.exists(cached)) {
+                image = ImageIO.read(cached.toFile());
+                // The modification time doubles as the last use, which disk eviction goes by
+                if (image != null) Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+
+            if (image == null) {
+                image = download(url);
+                if (image == null) {
+                    rememberFailure(url);
+                    return null;
+                }
+                store(cached, image);
+            }
+
+            ImageIcon icon = new ImageIcon(image);
+            memory.put(url, icon);
+            return icon;
+        } catch (Exception ex) {
+            LOGGER.log(Level.WARNING, "Failed to load image: {0}", ex.getMessage());
+            rememberFailure(url);
+            return null;
+        }
+    }
+
+    private void rememberFailure(String url) {
+        if (failedUntil.size() >= MAX_FAILURES_KEPT) failedUntil.clear();
+        failedUntil.put(url, System.currentTimeMillis() + FAILURE_RETRY_MILLIS);
+    }
+
+    private BufferedImage download(String url) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+
+        try (InputStream in = connection.getInputStream();
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            if (iis == null) return null;
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+
+                // Skip source pixels so the decoded image is never much larger than the target
+                int step = Math.max(1, Math.min(reader.getWidth(0), reader.getHeight(0)) / size);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+
+                return scale(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source) {
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = scaled.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2.drawImage(source, 0, 0, size, size, null);
+        g2.dispose();
+        return scaled;
+    }
+
+    private void store(Path target, BufferedImage image) {
+        try {
+            CacheFiles.write(target, out -> ImageIO.write(image, "png", out));
+            addDiskUsage(Files.size(target));
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Failed to cache thumbnail: {0}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Counts a newly stored file and, once the cache is over budget, deletes the least
+     * recently used files until it is back under three quarters of it, so the directory is
+     * not listed again on every store.
+     */
+    private synchronized void addDiskUsage(long bytes) {
+        if (diskBytes >= 0) {
+            diskBytes += bytes;
+            if (diskBytes <= DISK_BUDGET_BYTES) return;
+        }
+
+        List<Path> files = new ArrayList<>();
+        Map<Path, FileTime> lastUsed = new HashMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, "*.png")) {
+            for (Path file : stream) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                files.add(file);
+                lastUsed.put(file, attributes.lastModifiedTime());
+                total += attributes.size();
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Failed to check thumbnail cache size: {0}", ex.getMessage());
+            return;
+        }
+
+        if (total > DISK_BUDGET_BYTES) {
+            files.sort(Comparator.comparing(lastUsed::get));
+            for (Path file : files) {
+                if (total <= DISK_BUDGET_BYTES * 3 / 4) break;
+                try {
+                    long size = Files.size(file);
+                    Files.delete(file);
+                    total -= size;
+                } catch (IOException ignored) {
+                    // Deleted by someone else, or in use; it is counted again on the next sweep
+                }
+            }
+        }
+        diskBytes = total;
+    }
+}
@@ -0,0 +1,245 @@
+package org.fergs.modules.impl.tempemail;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
+import org.fergs.managers.LoggingManager;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+
+/**
+ * AttachmentDownload saves one mail.tm attachment to disk without holding the file in memory.
+ * <p>
+ * The response body is moved from OkHttp's {@link BufferedSource}, which is itself a readable
+ * channel, into a {@link FileChannel} with {@link FileChannel#transferFrom}, a chunk at a time,
+ * reporting progress after every chunk. Data goes to a ".part" file next to the target, which
+ * is renamed into place once complete.
+ * <p>
+ * A cancelled or failed download leaves its ".part" file behind. Running a download for the
+ * same target again asks the server for the rest with an HTTP Range request, and starts over if
+ * the server answers with the whole file instead. If the answer does not continue exactly where
+ * the part file ends, or the server says there is nothing left but the part file is not the size
+ * of the attachment, the part file is discarded and the whole file is requested again.
+ * <p>
+ * Example usage:
+ * <pre>
+ * AttachmentDownload download = api.openDownload(email, attachment, target,
+ *         (done, total) -> System.out.println(done + " / " + total));
+ * download.run(); // blocking; call download.cancel() from another thread to stop it
+ * </pre>
+ * </p>
+ * @Author Fergs32
+ */
+public final class AttachmentDownload {
+    private static final LoggingManager LOGGER = LoggingManager.getInstance();
+    private static final long CHUNK_BYTES = 256 * 1024;
+
+    private final OkHttpClient client;
+    private final String url;
+    private final String token;
+    private final long expectedSize;
+    private final Path target;
+    private final Listener listener;
+    private volatile boolean cancelled;
+    private volatile Call activeCall;
+
+    /**
+     * Receives the progress of a download on the downloading thread.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param downloaded the bytes on disk so far, including any resumed part.
+         * @param total the size of the whole file, or -1 if the server did not say.
+         */
+        void onProgress(long downloaded, long total);
+    }
+
+    /**
+     * @param expectedSize the attachment size listed by mail.tm, accurate to the kilobyte, or -1.
+     */
+    AttachmentDownload(OkHttpClient client, String url, String token, long expectedSize, Path target, Listener listener) {
+        this.client = client;
+        this.url = url;
+        this.token = token;
+        this.expectedSize = expectedSize;
+        this.target = target;
+        this.listener = listener;
+    }
+
+    /**
+     * Downloads the file on the calling thread.
+     * @return the saved file.
+     * @throws CancellationException if {@link #cancel()} was called; the partial file is kept.
+     * @throws IOException if the download failed; the partial file is kept for a later resume.
+     */
+    public Path run() throws IOException {
+        final Path part = partFile();
+        long offset = Files.exists(part) ? Files.size(part) : 0;
+
+        if (!download(part, offset)) {
+            LOGGER.info("Could not resume " + target.getFileName() + ", downloading it again");
+            download(part, 0);
+        }
+        return finish(part);
+    }
+
+    /**
+     * Makes one request and writes the response to the part file.
+     * @param offset the bytes already in the part file; 0 fetches the whole file.
+     * @return true if the part file now holds the whole attachment, false if the server could not
+     *         continue from the offset and the download has to start over. Always true for 0.
+     */
+    private boolean download(Path part, long offset) throws IOException {
+        Request.Builder builder = new Request.Builder()
+                .url(url)
+                .get()
+                .header("Authorization", "Bearer " + token);
+        if (offset > 0) builder.header("Range", "bytes=" + offset + "-");
+
+        Call call = client.newCall(builder.build());
+        activeCall = call;
+        if (cancelled) throw new CancellationException("Download cancelled");
+
+        try (Response response = call.execute()) {
+            if (response.code() == 416 && offset > 0) {
+                // Nothing past the end of the part file: complete if it is as long as the attachment
+                return isWholeFile(offset, unsatisfiedRangeLength(response));
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("Failed to download attachment: HTTP " + response.code());
+            }
+
+            boolean partial = response.code() == 206;
+            if (partial && rangeStart(response) != offset) {
+                // Writing this range at the offset would corrupt the part file
+                if (offset > 0) return false;
+                throw new IOException("Unexpected partial response: " + response.header("Content-Range"));
+            }
+            if (!partial && offset > 0) {
+                LOGGER.info("Server ignored the range request, restarting download of " + target.getFileName());
+                offset = 0;
+            }
+            long total = totalSize(response, offset);
+
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                if (offset == 0) channel.truncate(0);
+
+                BufferedSource source = response.body().source();
+                long position = offset;
+                listener.onProgress(position, total);
+                while (true) {
+                    if (cancelled) throw new CancellationException("Download cancelled");
+                    long transferred = channel.transferFrom(source, position, CHUNK_BYTES);
+                    if (transferred <= 0) break;
+                    position += transferred;
+                    listener.onProgress(position, total);
+                }
+
+                if (total >= 0 && position != total) {
+                    throw new IOException("Download ended at " + position + " of " + total + " bytes");
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            // OkHttp reports a cancelled call as an IOException
+            if (cancelled) throw new CancellationException("Download cancelled");
+            throw e;
+        } finally {
+            activeCall = null;
+        }
+    }
+
+    /**
+     * Checks whether a part file the server has nothing to add to is the whole attachment.
+     * @param length the file size from the 416 response, or -1 if it did not give one.
+     */
+    private boolean isWholeFile(long partSize, long length) {
+        if (length >= 0) return partSize == length;
+        // mail.tm lists sizes in kilobytes, so only a difference of a kilobyte or more is a mismatch
+        return expectedSize >= 0 && Math.abs(partSize - expectedSize) < MailTmDecoder.ATTACHMENT_SIZE_UNIT;
+    }
+
+    /**
+     * Stops the download as soon as possible. Safe to call from any thread, before or during
+     * {@link #run()}.
+     */
+    public void cancel() {
+        cancelled = true;
+        Call call = activeCall;
+        if (call != null) call.cancel();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public Path getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the file a download in progress is written to.
+     */
+    public Path partFile() {
+        return target.resolveSibling(target.getFileName() + ".part");
+    }
+
+    private Path finish(Path part) throws IOException {
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+
+    /**
+     * Returns the first byte of a 206 response, from "Content-Range: bytes 100-999/1000".
+     */
+    private static long rangeStart(Response response) {
+        String range = response.header("Content-Range");
+        if (range == null || !range.startsWith("bytes ")) return -1;
+        int dash = range.indexOf('-', 6);
+        if (dash < 0) return -1;
+        try {
+            return Long.parseLong(range.substring(6, dash).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the file size from a 416 response, from "Content-Range: bytes *&#47;1000", or -1.
+     */
+    private static long unsatisfiedRangeLength(Response response) {
+        String range = response.header("Content-Range");
+        if (range == null || !range.startsWith("bytes */")) return -1;
+        try {
+            return Long.parseLong(range.substring(8).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the size of the whole file, or -1 if the response does not give it.
+     */
+    private static long totalSize(Response response, long offset) {
+        String range = response.header("Content-Range");
+        if (range != null) {
+            int slash = range.lastIndexOf('/');
+            if (slash >= 0 && !range.endsWith("*")) {
+                try {
+                    return Long.parseLong(range.substring(slash + 1).trim());
+                } catch (NumberFormatException ignored) {}
+            }
+        }
+        long length = response.body().contentLength();
+        return length >= 0 ? offset + length : -1;
+    }
+}
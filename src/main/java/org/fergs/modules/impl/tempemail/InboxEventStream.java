@@ -0,0 +1,220 @@
+package org.fergs.modules.impl.tempemail;
+
+import okhttp3.*;
+import okio.BufferedSource;
+import org.fergs.managers.LoggingManager;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * InboxEventStream subscribes to the Server-Sent Events published for one temp mail account
+ * (mail.tm publishes account and message updates through a Mercure hub) and forwards every
+ * event to a listener as soon as it arrives.
+ * <p>
+ * The stream runs on its own virtual thread. When the connection drops it reconnects with
+ * exponential backoff and sends the last seen event ID in the Last-Event-ID header so the hub
+ * can replay anything missed. The listener is told whenever the connection goes up or down so
+ * callers can fall back to polling in between.
+ * <p>
+ * The hub URL is a constructor argument, so the stream can be pointed at a local SSE server.
+ * <p>
+ * Example usage:
+ * <pre>
+ * InboxEventStream stream = new InboxEventStream(client, hubUrl, accountId, token, listener);
+ * stream.start();
+ * ...
+ * stream.close();
+ * </pre>
+ * </p>
+ * @Author Fergs32
+ */
+public final class InboxEventStream implements AutoCloseable {
+    private static final LoggingManager LOGGER = LoggingManager.getInstance();
+    private static final long INITIAL_RETRY_MILLIS = 1_000;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
+    private final OkHttpClient client;
+    private final String hubUrl;
+    private final String accountId;
+    private final String token;
+    private final Listener listener;
+
+    private volatile boolean closed;
+    private volatile boolean connected;
+    private volatile Call activeCall;
+    private volatile String lastEventId;
+    private Thread thread;
+
+    /**
+     * Receives events and connection changes. Callbacks run on the stream's thread.
+     */
+    public interface Listener {
+        /**
+         * Called for every event the hub publishes for the account.
+         * @param id the event ID, or null if the hub did not send one.
+         * @param data the event payload, usually the updated resource as JSON.
+         */
+        void onEvent(String id, String data);
+
+        /**
+         * Called when the stream connects or disconnects.
+         * @param connected true once the stream is open, false when it has dropped.
+         */
+        void onConnectionChanged(boolean connected);
+    }
+
+    /**
+     * @param client the shared HTTP client; a copy without a read timeout is used for the stream.
+     * @param hubUrl the Mercure hub URL, e.g. https://mercure.mail.tm/.well-known/mercure
+     * @param accountId the account whose topic to subscribe to.
+     * @param token the account's JWT.
+     * @param listener receives events and connection changes.
+     */
+    public InboxEventStream(OkHttpClient client, String hubUrl, String accountId, String token, Listener listener) {
+        this.client = client.newBuilder()
+                .readTimeout(0, TimeUnit.MILLISECONDS)
+                .build();
+        this.hubUrl = hubUrl;
+        this.accountId = accountId;
+        this.token = token;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts streaming in the background. Calling this more than once has no effect.
+     */
+    public synchronized void start() {
+        if (thread != null || closed) return;
+        thread = Thread.ofVirtual()
+                .name("InboxEvents-" + accountId)
+                .start(this::runLoop);
+    }
+
+    /**
+     * Returns true while the stream is connected to the hub.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Stops the stream and cancels any open connection.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        Call call = activeCall;
+        if (call != null) call.cancel();
+        if (thread != null) thread.interrupt();
+    }
+
+    private void runLoop() {
+        long retryMillis = INITIAL_RETRY_MILLIS;
+
+        while (!closed) {
+            try {
+                if (stream()) {
+                    // The connection worked, so start the next backoff from scratch
+                    retryMillis = INITIAL_RETRY_MILLIS;
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    LOGGER.log(Level.WARNING, "Inbox event stream for " + accountId + " dropped: " + e.getMessage());
+                }
+            } finally {
+                setConnected(false);
+            }
+
+            if (closed) break;
+
+            try {
+                Thread.sleep(retryMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+        }
+    }
+
+    /**
+     * Opens one connection and dispatches events until it ends.
+     * @return true if the hub accepted the connection.
+     */
+    private boolean stream() throws IOException {
+        HttpUrl url = HttpUrl.get(hubUrl).newBuilder()
+                .addQueryParameter("topic", "/accounts/" + accountId)
+                .build();
+
+        Request.Builder request = new Request.Builder()
+                .url(url)
+                .get()
+                .header("Accept", "text/event-stream")
+                .header("Cache-Control", "no-cache")
+                .header("Authorization", "Bearer " + token);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+
+        Call call = client.newCall(request.build());
+        activeCall = call;
+        if (closed) call.cancel();
+
+        try (Response response = call.execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                LOGGER.log(Level.WARNING, "Inbox event stream for " + accountId + " rejected: HTTP " + response.code());
+                return false;
+            }
+
+            setConnected(true);
+            readEvents(response.body().source());
+            return true;
+        } finally {
+            activeCall = null;
+        }
+    }
+
+    /**
+     * Parses the text/event-stream format: "field: value" lines, dispatched on a blank line.
+     */
+    private void readEvents(BufferedSource source) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String id = null;
+
+        String line;
+        while (!closed && (line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                if (id != null) lastEventId = id;
+                if (!data.isEmpty()) {
+                    listener.onEvent(id, data.toString());
+                }
+                data.setLength(0);
+                id = null;
+                continue;
+            }
+            if (line.charAt(0) == ':') continue; // comment / keep-alive
+
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) value = value.substring(1);
+
+            switch (field) {
+                case "data" -> {
+                    if (!data.isEmpty()) data.append('\n');
+                    data.append(value);
+                }
+                case "id" -> id = value;
+                default -> { /* event and retry are not needed */ }
+            }
+        }
+    }
+
+    private void setConnected(boolean value) {
+        if (connected == value) return;
+        connected = value;
+        listener.onConnectionChanged(value);
+    }
+}
@@ -0,0 +1,183 @@
+package org.fergs.modules.impl.tempemail;
+
+import org.fergs.managers.LoggingManager;
+import org.fergs.objects.TempEmail;
+import org.fergs.objects.TempMessage;
+import org.fergs.scheduler.SpecterScheduler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * InboxPoller keeps every active temp mail account up to date, not just the selected one.
+ * <p>
+ * A single one-second tick on {@link SpecterScheduler} decides which accounts are due and
+ * fetches each of them on its own virtual thread, so twenty slow inboxes cost twenty parked
+ * virtual threads rather than twenty pool threads. Each account has an adaptive interval: it
+ * drops to {@link #MIN_INTERVAL_MILLIS} whenever its inbox changes and doubles up to
+ * {@link #MAX_INTERVAL_MILLIS} while it stays idle. Every interval gets ±20% jitter so accounts
+ * created together do not keep hitting the API in the same second.
+ * <p>
+ * Example usage:
+ * <pre>
+ * InboxPoller poller = new InboxPoller(TempEmailImpl.getInstance(), (email, messages, unread) -> ...);
+ * poller.start();
+ * poller.track(email);
+ * poller.wake(email.id()); // e.g. when a push event arrives
+ * </pre>
+ * </p>
+ * @Author Fergs32
+ */
+public final class InboxPoller {
+    private static final LoggingManager LOGGER = LoggingManager.getInstance();
+    static final long MIN_INTERVAL_MILLIS = 5_000;
+    static final long MAX_INTERVAL_MILLIS = 120_000;
+    private static final double JITTER = 0.2;
+
+    private final TempEmailImpl api;
+    private final Listener listener;
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    private ExecutorService workers;
+    private ScheduledFuture<?> ticker;
+
+    /**
+     * Receives the result of every poll. Called on the polling thread.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param email the account that was polled.
+         * @param messages the inbox as returned by the API.
+         * @param unread how many of those messages have not been seen.
+         */
+        void onInbox(TempEmail email, List<TempMessage> messages, int unread);
+    }
+
+    public InboxPoller(TempEmailImpl api, Listener listener) {
+        this.api = api;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts polling every tracked account. Calling this while running has no effect.
+     */
+    public synchronized void start() {
+        if (ticker != null) return;
+        workers = Executors.newVirtualThreadPerTaskExecutor();
+        ticker = SpecterScheduler.scheduleWithFixedDelay(this::tick, 0, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops polling. Tracked accounts are kept and resume on the next {@link #start()}.
+     */
+    public synchronized void stop() {
+        if (ticker == null) return;
+        ticker.cancel(false);
+        ticker = null;
+        workers.shutdownNow();
+        workers = null;
+    }
+
+    /**
+     * Adds an account and polls it on the next tick.
+     */
+    public void track(TempEmail email) {
+        accounts.putIfAbsent(email.id(), new Account(email));
+    }
+
+    /**
+     * Removes an account; an in-flight poll for it is still delivered.
+     */
+    public void untrack(String accountId) {
+        accounts.remove(accountId);
+    }
+
+    /**
+     * Removes every account.
+     */
+    public void clear() {
+        accounts.clear();
+    }
+
+    /**
+     * Polls an account on the next tick and resets it to the fast interval.
+     */
+    public void wake(String accountId) {
+        Account account = accounts.get(accountId);
+        if (account == null) return;
+        account.intervalMillis = MIN_INTERVAL_MILLIS;
+        account.nextPollAt = 0;
+        account.woken = true;
+    }
+
+    private void tick() {
+        ExecutorService pool;
+        synchronized (this) {
+            pool = workers;
+        }
+        if (pool == null) return;
+
+        long now = System.currentTimeMillis();
+        for (Account account : accounts.values()) {
+            if (account.nextPollAt > now || !account.inFlight.compareAndSet(false, true)) continue;
+            try {
+                pool.execute(() -> poll(account));
+            } catch (RejectedExecutionException e) {
+                account.inFlight.set(false);
+                return; // stopped while ticking
+            }
+        }
+    }
+
+    private void poll(Account account) {
+        boolean changed = false;
+        account.woken = false;
+        try {
+            List<TempMessage> messages = api.getMessages(account.email.id(), account.email.token());
+
+            int unread = 0;
+            long signature = 1;
+            for (TempMessage message : messages) {
+                if (!message.isRead()) unread++;
+                signature = 31 * signature + message.id().hashCode() * (message.isRead() ? 1 : 7);
+            }
+
+            changed = signature != account.signature;
+            account.signature = signature;
+            listener.onInbox(account.email, messages, unread);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Polling " + account.email.address() + " failed: " + e.getMessage());
+        } finally {
+            account.intervalMillis = changed
+                    ? MIN_INTERVAL_MILLIS
+                    : Math.min(account.intervalMillis * 2, MAX_INTERVAL_MILLIS);
+            // A wake that arrived mid-poll may describe mail this poll did not see yet
+            account.nextPollAt = account.woken ? 0 : System.currentTimeMillis() + jitter(account.intervalMillis);
+            account.inFlight.set(false);
+        }
+    }
+
+    private static long jitter(long intervalMillis) {
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        return (long) (intervalMillis * factor);
+    }
+
+    /**
+     * Polling state for one account.
+     */
+    private static final class Account {
+        final TempEmail email;
+        final AtomicBoolean inFlight = new AtomicBoolean(false);
+        volatile long nextPollAt;
+        volatile long intervalMillis = MIN_INTERVAL_MILLIS;
+        volatile long signature;
+        volatile boolean woken;
+
+        Account(TempEmail email) {
+            this.email = email;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package org.fergs.modules.impl.tempemail;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.fergs.managers.LoggingManager;
+import org.fergs.objects.TempAttachment;
+import org.fergs.objects.TempEmail;
+import org.fergs.objects.TempMessage;
+import org.fergs.utils.IsoTimestamp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * MailTmDecoder reads mail.tm API responses straight from the response stream with Jackson's
+ * streaming parser and binds them to {@link TempEmail} and {@link TempMessage}, without
+ * buffering the body into a String or building a JsonNode tree. Fields the app does not use
+ * are skipped without being materialised, and timestamps are parsed from the parser's own
+ * character buffer by {@link IsoTimestamp}, keeping their offset.
+ *
+ * @Author Fergs32
+ */
+public final class MailTmDecoder {
+    private static final LoggingManager LOGGER = LoggingManager.getInstance();
+    /**
+     * Bytes per unit of an attachment's "size". mail.tm gives attachment sizes in kilobytes,
+     * unlike the "size" of a message, which is in bytes; a 1 MB attachment is listed as 1024.
+     * The converted size is therefore only accurate to the kilobyte.
+     */
+    static final int ATTACHMENT_SIZE_UNIT = 1024;
+
+    private final JsonFactory factory;
+
+    public MailTmDecoder(JsonFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Decodes an account, as returned by POST /accounts.
+     * @param password the password the account was created with; the API does not echo it.
+     * @param token the account's JWT, or null if it has not been obtained yet.
+     */
+    public TempEmail decodeAccount(InputStream in, String password, String token) throws IOException {
+        try (JsonParser p = factory.createParser(in)) {
+            expect(p.nextToken(), JsonToken.START_OBJECT);
+
+            String id = null;
+            String address = null;
+            OffsetDateTime createdAt = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "id" -> id = p.getValueAsString();
+                    case "address" -> address = p.getValueAsString();
+                    case "createdAt" -> createdAt = timestamp(p);
+                    default -> p.skipChildren();
+                }
+            }
+
+            if (id == null) throw new IOException("Account response has no id");
+            return new TempEmail(id, address, password, token, createdAt != null ? createdAt : OffsetDateTime.now());
+        }
+    }
+
+    /**
+     * Decodes the JWT from a POST /token response.
+     */
+    public String decodeToken(InputStream in) throws IOException {
+        try (JsonParser p = factory.createParser(in)) {
+            expect(p.nextToken(), JsonToken.START_OBJECT);
+
+            String token = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if (field.equals("token")) {
+                    token = p.getValueAsString();
+                } else {
+                    p.skipChildren();
+                }
+            }
+
+            if (token == null) throw new IOException("Token response has no token");
+            return token;
+        }
+    }
+
+    /**
+     * Decodes the domain names from a GET /domains page.
+     */
+    public List<String> decodeDomains(InputStream in) throws IOException {
+        List<String> domains = new ArrayList<>();
+        try (JsonParser p = factory.createParser(in)) {
+            if (!moveToMembers(p)) return domains;
+
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = p.currentName();
+                    p.nextToken();
+                    if (field.equals("domain")) {
+                        domains.add(p.getValueAsString());
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            }
+        }
+        return domains;
+    }
+
+    /**
+     * Decodes a GET /messages page together with its hydra:view paging links.
+     */
+    public MessagePage decodeMessagePage(InputStream in) throws IOException {
+        List<TempMessage> messages = new ArrayList<>();
+        String next = null;
+        int totalItems = -1;
+
+        try (JsonParser p = factory.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return new MessagePage(messages, null, -1);
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                switch (field) {
+                    case "hydra:member" -> {
+                        if (value != JsonToken.START_ARRAY) {
+                            p.skipChildren();
+                            continue;
+                        }
+                        while (p.nextToken() == JsonToken.START_OBJECT) {
+                            messages.add(readMessage(p));
+                        }
+                    }
+                    case "hydra:view" -> {
+                        if (value != JsonToken.START_OBJECT) {
+                            p.skipChildren();
+                            continue;
+                        }
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String viewField = p.currentName();
+                            p.nextToken();
+                            if (viewField.equals("hydra:next")) {
+                                next = p.getValueAsString();
+                            } else {
+                                p.skipChildren();
+                            }
+                        }
+                    }
+                    case "hydra:totalItems" -> totalItems = p.getValueAsInt(-1);
+                    default -> p.skipChildren();
+                }
+            }
+        }
+        return new MessagePage(messages, next, totalItems);
+    }
+
+    /**
+     * Decodes the body of a GET /messages/{id} response.
+     */
+    public MessageDetail decodeMessageDetail(InputStream in) throws IOException {
+        try (JsonParser p = factory.createParser(in)) {
+            expect(p.nextToken(), JsonToken.START_OBJECT);
+
+            String subject = null;
+            String html = null;
+            String text = null;
+            List<TempAttachment> attachments = List.of();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                switch (field) {
+                    case "subject" -> {
+                        if (value != JsonToken.VALUE_NULL) subject = p.getValueAsString();
+                    }
+                    case "html" -> html = firstString(p);
+                    case "attachments" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            attachments = readAttachments(p);
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                    case "text" -> text = firstString(p);
+                    default -> p.skipChildren();
+                }
+            }
+            return new MessageDetail(subject, html, text, attachments);
+        }
+    }
+
+    /**
+     * Reads one message object; the parser is on its START_OBJECT.
+     */
+    private TempMessage readMessage(JsonParser p) throws IOException {
+        String id = null;
+        String subject = "No Subject";
+        String from = "Unknown Sender";
+        OffsetDateTime createdAt = null;
+        boolean seen = false;
+        boolean hasAttachments = false;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "id" -> id = p.getValueAsString();
+                case "subject" -> {
+                    if (value != JsonToken.VALUE_NULL) subject = p.getValueAsString();
+                }
+                case "from" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String fromField = p.currentName();
+                            p.nextToken();
+                            if (fromField.equals("address")) {
+                                from = p.getValueAsString();
+                            } else {
+                                p.skipChildren();
+                            }
+                        }
+                    }
+                }
+                case "createdAt" -> createdAt = timestamp(p);
+                case "seen" -> seen = p.getValueAsBoolean();
+                case "hasAttachments" -> hasAttachments = p.getValueAsBoolean();
+                default -> p.skipChildren();
+            }
+        }
+
+        return new TempMessage(id, subject, from, createdAt != null ? createdAt : OffsetDateTime.now(), seen, hasAttachments);
+    }
+
+    /**
+     * Reads a message's attachment list; the parser is on its START_ARRAY.
+     */
+    private static List<TempAttachment> readAttachments(JsonParser p) throws IOException {
+        List<TempAttachment> attachments = new ArrayList<>();
+        JsonToken token;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+
+            String id = null;
+            String filename = null;
+            String contentType = "application/octet-stream";
+            long size = -1;
+            String downloadUrl = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "id" -> id = p.getValueAsString();
+                    case "filename" -> filename = p.getValueAsString();
+                    case "contentType" -> contentType = p.getValueAsString(contentType);
+                    case "size" -> {
+                        long kilobytes = p.getValueAsLong(-1);
+                        size = kilobytes >= 0 ? kilobytes * ATTACHMENT_SIZE_UNIT : -1;
+                    }
+                    case "downloadUrl" -> downloadUrl = p.getValueAsString();
+                    default -> p.skipChildren();
+                }
+            }
+
+            if (id != null && downloadUrl != null) {
+                attachments.add(new TempAttachment(id, filename != null ? filename : id, contentType, size, downloadUrl));
+            }
+        }
+        return attachments;
+    }
+
+    /**
+     * Advances to the first element of the root object's "hydra:member" array, skipping every
+     * other field before it.
+     * @return true if the parser is now inside the array.
+     */
+    private static boolean moveToMembers(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) return false;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if (field.equals("hydra:member") && value == JsonToken.START_ARRAY) return true;
+            p.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Reads a string, or the first string of an array; mail.tm sends html as an array.
+     */
+    private static String firstString(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_STRING) return p.getText();
+        if (token != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+
+        String first = null;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (first == null && token == JsonToken.VALUE_STRING) {
+                first = p.getText();
+            } else {
+                p.skipChildren();
+            }
+        }
+        return first;
+    }
+
+    private static OffsetDateTime timestamp(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.VALUE_STRING) {
+            p.skipChildren();
+            return null;
+        }
+        try {
+            // Parse from the parser's buffer rather than allocating a String per timestamp
+            return IsoTimestamp.parse(CharBuffer.wrap(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()));
+        } catch (DateTimeParseException e) {
+            LOGGER.log(Level.WARNING, "Failed to parse datetime: " + e.getParsedString());
+            return null;
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected JSON: expected " + expected + " but got " + actual);
+        }
+    }
+
+    /**
+     * One page of an inbox listing.
+     * @param messages the messages on this page, newest first.
+     * @param next the path of the next page, e.g. "/messages?page=2", or null on the last page.
+     * @param totalItems the number of messages in the whole inbox, or -1 if not sent.
+     */
+    public record MessagePage(List<TempMessage> messages, String next, int totalItems) {}
+
+    /**
+     * The body of a message; the subject and either body part may be null.
+     * @param subject the subject line.
+     * @param html the HTML body.
+     * @param text the plain text body.
+     * @param attachments the files attached to the message, possibly empty.
+     */
+    public record MessageDetail(String subject, String html, String text, List<TempAttachment> attachments) {}
+}
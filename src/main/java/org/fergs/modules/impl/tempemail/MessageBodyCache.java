@@ -0,0 +1,228 @@
+package org.fergs.modules.impl.tempemail;
+
+import org.fergs.managers.LoggingManager;
+import org.fergs.utils.CacheFiles;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+import static org.fergs.utils.CacheFiles.hash;
+import static org.fergs.utils.CacheFiles.readString;
+import static org.fergs.utils.CacheFiles.writeString;
+
+/**
+ * MessageBodyCache keeps the rendered text of opened temp mail messages so reopening one does
+ * not fetch and convert it again. Message bodies never change once received, so entries are
+ * only dropped when the memory budget is exceeded, the account is deleted or the cache is
+ * cleared.
+ * <p>
+ * There are two tiers: an in-memory LRU bounded by the total size of the cached text, and a
+ * gzip-compressed file per message under cache/messages, grouped in a directory per account so
+ * deleting an account removes all of its bodies at once. Accounts that expire on the server or
+ * are simply forgotten never get deleted here, so files older than a week are swept on the first
+ * write and then once a day.
+ * <p>
+ * Only the in-memory tier is guarded by the cache's lock; files are read and written outside
+ * it, so a slow disk read does not hold up lookups of other messages.
+ *
+ * @Author Fergs32
+ */
+public final class MessageBodyCache {
+    private static final LoggingManager LOGGER = LoggingManager.getInstance();
+    private static final int FORMAT_VERSION = 1;
+    private static final long MAX_FILE_AGE_MILLIS = Duration.ofDays(7).toMillis();
+    private static final long SWEEP_INTERVAL_MILLIS = Duration.ofDays(1).toMillis();
+    private static MessageBodyCache instance;
+
+    private final Path cacheDir;
+    private final long memoryBudgetChars;
+    private long memoryChars;
+    private final LinkedHashMap<String, String> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long nextSweep; // guarded by this; 0 until the first write
+
+    /**
+     * @param cacheDir directory for the on-disk tier; created on first write.
+     * @param memoryBudgetChars the total length of text kept in memory.
+     */
+    public MessageBodyCache(Path cacheDir, long memoryBudgetChars) {
+        this.cacheDir = cacheDir;
+        this.memoryBudgetChars = memoryBudgetChars;
+    }
+
+    /**
+     * Get the shared cache used by {@link TempEmailImpl}.
+     */
+    public static synchronized MessageBodyCache getInstance() {
+        if (instance == null) {
+            instance = new MessageBodyCache(Paths.get("cache", "messages"), 4L * 1024 * 1024);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns a body only if it is already in memory, without touching the disk.
+     * @return the cached text, or null.
+     */
+    public synchronized String getIfCached(String accountId, String messageId) {
+        return memory.get(key(accountId, messageId));
+    }
+
+    /**
+     * Looks a body up in memory, then on disk.
+     * @return the cached text, or null if the message has not been cached.
+     */
+    public String get(String accountId, String messageId) {
+        String key = key(accountId, messageId);
+        String body = getIfCached(accountId, messageId);
+        if (body != null) return body;
+
+        body = readFromDisk(accountId, messageId);
+        if (body != null) {
+            synchronized (this) {
+                remember(key, body);
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Stores the rendered body of a message in both tiers.
+     */
+    public void put(String accountId, String messageId, String body) {
+        boolean sweep;
+        synchronized (this) {
+            remember(key(accountId, messageId), body);
+
+            long now = System.currentTimeMillis();
+            sweep = now >= nextSweep;
+            if (sweep) nextSweep = now + SWEEP_INTERVAL_MILLIS;
+        }
+
+        writeToDisk(accountId, messageId, body);
+        if (sweep) sweepOldFiles();
+    }
+
+    /**
+     * Drops every cached body of an account from memory and disk.
+     */
+    public void evictAccount(String accountId) {
+        String prefix = accountId + '/';
+        synchronized (this) {
+            Iterator<Map.Entry<String, String>> it = memory.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, String> entry = it.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    memoryChars -= entry.getValue().length();
+                    it.remove();
+                }
+            }
+        }
+
+        deleteDirectory(cacheDir.resolve(hash(accountId)), Long.MAX_VALUE);
+    }
+
+    /**
+     * Drops every cached body of every account from memory and disk.
+     */
+    public void clear() {
+        synchronized (this) {
+            memory.clear();
+            memoryChars = 0;
+        }
+
+        forEachAccountDirectory(dir -> deleteDirectory(dir, Long.MAX_VALUE));
+    }
+
+    private void sweepOldFiles() {
+        forEachAccountDirectory(dir -> deleteDirectory(dir, System.currentTimeMillis() - MAX_FILE_AGE_MILLIS));
+    }
+
+    private void forEachAccountDirectory(Consumer<Path> action) {
+        if (!Files.isDirectory(cacheDir)) return;
+        try (Stream<Path> dirs = Files.list(cacheDir)) {
+            dirs.filter(Files::isDirectory).forEach(action);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to list cached messages: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the files in an account directory last written before the cutoff, then the
+     * directory itself if that left it empty.
+     */
+    private static void deleteDirectory(Path dir, long cutoffMillis) {
+        if (!Files.isDirectory(dir)) return;
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < cutoffMillis) Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Deleted or locked by someone else meanwhile
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to clear cached messages: " + e.getMessage());
+        }
+        CacheFiles.deleteQuietly(dir); // fails harmlessly if newer files are left
+    }
+
+    // Callers hold the lock
+    private void remember(String key, String body) {
+        String previous = memory.put(key, body);
+        if (previous != null) memoryChars -= previous.length();
+        memoryChars += body.length();
+
+        // Evict least recently opened bodies, but always keep the one just added
+        Iterator<Map.Entry<String, String>> it = memory.entrySet().iterator();
+        while (memoryChars > memoryBudgetChars && memory.size() > 1 && it.hasNext()) {
+            Map.Entry<String, String> eldest = it.next();
+            if (eldest.getKey().equals(key)) continue;
+            memoryChars -= eldest.getValue().length();
+            it.remove();
+        }
+    }
+
+    private String readFromDisk(String accountId, String messageId) {
+        Path file = fileFor(accountId, messageId);
+        if (!Files.exists(file)) return null;
+
+        try (DataInputStream in = CacheFiles.openCompressed(file)) {
+            if (in.readInt() != FORMAT_VERSION) return null;
+            if (!accountId.equals(readString(in)) || !messageId.equals(readString(in))) return null;
+            return readString(in);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read cached message: " + e.getMessage());
+            CacheFiles.deleteQuietly(file);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String accountId, String messageId, String body) {
+        try {
+            CacheFiles.writeCompressed(fileFor(accountId, messageId), out -> {
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, accountId);
+                writeString(out, messageId);
+                writeString(out, body);
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write cached message: " + e.getMessage());
+        }
+    }
+
+    private static String key(String accountId, String messageId) {
+        return accountId + '/' + messageId;
+    }
+
+    private Path fileFor(String accountId, String messageId) {
+        return cacheDir.resolve(hash(accountId)).resolve(hash(messageId) + ".gz");
+    }
+}
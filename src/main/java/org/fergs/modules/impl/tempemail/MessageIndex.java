@@ -0,0 +1,331 @@
+package org.fergs.modules.impl.tempemail;
+
+import org.fergs.objects.TempMessage;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * MessageIndex is an in-memory inverted index over every temp mail message the app has fetched,
+ * across all accounts, so a message can be found without opening each inbox in turn.
+ * <p>
+ * Subjects and senders are indexed as soon as a message shows up in an inbox listing, and the
+ * body is added once the message has been opened. Terms are lower-cased runs of letters and
+ * digits; every query term is matched as a prefix, so results narrow as the user types.
+ * <p>
+ * Each message gets an increasing document number and every term keeps a sorted array of the
+ * documents it occurs in, so a query is a merge of a few int arrays rather than a walk over
+ * boxed sets.
+ * <p>
+ * The index holds at most {@code maxMessages} messages and drops the ones indexed longest ago
+ * beyond that. Only the start of long bodies is indexed. All messages of an account are dropped
+ * when the account is deleted.
+ *
+ * @Author Fergs32
+ */
+public final class MessageIndex {
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 32;
+    private static final int MAX_BODY_CHARS = 32 * 1024;
+    private static MessageIndex instance;
+
+    private final int maxMessages;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private final HashMap<Integer, Entry> documents = new HashMap<>();
+    private final HashMap<String, Postings> postings = new HashMap<>();
+    // Sorted view of the terms for prefix lookups; only touched when a term comes or goes
+    private final TreeSet<String> dictionary = new TreeSet<>();
+    private int nextDocument;
+
+    /**
+     * @param maxMessages the most messages kept in the index.
+     */
+    public MessageIndex(int maxMessages) {
+        this.maxMessages = Math.max(1, maxMessages);
+    }
+
+    /**
+     * Get the shared index fed by {@link TempEmailImpl}.
+     */
+    public static synchronized MessageIndex getInstance() {
+        if (instance == null) {
+            instance = new MessageIndex(10_000);
+        }
+        return instance;
+    }
+
+    /**
+     * Indexes the subject and sender of a message from an inbox listing. A message that is
+     * already indexed only has its summary, such as the read state, updated.
+     */
+    public synchronized void addMessage(String accountId, TempMessage message) {
+        String key = key(accountId, message.id());
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.update(message);
+            return;
+        }
+
+        entry = new Entry(nextDocument++, accountId, message);
+        entries.put(key, entry);
+        documents.put(entry.document, entry);
+
+        Set<String> terms = new HashSet<>();
+        tokenize(message.subject(), Integer.MAX_VALUE, MIN_TERM_LENGTH, terms::add);
+        tokenize(message.from(), Integer.MAX_VALUE, MIN_TERM_LENGTH, terms::add);
+        addTerms(entry, terms);
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxMessages) {
+            Entry evicted = eldest.next();
+            eldest.remove();
+            remove(evicted);
+        }
+    }
+
+    /**
+     * Indexes the text of a message that is already in the index. Does nothing for messages
+     * the index does not know, or whose body was indexed before.
+     */
+    public synchronized void addBody(String accountId, String messageId, String text) {
+        Entry entry = entries.get(key(accountId, messageId));
+        if (entry == null || entry.hasBody || text == null) return;
+        entry.hasBody = true;
+
+        Set<String> terms = new HashSet<>();
+        tokenize(text, MAX_BODY_CHARS, MIN_TERM_LENGTH, terms::add);
+        for (String term : entry.terms) terms.remove(term);
+        addTerms(entry, terms);
+    }
+
+    /**
+     * Drops every message of an account.
+     */
+    public synchronized void removeAccount(String accountId) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.accountId.equals(accountId)) {
+                it.remove();
+                remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Finds the messages that contain every term of the query, each matched as a prefix.
+     * @param query the text typed by the user.
+     * @param limit the most hits to return.
+     * @return the hits, newest first; empty for a query without terms.
+     */
+    public synchronized List<Hit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(query, Integer.MAX_VALUE, 1, terms::add);
+        if (terms.isEmpty() || limit <= 0) return List.of();
+
+        // Intersect starting from the rarest term, so the working set only ever shrinks
+        List<int[]> matches = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            int[] match = prefixMatches(term);
+            if (match.length == 0) return List.of();
+            matches.add(match);
+        }
+        matches.sort(Comparator.comparingInt(match -> match.length));
+
+        int[] found = matches.getFirst();
+        for (int i = 1; i < matches.size() && found.length > 0; i++) {
+            found = intersect(found, matches.get(i));
+        }
+
+        List<Entry> hits = new ArrayList<>(found.length);
+        for (int document : found) hits.add(documents.get(document));
+        hits.sort(Comparator.comparingLong((Entry e) -> e.receivedMillis).reversed());
+
+        List<Hit> result = new ArrayList<>(Math.min(limit, hits.size()));
+        for (Entry entry : hits) {
+            if (result.size() >= limit) break;
+            result.add(new Hit(entry.accountId, entry.message));
+        }
+        return result;
+    }
+
+    /**
+     * The number of messages currently indexed.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the sorted documents containing any term that starts with the prefix.
+     */
+    private int[] prefixMatches(String prefix) {
+        SortedSet<String> range = dictionary.subSet(prefix, prefix + Character.MAX_VALUE);
+        if (range.isEmpty()) return new int[0];
+        if (range.size() == 1) return postings.get(range.first()).toArray();
+
+        int total = 0;
+        for (String term : range) total += postings.get(term).size;
+        int[] union = new int[total];
+        int n = 0;
+        for (String term : range) {
+            Postings posting = postings.get(term);
+            System.arraycopy(posting.documents, 0, union, n, posting.size);
+            n += posting.size;
+        }
+
+        Arrays.sort(union);
+        int distinct = 0;
+        for (int i = 0; i < union.length; i++) {
+            if (i == 0 || union[i] != union[i - 1]) union[distinct++] = union[i];
+        }
+        return Arrays.copyOf(union, distinct);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private void addTerms(Entry entry, Set<String> terms) {
+        if (terms.isEmpty()) return;
+
+        String[] all = Arrays.copyOf(entry.terms, entry.terms.length + terms.size());
+        int n = entry.terms.length;
+        for (String term : terms) {
+            Postings posting = postings.get(term);
+            if (posting == null) {
+                posting = new Postings(term);
+                postings.put(term, posting);
+                dictionary.add(term);
+            }
+            posting.add(entry.document);
+            all[n++] = posting.term; // share one String per term across all messages
+        }
+        entry.terms = all;
+    }
+
+    private void remove(Entry entry) {
+        documents.remove(entry.document);
+        for (String term : entry.terms) {
+            Postings posting = postings.get(term);
+            if (posting != null && posting.remove(entry.document) && posting.size == 0) {
+                postings.remove(term);
+                dictionary.remove(term);
+            }
+        }
+        entry.terms = new String[0];
+    }
+
+    /**
+     * Splits text into lower-cased runs of letters and digits. Runs longer than the maximum
+     * term length, such as tracking tokens, are skipped.
+     */
+    private static void tokenize(String text, int maxChars, int minLength, Consumer<String> consumer) {
+        if (text == null) return;
+        final int length = Math.min(text.length(), maxChars);
+        StringBuilder term = new StringBuilder(MAX_TERM_LENGTH);
+        boolean tooLong = false;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (term.length() < MAX_TERM_LENGTH) {
+                    term.append(Character.toLowerCase(c));
+                } else {
+                    tooLong = true;
+                }
+            } else if (!term.isEmpty()) {
+                if (!tooLong && term.length() >= minLength) consumer.accept(term.toString());
+                term.setLength(0);
+                tooLong = false;
+            }
+        }
+    }
+
+    private static String key(String accountId, String messageId) {
+        return accountId + '/' + messageId;
+    }
+
+    /**
+     * The documents a term occurs in, kept sorted. New messages get the highest document number,
+     * so adding is almost always an append.
+     */
+    private static final class Postings {
+        private final String term;
+        private int[] documents = new int[4];
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void add(int document) {
+            int at = size == 0 || documents[size - 1] < document ? size : Arrays.binarySearch(documents, 0, size, document);
+            if (at < 0) {
+                at = -at - 1;
+            } else if (at < size) {
+                return; // already present
+            }
+
+            if (size == documents.length) documents = Arrays.copyOf(documents, size * 2);
+            System.arraycopy(documents, at, documents, at + 1, size - at);
+            documents[at] = document;
+            size++;
+        }
+
+        private boolean remove(int document) {
+            int at = Arrays.binarySearch(documents, 0, size, document);
+            if (at < 0) return false;
+            System.arraycopy(documents, at + 1, documents, at, size - at - 1);
+            size--;
+            if (size > 0 && size * 4 < documents.length) documents = Arrays.copyOf(documents, documents.length / 2);
+            return true;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(documents, size);
+        }
+    }
+
+    /**
+     * One indexed message and the terms it was indexed under.
+     */
+    private static final class Entry {
+        private final int document;
+        private final String accountId;
+        private String[] terms = new String[0];
+        private TempMessage message;
+        private long receivedMillis;
+        private boolean hasBody;
+
+        private Entry(int document, String accountId, TempMessage message) {
+            this.document = document;
+            this.accountId = accountId;
+            update(message);
+        }
+
+        private void update(TempMessage message) {
+            this.message = message;
+            this.receivedMillis = message.receivedAt().toInstant().toEpochMilli();
+        }
+    }
+
+    /**
+     * A message matching a search.
+     * @param accountId the account the message belongs to.
+     * @param message the message summary.
+     */
+    public record Hit(String accountId, TempMessage message) {}
+}
@@ -0,0 +1,66 @@
+package org.fergs.modules.impl.tempemail;
+
+import org.fergs.objects.TempEmail;
+import org.fergs.objects.TempMessage;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * MessagePager walks a mail.tm inbox one page at a time by following the hydra:next link of
+ * each page. Nothing is fetched until {@link #nextPage()} is called, so a caller can show the
+ * first page straight away and pull older pages only when they are needed.
+ * <p>
+ * Example usage:
+ * <pre>
+ * MessagePager pager = TempEmailImpl.getInstance().openInbox(email);
+ * List&lt;TempMessage&gt; newest = pager.nextPage();
+ * if (pager.hasNextPage()) { List&lt;TempMessage&gt; older = pager.nextPage(); }
+ * </pre>
+ * </p>
+ * @Author Fergs32
+ */
+public final class MessagePager {
+    private final TempEmailImpl api;
+    private final TempEmail email;
+    private volatile String nextPath = "/messages";
+    private int totalItems = -1;
+
+    MessagePager(TempEmailImpl api, TempEmail email) {
+        this.api = api;
+        this.email = email;
+    }
+
+    /**
+     * Returns true if there is another page to fetch.
+     */
+    public boolean hasNextPage() {
+        return nextPath != null;
+    }
+
+    /**
+     * Fetches the next page, blocking on the network.
+     * @return the messages on the page, newest first.
+     * @throws NoSuchElementException if the last page has already been fetched.
+     */
+    public synchronized List<TempMessage> nextPage() throws Exception {
+        if (nextPath == null) throw new NoSuchElementException("No more pages");
+
+        MailTmDecoder.MessagePage page = api.getMessagePage(email.id(), email.token(), nextPath);
+        nextPath = page.messages().isEmpty() ? null : page.next();
+        if (page.totalItems() >= 0) totalItems = page.totalItems();
+        return page.messages();
+    }
+
+    /**
+     * Returns the total number of messages in the inbox as last reported, or -1 before the
+     * first page has been fetched.
+     */
+    public synchronized int getTotalItems() {
+        return totalItems;
+    }
+
+    public TempEmail getEmail() {
+        return email;
+    }
+}
@@ -1,41 +1,93 @@
 package org.fergs.modules.impl.tempemail;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
 import okhttp3.*;
 import org.fergs.managers.LoggingManager;
+import org.fergs.objects.TempAttachment;
 import org.fergs.objects.TempEmail;
 import org.fergs.objects.TempMessage;
+import org.fergs.scheduler.SpecterScheduler;
+import org.fergs.utils.HtmlToText;
 
-import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
 /**
  * TempEmailImpl handles the actual API interactions with the mail.tm service.
  * It provides methods to create temporary emails, fetch messages, and manage email accounts.
- * Uses OkHttp for HTTP requests and Jackson for JSON parsing.
+ * Uses OkHttp for HTTP requests and Jackson's streaming parser, via {@link MailTmDecoder}, to
+ * decode responses straight from the network stream.
+ * <p>
+ * A single instance is shared by the whole application via {@link #getInstance()}, so every
+ * call reuses the same connection pool and warm TLS connections to the API. The domain list is
+ * cached for {@link #DOMAIN_TTL_MILLIS} and refreshed in the background, so creating an address
+ * only needs the account and token calls. Opened message bodies are kept in a
+ * {@link MessageBodyCache}, so reopening a message does not hit the network.
  *
  * @Author Fergs32
  */
 public final class TempEmailImpl {
     private static final String BASE_URL = "https://api.mail.tm";
+    private static final String MERCURE_URL = "https://mercure.mail.tm/.well-known/mercure";
     private static final LoggingManager LOGGER = LoggingManager.getInstance();
+    private static final long DOMAIN_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int MAX_REMEMBERED_MESSAGES = 2_000;
+    private static TempEmailImpl instance;
+
     private final OkHttpClient client;
-    private final ObjectMapper objectMapper;
+    private final MailTmDecoder decoder;
     private final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
-    public TempEmailImpl() {
+    private volatile List<String> cachedDomains = List.of();
+    private volatile long domainsFetchedAt;
+    private final AtomicBoolean refreshingDomains = new AtomicBoolean(false);
+    private final MessageBodyCache bodyCache = MessageBodyCache.getInstance();
+    private final MessageIndex index = MessageIndex.getInstance();
+    private final Map<String, VerificationExtractor.Extraction> extractions = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, VerificationExtractor.Extraction> eldest) {
+                    return size() > MAX_REMEMBERED_MESSAGES;
+                }
+            });
+    private final Map<String, List<TempAttachment>> attachments = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<TempAttachment>> eldest) {
+                    return size() > MAX_REMEMBERED_MESSAGES;
+                }
+            });
+
+    /**
+     * Private constructor to enforce the shared instance.
+     */
+    private TempEmailImpl() {
         this.client = new OkHttpClient.Builder()
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(30, TimeUnit.SECONDS)
                 .writeTimeout(30, TimeUnit.SECONDS)
+                .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
                 .build();
-        this.objectMapper = new ObjectMapper();
+        this.decoder = new MailTmDecoder(new JsonFactory());
+
+        // Warm the domain cache and the connection before the first "Create Email" click
+        SpecterScheduler.scheduleNow(this::refreshDomainsInBackground);
+    }
+
+    /**
+     * Get the shared TempEmailImpl instance, creating it on first call.
+     */
+    public static synchronized TempEmailImpl getInstance() {
+        if (instance == null) {
+            instance = new TempEmailImpl();
+        }
+        return instance;
     }
 
     /**
@@ -45,7 +97,7 @@ public final class TempEmailImpl {
     public TempEmail createTempEmail() throws Exception {
         LOGGER.info("Creating new temporary email address");
 
-        List<String> domains = getAvailableDomains();
+        List<String> domains = getCachedDomains();
         if (domains.isEmpty()) {
             throw new RuntimeException("No available domains found");
         }
@@ -75,22 +127,18 @@ public final class TempEmailImpl {
                 throw new RuntimeException("Failed to create email: HTTP " + response.code());
             }
 
-            String responseBody = response.body().string();
-            JsonNode jsonResponse = objectMapper.readTree(responseBody);
-
-            String id = jsonResponse.get("id").asText();
-            String createdAt = jsonResponse.get("createdAt").asText();
+            TempEmail account = decoder.decodeAccount(response.body().byteStream(), password, null);
 
             LOGGER.info("Email account created successfully: " + address);
 
             String token = authenticateAccount(address, password);
 
             return new TempEmail(
-                id,
+                account.id(),
                 address,
                 password,
                 token,
-                parseDateTime(createdAt)
+                account.createdAt()
             );
         }
     }
@@ -119,16 +167,48 @@ public final class TempEmailImpl {
                 throw new RuntimeException("Failed to authenticate: HTTP " + response.code());
             }
 
-            String responseBody = response.body().string();
-            JsonNode jsonResponse = objectMapper.readTree(responseBody);
-
-            String token = jsonResponse.get("token").asText();
+            String token = decoder.decodeToken(response.body().byteStream());
             LOGGER.info("Account authenticated successfully");
 
             return token;
         }
     }
 
+    /**
+     * Returns the cached domain list, fetching it synchronously only when nothing is cached.
+     * A stale list is still returned immediately while a background refresh replaces it.
+     */
+    private List<String> getCachedDomains() throws Exception {
+        List<String> domains = cachedDomains;
+        if (domains.isEmpty()) {
+            return refreshDomains();
+        }
+        if (System.currentTimeMillis() - domainsFetchedAt > DOMAIN_TTL_MILLIS) {
+            SpecterScheduler.scheduleNow(this::refreshDomainsInBackground);
+        }
+        return domains;
+    }
+
+    private List<String> refreshDomains() throws Exception {
+        List<String> domains = getAvailableDomains();
+        if (!domains.isEmpty()) {
+            cachedDomains = List.copyOf(domains);
+            domainsFetchedAt = System.currentTimeMillis();
+        }
+        return domains;
+    }
+
+    private void refreshDomainsInBackground() {
+        if (!refreshingDomains.compareAndSet(false, true)) return;
+        try {
+            refreshDomains();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Background domain refresh failed: " + e.getMessage());
+        } finally {
+            refreshingDomains.set(false);
+        }
+    }
+
     /**
      * Retrieves available email domains from the mail.tm service.
      */
@@ -146,18 +226,7 @@ public final class TempEmailImpl {
                 throw new RuntimeException("Failed to fetch domains: HTTP " + response.code());
             }
 
-            String responseBody = response.body().string();
-            JsonNode jsonResponse = objectMapper.readTree(responseBody);
-
-            List<String> domains = new ArrayList<>();
-            JsonNode domainsArray = jsonResponse.get("hydra:member");
-
-            if (domainsArray != null && domainsArray.isArray()) {
-                for (JsonNode domainNode : domainsArray) {
-                    String domain = domainNode.get("domain").asText();
-                    domains.add(domain);
-                }
-            }
+            List<String> domains = decoder.decodeDomains(response.body().byteStream());
 
             LOGGER.info("Found " + domains.size() + " available domains");
             return domains;
@@ -165,13 +234,32 @@ public final class TempEmailImpl {
     }
 
     /**
-     * Retrieves messages for a specific email account.
+     * Retrieves the first page of messages for a specific email account, newest first.
+     * Use {@link #openInbox(TempEmail)} to walk the rest of a large inbox.
      */
     public List<TempMessage> getMessages(String accountId, String token) throws Exception {
-        LOGGER.info("Fetching messages for account: " + accountId);
+        return getMessagePage(accountId, token, "/messages").messages();
+    }
+
+    /**
+     * Returns a pager that fetches an account's inbox one page at a time, only when asked.
+     */
+    public MessagePager openInbox(TempEmail email) {
+        return new MessagePager(this, email);
+    }
+
+    /**
+     * Retrieves one page of an account's inbox.
+     * @param pagePath the page to fetch, e.g. "/messages" or a hydra:next link such as "/messages?page=2".
+     */
+    MailTmDecoder.MessagePage getMessagePage(String accountId, String token, String pagePath) throws Exception {
+        if (!pagePath.startsWith("/messages")) {
+            throw new IllegalArgumentException("Unexpected page link: " + pagePath);
+        }
+        LOGGER.info("Fetching messages for account: " + accountId + " (" + pagePath + ")");
 
         Request request = new Request.Builder()
-                .url(BASE_URL + "/messages")
+                .url(BASE_URL + pagePath)
                 .get()
                 .header("Authorization", "Bearer " + token)
                 .build();
@@ -186,28 +274,106 @@ public final class TempEmailImpl {
                 throw new RuntimeException("Failed to fetch messages: HTTP " + response.code());
             }
 
-            String responseBody = response.body().string();
-            JsonNode jsonResponse = objectMapper.readTree(responseBody);
-
-            List<TempMessage> messages = new ArrayList<>();
-            JsonNode messagesArray = jsonResponse.get("hydra:member");
-
-            if (messagesArray != null && messagesArray.isArray()) {
-                for (JsonNode messageNode : messagesArray) {
-                    TempMessage message = parseMessage(messageNode);
-                    messages.add(message);
-                }
+            MailTmDecoder.MessagePage page = decoder.decodeMessagePage(response.body().byteStream());
+            for (TempMessage message : page.messages()) {
+                index.addMessage(accountId, message);
             }
 
-            LOGGER.info("Found " + messages.size() + " messages for account: " + accountId);
-            return messages;
+            LOGGER.info("Found " + page.messages().size() + " messages for account: " + accountId);
+            return page;
         }
     }
 
     /**
-     * Retrieves the full content of a specific message.
+     * Opens a push subscription for an account's inbox on the mail.tm Mercure hub.
+     * The returned stream is already started; close it when the account is no longer watched.
+     * @param email the account to watch.
+     * @param listener receives every account and message update as it is published.
+     */
+    public InboxEventStream subscribe(TempEmail email, InboxEventStream.Listener listener) {
+        InboxEventStream stream = new InboxEventStream(client, MERCURE_URL, email.id(), email.token(), listener);
+        stream.start();
+        return stream;
+    }
+
+    /**
+     * Returns the content of a message only if it is already cached in memory.
+     * Safe to call on the EDT.
+     * @return the message text, or null if it has to be fetched.
+     */
+    public String getCachedMessageContent(String accountId, String messageId) {
+        String cached = bodyCache.getIfCached(accountId, messageId);
+        if (cached != null) onBodyAvailable(accountId, messageId, cached);
+        return cached;
+    }
+
+    /**
+     * Returns the codes and verification links found in a message whose body has been fetched.
+     * Safe to call on the EDT.
+     * @return what was found, or null if the body has not been fetched yet.
+     */
+    public VerificationExtractor.Extraction getExtraction(String accountId, String messageId) {
+        return extractions.get(accountId + '/' + messageId);
+    }
+
+    /**
+     * Retrieves the full content of a specific message, from the cache when it was opened before.
      */
     public String getMessageContent(String accountId, String messageId, String token) throws Exception {
+        String cached = bodyCache.get(accountId, messageId);
+        if (cached != null) {
+            onBodyAvailable(accountId, messageId, cached);
+            return cached;
+        }
+
+        MailTmDecoder.MessageDetail detail = fetchMessageDetail(accountId, messageId, token);
+
+        String content;
+        if (detail.html() != null && !detail.html().isEmpty()) {
+            content = stripHtmlTags(detail.html());
+        } else if (detail.text() != null && !detail.text().isEmpty()) {
+            content = detail.text();
+        } else {
+            return "No content available";
+        }
+
+        bodyCache.put(accountId, messageId, content);
+        index.addBody(accountId, messageId, content);
+        // Links are taken from the HTML, which still has the anchor targets the text lost
+        extractions.put(accountId + '/' + messageId,
+                VerificationExtractor.extract(detail.subject(), content, detail.html()));
+        return content;
+    }
+
+    /**
+     * Lists the files attached to a message. The list is remembered from when the message was
+     * last fetched, so this only goes to the network for a message opened from the body cache.
+     */
+    public List<TempAttachment> getAttachments(String accountId, String messageId, String token) throws Exception {
+        List<TempAttachment> known = attachments.get(accountId + '/' + messageId);
+        if (known != null) return known;
+        return fetchMessageDetail(accountId, messageId, token).attachments();
+    }
+
+    /**
+     * Prepares a download of an attachment to a file. Nothing is transferred until
+     * {@link AttachmentDownload#run()} is called, and a partial file left by an earlier,
+     * interrupted download of the same target is resumed.
+     * @param email the account the attachment belongs to.
+     * @param attachment the attachment, as listed by {@link #getAttachments}.
+     * @param target where to save the file.
+     * @param listener receives progress on the downloading thread.
+     */
+    public AttachmentDownload openDownload(TempEmail email, TempAttachment attachment, Path target,
+                                           AttachmentDownload.Listener listener) {
+        if (!attachment.downloadUrl().startsWith("/messages/")) {
+            throw new IllegalArgumentException("Unexpected attachment link: " + attachment.downloadUrl());
+        }
+        return new AttachmentDownload(client, BASE_URL + attachment.downloadUrl(), email.token(), attachment.size(),
+                target, listener);
+    }
+
+    private MailTmDecoder.MessageDetail fetchMessageDetail(String accountId, String messageId, String token) throws Exception {
         LOGGER.info("Fetching content for message: " + messageId);
 
         Request request = new Request.Builder()
@@ -222,22 +388,22 @@ public final class TempEmailImpl {
                 throw new RuntimeException("Failed to fetch message content: HTTP " + response.code());
             }
 
-            String responseBody = response.body().string();
-            JsonNode jsonResponse = objectMapper.readTree(responseBody);
-
-            JsonNode htmlNode = jsonResponse.get("html");
-            JsonNode textNode = jsonResponse.get("text");
-
-            if (htmlNode != null && !htmlNode.isNull() && htmlNode.isArray() && !htmlNode.isEmpty()) {
-                return stripHtmlTags(htmlNode.get(0).asText());
-            } else if (textNode != null && !textNode.isNull() && textNode.isArray() && !textNode.isEmpty()) {
-                return textNode.get(0).asText();
-            } else {
-                return "No content available";
-            }
+            MailTmDecoder.MessageDetail detail = decoder.decodeMessageDetail(response.body().byteStream());
+            attachments.put(accountId + '/' + messageId, detail.attachments());
+            return detail;
         }
     }
 
+    /**
+     * Indexes a body that came from the cache and extracts its codes, if that has not been done
+     * yet this session.
+     */
+    private void onBodyAvailable(String accountId, String messageId, String content) {
+        index.addBody(accountId, messageId, content);
+        extractions.computeIfAbsent(accountId + '/' + messageId,
+                key -> VerificationExtractor.extract(null, content, null));
+    }
+
     /**
      * Deletes a temporary email account.
      */
@@ -253,6 +419,14 @@ public final class TempEmailImpl {
         try (Response response = client.newCall(request).execute()) {
             boolean success = response.isSuccessful();
             if (success) {
+                bodyCache.evictAccount(accountId);
+                index.removeAccount(accountId);
+                synchronized (extractions) {
+                    extractions.keySet().removeIf(key -> key.startsWith(accountId + '/'));
+                }
+                synchronized (attachments) {
+                    attachments.keySet().removeIf(key -> key.startsWith(accountId + '/'));
+                }
                 LOGGER.info("Email account deleted successfully: " + accountId);
             } else {
                 LOGGER.error("Failed to delete email account. HTTP " + response.code());
@@ -261,50 +435,6 @@ public final class TempEmailImpl {
         }
     }
 
-    /**
-     * Parses a message JSON node into a TempMessage object.
-     */
-    private TempMessage parseMessage(JsonNode messageNode) {
-        String id = messageNode.get("id").asText();
-        String subject = messageNode.has("subject") ? messageNode.get("subject").asText() : "No Subject";
-
-        String from = "Unknown Sender";
-        JsonNode fromNode = messageNode.get("from");
-        if (fromNode != null && fromNode.has("address")) {
-            from = fromNode.get("address").asText();
-        }
-
-        String createdAt = messageNode.get("createdAt").asText();
-        boolean isRead = messageNode.has("seen") ? messageNode.get("seen").asBoolean() : false;
-
-        return new TempMessage(
-            id,
-            subject,
-            from,
-            parseDateTime(createdAt),
-            isRead
-        );
-    }
-
-    /**
-     * Parses ISO 8601 datetime string to LocalDateTime.
-     */
-    private LocalDateTime parseDateTime(String dateTimeString) {
-        try {
-            if (dateTimeString.contains("+")) {
-                dateTimeString = dateTimeString.substring(0, dateTimeString.indexOf('+'));
-            } else if (dateTimeString.contains("Z")) {
-                dateTimeString = dateTimeString.replace("Z", "");
-            }
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
-            return LocalDateTime.parse(dateTimeString, formatter);
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Failed to parse datetime: " + dateTimeString, e);
-            return LocalDateTime.now();
-        }
-    }
-
     /**
      * Generates a random username for email addresses.
      */
@@ -340,22 +470,6 @@ public final class TempEmailImpl {
      * Strips HTML tags from content for display in plain text areas.
      */
     private String stripHtmlTags(String html) {
-        if (html == null) return "";
-
-        return html
-                .replaceAll("<br[^>]*>", "\n")
-                .replaceAll("<p[^>]*>", "\n")
-                .replaceAll("</p>", "\n")
-                .replaceAll("<div[^>]*>", "\n")
-                .replaceAll("</div>", "\n")
-                .replaceAll("<[^>]+>", "")
-                .replaceAll("&nbsp;", " ")
-                .replaceAll("&amp;", "&")
-                .replaceAll("&lt;", "<")
-                .replaceAll("&gt;", ">")
-                .replaceAll("&quot;", "\"")
-                .replaceAll("&#39;", "'")
-                .replaceAll("\\n\\s*\\n", "\n\n")
-                .trim();
+        return HtmlToText.convert(html);
     }
 }
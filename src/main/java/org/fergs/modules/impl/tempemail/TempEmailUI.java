@@ -2,6 +2,8 @@ package org.fergs.modules.impl.tempemail;
 
 import org.fergs.Specter;
 import org.fergs.modules.AbstractModule;
+import org.fergs.scheduler.SpecterScheduler;
+import org.fergs.objects.TempAttachment;
 import org.fergs.objects.TempEmail;
 import org.fergs.objects.TempMessage;
 import org.fergs.ui.forms.SpecterForm;
@@ -11,33 +13,82 @@ import org.fergs.utils.JHelper;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.time.LocalDateTime;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * TempEmailUI provides a user interface for creating and managing temporary email addresses
  * using the mail.tm service. It allows users to create disposable emails, view incoming messages,
  * and manage multiple email accounts simultaneously.
+ * <p>
+ * With auto-refresh on, every active address is polled by an {@link InboxPoller} with an adaptive
+ * interval and gets a push subscription ({@link InboxEventStream}) that wakes its poll as soon as
+ * mail.tm publishes an update. Unread counts are shown on every address card.
+ * <p>
+ * The inbox keeps one card per {@link TempMessage#id()} and a refresh only inserts, replaces or
+ * removes the cards that changed, so selection and scroll position survive background updates.
+ * Only the newest page of an inbox is fetched up front; older pages are pulled through a
+ * {@link MessagePager} as the user scrolls towards the bottom.
+ * <p>
+ * The search box queries a {@link MessageIndex} of every message fetched so far, across all
+ * addresses, and shows the hits in place of the inbox until the search is cleared.
+ * <p>
+ * Verification codes and links found by {@link VerificationExtractor} are shown on each message
+ * card as buttons that copy them; the subject is checked straight away and the body once the
+ * message has been fetched.
+ * <p>
+ * Attachments of the open message are listed above its content. Clicking one streams it to a
+ * file chosen by the user through an {@link AttachmentDownload}; clicking it again while it
+ * downloads cancels, and clicking it after that resumes from where it stopped.
  *
  * @Author Fergs32
  */
 public final class TempEmailUI extends AbstractModule {
+    private static final DateTimeFormatter SHORT_DATE = DateTimeFormatter.ofPattern("MMM dd, HH:mm");
+    private static final DateTimeFormatter FULL_DATE = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm:ss");
+    private static final int MAX_SEARCH_RESULTS = 200;
+
     private final JPanel ui;
     private final JPanel emailsPanel;
     private final JPanel messagesPanel;
     private final JTextArea messageContentArea;
     private final JLabel statusLabel;
+    private final JTextField searchField;
+    private final JPanel attachmentsPanel;
     private final AtomicBoolean isPolling = new AtomicBoolean(false);
-    private Timer pollingTimer;
+    private InboxPoller poller;
+    private WarmAddressPool warmPool;
+    private final Map<String, TempEmail> activeEmails = new LinkedHashMap<>();
+    private final Map<String, InboxEventStream> inboxStreams = new ConcurrentHashMap<>();
+    private final Map<String, JLabel> unreadBadges = new ConcurrentHashMap<>();
     private TempEmail currentSelectedEmail;
     private TempMessage currentSelectedMessage;
+    private final Map<String, MessageRow> messageRows = new HashMap<>();
+    private String renderedAccountId;
+    private MessagePager olderPager;
+    private List<TempMessage> firstPage = List.of();
+    private final List<TempMessage> olderMessages = new ArrayList<>();
+    private boolean loadingOlder;
+    private String searchQuery;
+    private List<MessageIndex.Hit> searchHits = List.of();
+    private final Map<String, AttachmentDownload> downloads = new HashMap<>();
+    private final Map<String, JButton> attachmentButtons = new HashMap<>();
 
     public TempEmailUI() {
         super("temp-email", "Create and manage temporary email addresses");
@@ -60,10 +111,34 @@ public final class TempEmailUI extends AbstractModule {
         messageContentArea.setFont(new Font("Consolas", Font.PLAIN, 14));
         messageContentArea.setBorder(new EmptyBorder(10, 10, 10, 10));
 
+        attachmentsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 4));
+        attachmentsPanel.setBackground(new Color(0x1E1E1E));
+        attachmentsPanel.setVisible(false);
+
         statusLabel = new JLabel("Ready to create temporary emails");
         statusLabel.setForeground(new Color(0x66FFCC));
         statusLabel.setFont(new Font("Consolas", Font.ITALIC, 12));
 
+        searchField = new JTextField(18);
+        JHelper.styleRoundedField(searchField, 10);
+        searchField.setToolTipText("Search every inbox by subject, sender or opened message text");
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                runSearch();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                runSearch();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                runSearch();
+            }
+        });
+
         JPanel topPanel = createTopPanel();
         JPanel centerPanel = createCenterPanel();
 
@@ -94,6 +169,8 @@ public final class TempEmailUI extends AbstractModule {
         topPanel.add(Box.createHorizontalStrut(20));
         topPanel.add(clearBtn);
         topPanel.add(Box.createHorizontalStrut(20));
+        topPanel.add(searchField);
+        topPanel.add(Box.createHorizontalStrut(20));
         topPanel.add(statusLabel);
 
         return topPanel;
@@ -133,6 +210,7 @@ public final class TempEmailUI extends AbstractModule {
         ));
 
         JScrollPane messagesScroll = new CyberScrollPane(messagesPanel);
+        messagesScroll.getVerticalScrollBar().addAdjustmentListener(e -> loadOlderIfNeeded());
         messagesContainer.add(messagesScroll, BorderLayout.CENTER);
 
         JPanel contentContainer = new JPanel(new BorderLayout());
@@ -148,6 +226,7 @@ public final class TempEmailUI extends AbstractModule {
         JScrollPane contentScroll = new JScrollPane(messageContentArea);
         contentScroll.setBorder(BorderFactory.createEmptyBorder());
         contentScroll.getViewport().setBackground(new Color(0x1E1E1E));
+        contentContainer.add(attachmentsPanel, BorderLayout.NORTH);
         contentContainer.add(contentScroll, BorderLayout.CENTER);
 
         rightSplit.setTopComponent(messagesContainer);
@@ -185,12 +264,19 @@ public final class TempEmailUI extends AbstractModule {
     }
 
     private void createNewTempEmail() {
+        // A pre-provisioned address needs no network round trip at all
+        TempEmail pooled = warmPool != null ? warmPool.poll() : null;
+        if (pooled != null) {
+            onEmailCreated(pooled);
+            return;
+        }
+
         statusLabel.setText("Creating new temporary email...");
 
         new SwingWorker<TempEmail, Void>() {
             @Override
             protected TempEmail doInBackground() throws Exception {
-                TempEmailImpl impl = new TempEmailImpl();
+                TempEmailImpl impl = TempEmailImpl.getInstance();
                 return impl.createTempEmail();
             }
 
@@ -199,22 +285,7 @@ public final class TempEmailUI extends AbstractModule {
                 try {
                     TempEmail email = get();
                     if (email != null) {
-                        addEmailToPanel(email);
-                        statusLabel.setText("Email created successfully: " + email.address());
-
-                        ToastNotification.builder(SpecterForm.frame)
-                                .setBackground(new Color(0x2A2A2A))
-                                .setTitleColor(new Color(0x00FF88))
-                                .setMessageColor(new Color(0xF5F5F5))
-                                .setTitleFont(new Font("JetBrains Mono", Font.BOLD, 16))
-                                .setMessageFont(new Font("JetBrains Mono", Font.PLAIN, 13))
-                                .setSize(300, 100)
-                                .setFadeInStep(25)
-                                .setFadeOutStep(35)
-                                .setDuration(3500)
-                                .setTitle("Email Created")
-                                .setMessage("New temporary email:\n" + email.address())
-                                .show();
+                        onEmailCreated(email);
                     } else {
                         statusLabel.setText("Failed to create email");
                         showErrorNotification("Failed to create temporary email");
@@ -227,7 +298,32 @@ public final class TempEmailUI extends AbstractModule {
         }.execute();
     }
 
+    private void onEmailCreated(TempEmail email) {
+        addEmailToPanel(email);
+        statusLabel.setText("Email created successfully: " + email.address());
+
+        ToastNotification.builder(SpecterForm.frame)
+                .setBackground(new Color(0x2A2A2A))
+                .setTitleColor(new Color(0x00FF88))
+                .setMessageColor(new Color(0xF5F5F5))
+                .setTitleFont(new Font("JetBrains Mono", Font.BOLD, 16))
+                .setMessageFont(new Font("JetBrains Mono", Font.PLAIN, 13))
+                .setSize(300, 100)
+                .setFadeInStep(25)
+                .setFadeOutStep(35)
+                .setDuration(3500)
+                .setTitle("Email Created")
+                .setMessage("New temporary email:\n" + email.address())
+                .show();
+    }
+
     private void addEmailToPanel(TempEmail email) {
+        activeEmails.put(email.id(), email);
+        if (isPolling.get()) {
+            poller.track(email);
+            subscribe(email);
+        }
+
         JPanel emailCard = createEmailCard(email);
         emailsPanel.add(emailCard);
         emailsPanel.add(Box.createVerticalStrut(8));
@@ -258,7 +354,7 @@ public final class TempEmailUI extends AbstractModule {
         addressLabel.setFont(new Font("JetBrains Mono", Font.BOLD, 14));
         addressLabel.setForeground(new Color(0x66FFCC));
 
-        JLabel createdLabel = new JLabel("Created: " + email.createdAt().format(DateTimeFormatter.ofPattern("MMM dd, HH:mm")));
+        JLabel createdLabel = new JLabel("Created: " + formatLocal(email.createdAt(), SHORT_DATE));
         createdLabel.setFont(new Font("JetBrains Mono", Font.PLAIN, 11));
         createdLabel.setForeground(new Color(0xBBBBBB));
 
@@ -269,12 +365,19 @@ public final class TempEmailUI extends AbstractModule {
         JPanel actionsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
         actionsPanel.setOpaque(false);
 
+        JLabel unreadBadge = new JLabel();
+        unreadBadge.setFont(new Font("JetBrains Mono", Font.BOLD, 12));
+        unreadBadge.setForeground(new Color(0x00FF88));
+        unreadBadge.setToolTipText("Unread messages");
+        unreadBadges.put(email.id(), unreadBadge);
+
         JButton copyBtn = createIconButton("📋", "Copy to clipboard");
-        copyBtn.addActionListener(e -> copyToClipboard(email.address()));
+        copyBtn.addActionListener(e -> copyToClipboard(email.address(), "Email"));
 
         JButton deleteBtn = createIconButton("🗑️", "Delete email");
         deleteBtn.addActionListener(e -> deleteEmail(email, card));
 
+        actionsPanel.add(unreadBadge);
         actionsPanel.add(copyBtn);
         actionsPanel.add(deleteBtn);
 
@@ -320,7 +423,10 @@ public final class TempEmailUI extends AbstractModule {
         return btn;
     }
 
-    private void copyToClipboard(String text) {
+    /**
+     * @param what what is being copied, for the confirmation, e.g. "Email" or "Code".
+     */
+    private void copyToClipboard(String text, String what) {
         Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
         clipboard.setContents(new StringSelection(text), null);
 
@@ -334,8 +440,8 @@ public final class TempEmailUI extends AbstractModule {
                 .setFadeInStep(25)
                 .setFadeOutStep(35)
                 .setDuration(3500)
-                .setTitle("Email Copied")
-                .setMessage("Email copied to clipboard!")
+                .setTitle(what + " Copied")
+                .setMessage(what + " copied to clipboard!")
                 .show();
     }
 
@@ -352,7 +458,7 @@ public final class TempEmailUI extends AbstractModule {
             new SwingWorker<Boolean, Void>() {
                 @Override
                 protected Boolean doInBackground() throws Exception {
-                    TempEmailImpl impl = new TempEmailImpl();
+                    TempEmailImpl impl = TempEmailImpl.getInstance();
                     return impl.deleteEmail(email.id(), email.token());
                 }
 
@@ -361,16 +467,19 @@ public final class TempEmailUI extends AbstractModule {
                     try {
                         boolean success = get();
                         if (success) {
+                            activeEmails.remove(email.id());
+                            unreadBadges.remove(email.id());
+                            if (poller != null) poller.untrack(email.id());
+                            unsubscribe(email.id());
                             emailsPanel.remove(card);
                             emailsPanel.revalidate();
                             emailsPanel.repaint();
+                            if (searchQuery != null) showSearchResults();
 
                             if (currentSelectedEmail != null && currentSelectedEmail.id().equals(email.id())) {
                                 currentSelectedEmail = null;
-                                messagesPanel.removeAll();
+                                clearMessages();
                                 messageContentArea.setText("");
-                                messagesPanel.revalidate();
-                                messagesPanel.repaint();
                             }
 
                             statusLabel.setText("Email deleted successfully");
@@ -386,6 +495,11 @@ public final class TempEmailUI extends AbstractModule {
     }
 
     private void selectEmail(TempEmail email) {
+        if (searchQuery != null) {
+            // Picking an address leaves the search for its inbox
+            searchQuery = null;
+            searchField.setText("");
+        }
         currentSelectedEmail = email;
         statusLabel.setText("Selected: " + email.address());
         loadMessages(email);
@@ -408,24 +522,39 @@ public final class TempEmailUI extends AbstractModule {
     }
 
     private void loadMessages(TempEmail email) {
-        messagesPanel.removeAll();
-        messageContentArea.setText("Loading messages...");
+        // Refreshing the inbox on screen keeps its cards and the open message
+        final boolean switching = !email.id().equals(renderedAccountId);
+        final MessagePager pager = switching ? TempEmailImpl.getInstance().openInbox(email) : null;
+        if (switching) {
+            clearMessages();
+            olderPager = pager;
+            loadingOlder = true; // the pager is busy with the first page
+            messageContentArea.setText("Loading messages...");
+        }
 
         new SwingWorker<List<TempMessage>, Void>() {
             @Override
             protected List<TempMessage> doInBackground() throws Exception {
-                TempEmailImpl impl = new TempEmailImpl();
+                if (pager != null) return pager.nextPage();
+                TempEmailImpl impl = TempEmailImpl.getInstance();
                 return impl.getMessages(email.id(), email.token());
             }
 
             @Override
             protected void done() {
+                if (pager != null && olderPager == pager) loadingOlder = false;
                 try {
                     List<TempMessage> messages = get();
-                    displayMessages(messages);
-                    messageContentArea.setText(messages.isEmpty() ?
-                        "No messages received yet.\nMessages will appear here automatically." :
-                        "Select a message to view its content.");
+                    updateUnreadBadge(email.id(), messages.stream().filter(m -> !m.isRead()).count());
+                    if (currentSelectedEmail == null || !currentSelectedEmail.id().equals(email.id())) return;
+                    if (searchQuery != null) return;
+
+                    showFirstPage(email.id(), messages);
+                    if (switching) {
+                        messageContentArea.setText(messages.isEmpty() ?
+                            "No messages received yet.\nMessages will appear here automatically." :
+                            "Select a message to view its content.");
+                    }
                 } catch (Exception ex) {
                     messageContentArea.setText("Error loading messages: " + ex.getMessage());
                 }
@@ -433,27 +562,288 @@ public final class TempEmailUI extends AbstractModule {
         }.execute();
     }
 
-    private void displayMessages(List<TempMessage> messages) {
-        messagesPanel.removeAll();
+    private void onInboxPolled(TempEmail email, List<TempMessage> messages, int unread) {
+        SwingUtilities.invokeLater(() -> {
+            updateUnreadBadge(email.id(), unread);
+            if (searchQuery != null) {
+                showSearchResults(); // the poll may have indexed new matches
+            } else if (currentSelectedEmail != null && currentSelectedEmail.id().equals(email.id())) {
+                showFirstPage(email.id(), messages);
+            }
+        });
+    }
+
+    /**
+     * Shows the index hits for the search box, or goes back to the selected inbox once it is empty.
+     */
+    private void runSearch() {
+        String query = searchField.getText().trim();
+        if (query.isEmpty()) {
+            if (searchQuery == null) return;
+            searchQuery = null;
+            searchHits = List.of();
+            clearMessages();
+            if (currentSelectedEmail != null) {
+                loadMessages(currentSelectedEmail);
+            } else {
+                statusLabel.setText("Search cleared");
+            }
+            return;
+        }
+
+        searchQuery = query;
+        searchHits = List.of(); // the query changed, so always redraw
+        showSearchResults();
+    }
+
+    private void showSearchResults() {
+        long started = System.nanoTime();
+        List<MessageIndex.Hit> hits = new ArrayList<>();
+        for (MessageIndex.Hit hit : MessageIndex.getInstance().search(searchQuery, MAX_SEARCH_RESULTS)) {
+            if (activeEmails.containsKey(hit.accountId())) hits.add(hit);
+        }
+        long micros = (System.nanoTime() - started) / 1_000;
+
+        if (hits.equals(searchHits) && messagesPanel.getComponentCount() > 0) return;
+        searchHits = hits;
+
+        TempMessage selected = currentSelectedMessage;
+        clearMessages();
+        currentSelectedMessage = selected;
+
+        if (hits.isEmpty()) {
+            JLabel noMatches = new JLabel("🔍 No matching messages", SwingConstants.CENTER);
+            noMatches.setFont(new Font("Consolas", Font.ITALIC, 16));
+            noMatches.setForeground(new Color(0x888888));
+            messagesPanel.add(noMatches);
+        }
+        for (MessageIndex.Hit hit : hits) {
+            messagesPanel.add(createMessageCard(hit.accountId(), hit.message(), true));
+            messagesPanel.add(Box.createVerticalStrut(5));
+        }
+        messagesPanel.revalidate();
+        messagesPanel.repaint();
+
+        statusLabel.setText(hits.size() + (hits.size() == 1 ? " match" : " matches")
+                + " across all inboxes (" + micros / 1000.0 + " ms)");
+    }
+
+    /**
+     * Shows a freshly fetched newest page on top of the older pages already loaded.
+     * Messages pushed off the newest page by new mail are kept with the older ones rather
+     * than disappearing until their page is loaded again.
+     */
+    private void showFirstPage(String accountId, List<TempMessage> page) {
+        if (accountId.equals(renderedAccountId) && page.size() >= firstPage.size() && !page.isEmpty()) {
+            Set<String> ids = new HashSet<>();
+            for (TempMessage message : page) ids.add(message.id());
+            OffsetDateTime oldest = page.getLast().receivedAt();
+
+            List<TempMessage> shifted = new ArrayList<>();
+            for (TempMessage message : firstPage) {
+                if (!ids.contains(message.id()) && !message.receivedAt().isAfter(oldest)) shifted.add(message);
+            }
+            olderMessages.addAll(0, shifted);
+        }
+
+        firstPage = page;
+        renderInbox(accountId);
+    }
+
+    private void renderInbox(String accountId) {
+        List<TempMessage> merged = new ArrayList<>(firstPage.size() + olderMessages.size());
+        Set<String> seen = new HashSet<>();
+        for (TempMessage message : firstPage) {
+            if (seen.add(message.id())) merged.add(message);
+        }
+        for (TempMessage message : olderMessages) {
+            if (seen.add(message.id())) merged.add(message);
+        }
+
+        displayMessages(accountId, merged);
+        // A short first page may not fill the view, in which case no scroll event will ever come
+        SwingUtilities.invokeLater(this::loadOlderIfNeeded);
+    }
+
+    /**
+     * Fetches the next older page when the inbox is scrolled close to the bottom.
+     */
+    private void loadOlderIfNeeded() {
+        final MessagePager pager = olderPager;
+        if (pager == null || loadingOlder || !pager.hasNextPage() || renderedAccountId == null) return;
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, messagesPanel);
+        if (viewport == null) return;
+        int remaining = messagesPanel.getHeight() - (viewport.getViewPosition().y + viewport.getExtentSize().height);
+        if (remaining > 200) return;
+
+        loadingOlder = true;
+        statusLabel.setText("Loading older messages...");
+
+        new SwingWorker<List<TempMessage>, Void>() {
+            @Override
+            protected List<TempMessage> doInBackground() throws Exception {
+                return pager.nextPage();
+            }
+
+            @Override
+            protected void done() {
+                if (olderPager != pager) return; // switched inbox meanwhile
+                loadingOlder = false;
+                try {
+                    olderMessages.addAll(get());
+                    statusLabel.setText("Loaded " + (firstPage.size() + olderMessages.size())
+                            + (pager.getTotalItems() >= 0 ? " of " + pager.getTotalItems() : "") + " messages");
+                    renderInbox(pager.getEmail().id());
+                } catch (Exception ex) {
+                    statusLabel.setText("Error loading older messages: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void updateUnreadBadge(String accountId, long unread) {
+        JLabel badge = unreadBadges.get(accountId);
+        if (badge != null) {
+            badge.setText(unread > 0 ? "✉ " + unread : "");
+        }
+    }
+
+    /**
+     * Brings the inbox panel in line with the given messages, touching only the cards whose
+     * message was added, changed or removed.
+     */
+    private void displayMessages(String accountId, List<TempMessage> messages) {
+        if (!accountId.equals(renderedAccountId)) {
+            clearRows(); // the pager and the loaded pages are already this inbox's
+            renderedAccountId = accountId;
+        }
 
         if (messages.isEmpty()) {
-            JLabel noMessages = new JLabel("📭 No messages yet", SwingConstants.CENTER);
-            noMessages.setFont(new Font("Consolas", Font.ITALIC, 16));
-            noMessages.setForeground(new Color(0x888888));
-            messagesPanel.add(noMessages);
-        } else {
-            for (TempMessage message : messages) {
-                JPanel messageCard = createMessageCard(message);
-                messagesPanel.add(messageCard);
-                messagesPanel.add(Box.createVerticalStrut(5));
+            if (!messageRows.isEmpty() || messagesPanel.getComponentCount() == 0) {
+                messageRows.clear();
+                messagesPanel.removeAll();
+
+                JLabel noMessages = new JLabel("📭 No messages yet", SwingConstants.CENTER);
+                noMessages.setFont(new Font("Consolas", Font.ITALIC, 16));
+                noMessages.setForeground(new Color(0x888888));
+                messagesPanel.add(noMessages);
+
+                messagesPanel.revalidate();
+                messagesPanel.repaint();
             }
+            return;
         }
 
+        final JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, messagesPanel);
+        final ScrollAnchor anchor = findScrollAnchor(viewport);
+        boolean changed = false;
+
+        if (messageRows.isEmpty() && messagesPanel.getComponentCount() > 0) {
+            messagesPanel.removeAll(); // the "no messages" placeholder
+            changed = true;
+        }
+
+        Set<String> ids = new HashSet<>();
+        for (TempMessage message : messages) ids.add(message.id());
+
+        Iterator<MessageRow> rows = messageRows.values().iterator();
+        while (rows.hasNext()) {
+            MessageRow row = rows.next();
+            if (!ids.contains(row.message().id())) {
+                messagesPanel.remove(row.card());
+                messagesPanel.remove(row.gap());
+                rows.remove();
+                changed = true;
+            }
+        }
+
+        int index = 0;
+        for (TempMessage message : messages) {
+            MessageRow row = messageRows.get(message.id());
+            if (row == null || !row.message().equals(message)) {
+                if (row != null) {
+                    messagesPanel.remove(row.card());
+                    messagesPanel.remove(row.gap());
+                }
+                row = new MessageRow(message, createMessageCard(accountId, message, false), Box.createVerticalStrut(5));
+                messageRows.put(message.id(), row);
+                changed = true;
+            }
+
+            // Everything before index is already in place, so only moved or new cards are re-added
+            if (index >= messagesPanel.getComponentCount() || messagesPanel.getComponent(index) != row.card()) {
+                messagesPanel.remove(row.card());
+                messagesPanel.remove(row.gap());
+                messagesPanel.add(row.card(), index);
+                messagesPanel.add(row.gap(), index + 1);
+                changed = true;
+            }
+            index += 2;
+        }
+
+        if (!changed) return;
+
         messagesPanel.revalidate();
         messagesPanel.repaint();
+        restoreScrollAnchor(viewport, anchor);
     }
 
-    private JPanel createMessageCard(TempMessage message) {
+    /**
+     * Empties the inbox panel and forgets the pages loaded for it.
+     */
+    private void clearMessages() {
+        olderPager = null;
+        firstPage = List.of();
+        olderMessages.clear();
+        loadingOlder = false;
+        clearRows();
+    }
+
+    /**
+     * Removes the cards on screen, leaving the pager and the loaded pages alone.
+     */
+    private void clearRows() {
+        messageRows.clear();
+        renderedAccountId = null;
+        currentSelectedMessage = null;
+        messagesPanel.removeAll();
+        messagesPanel.revalidate();
+        messagesPanel.repaint();
+    }
+
+    /**
+     * Remembers the first visible card so new mail arriving above it does not push it down.
+     * Returns null when the inbox is scrolled to the top, where new mail should simply appear.
+     */
+    private ScrollAnchor findScrollAnchor(JViewport viewport) {
+        if (viewport == null) return null;
+        int viewY = viewport.getViewPosition().y;
+        if (viewY <= 0) return null;
+
+        for (MessageRow row : messageRows.values()) {
+            JPanel card = row.card();
+            if (card.getParent() == messagesPanel && card.getY() + card.getHeight() > viewY) {
+                return new ScrollAnchor(row.message().id(), viewY - card.getY());
+            }
+        }
+        return null;
+    }
+
+    private void restoreScrollAnchor(JViewport viewport, ScrollAnchor anchor) {
+        if (viewport == null || anchor == null) return;
+        MessageRow row = messageRows.get(anchor.messageId());
+        if (row == null) return;
+
+        viewport.getParent().validate();
+        int maxY = Math.max(0, messagesPanel.getHeight() - viewport.getExtentSize().height);
+        viewport.setViewPosition(new Point(0, Math.min(maxY, Math.max(0, row.card().getY() + anchor.offset()))));
+    }
+
+    /**
+     * @param showAccount also show which address received the message, for search results.
+     */
+    private JPanel createMessageCard(String accountId, TempMessage message, boolean showAccount) {
         JPanel card = new JPanel(new BorderLayout(8, 4));
         card.setMaximumSize(new Dimension(Integer.MAX_VALUE, 80));
         card.setBackground(new Color(0x252525));
@@ -474,7 +864,10 @@ public final class TempEmailUI extends AbstractModule {
         fromLabel.setFont(new Font("JetBrains Mono", Font.PLAIN, 11));
         fromLabel.setForeground(new Color(0xBBBBBB));
 
-        JLabel dateLabel = new JLabel(message.receivedAt().format(DateTimeFormatter.ofPattern("MMM dd, HH:mm")));
+        TempEmail owner = activeEmails.get(accountId);
+        String dateText = formatLocal(message.receivedAt(), SHORT_DATE);
+        if (showAccount && owner != null) dateText += "  •  " + owner.address();
+        JLabel dateLabel = new JLabel(dateText);
         dateLabel.setFont(new Font("JetBrains Mono", Font.PLAIN, 10));
         dateLabel.setForeground(new Color(0x888888));
 
@@ -488,11 +881,26 @@ public final class TempEmailUI extends AbstractModule {
         card.add(infoPanel, BorderLayout.CENTER);
         card.add(statusIndicator, BorderLayout.EAST);
 
+        VerificationExtractor.Extraction found = findVerification(accountId, message);
+        if (!found.isEmpty()) {
+            JPanel chipsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 0));
+            chipsPanel.setOpaque(false);
+            for (String code : found.codes()) {
+                chipsPanel.add(createCopyChip("🔑 " + code, "Copy code " + code, code, "Code"));
+            }
+            for (String link : found.links()) {
+                chipsPanel.add(createCopyChip("🔗 " + linkLabel(link), "Copy " + link, link, "Link"));
+            }
+            card.add(chipsPanel, BorderLayout.SOUTH);
+            card.setMaximumSize(new Dimension(Integer.MAX_VALUE, 112));
+        }
+
         card.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
         card.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                viewMessage(message);
+                currentSelectedMessage = message;
+                viewMessage(activeEmails.get(accountId), message);
                 highlightSelectedMessage(card);
             }
 
@@ -508,6 +916,10 @@ public final class TempEmailUI extends AbstractModule {
             @Override
             public void mouseExited(MouseEvent e) {
                 card.setBackground(new Color(0x252525));
+                if (isSelectedMessage(message)) {
+                    highlightSelectedMessage(card);
+                    return;
+                }
                 card.setBorder(BorderFactory.createCompoundBorder(
                         BorderFactory.createLineBorder(new Color(0x444444), 1),
                         new EmptyBorder(8, 10, 8, 10)
@@ -515,34 +927,104 @@ public final class TempEmailUI extends AbstractModule {
             }
         });
 
+        // A replaced card for the open message keeps its highlight
+        if (isSelectedMessage(message)) {
+            card.setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(new Color(0x00FF88), 2),
+                    new EmptyBorder(7, 9, 7, 9)
+            ));
+        }
+
         return card;
     }
 
-    private void viewMessage(TempMessage message) {
-        if (currentSelectedEmail == null) return;
+    /**
+     * Returns the codes and links for a message card: those found in the body once it has been
+     * fetched, and until then any code in the subject.
+     */
+    private VerificationExtractor.Extraction findVerification(String accountId, TempMessage message) {
+        VerificationExtractor.Extraction found = TempEmailImpl.getInstance().getExtraction(accountId, message.id());
+        if (found != null && !found.codes().isEmpty()) return found;
+
+        VerificationExtractor.Extraction fromSubject = VerificationExtractor.extract(message.subject(), null, null);
+        if (found == null || found.isEmpty()) return fromSubject;
+        return new VerificationExtractor.Extraction(fromSubject.codes(), found.links());
+    }
+
+    private JButton createCopyChip(String label, String tooltip, String value, String what) {
+        JButton chip = new JButton(label);
+        chip.setFont(new Font("JetBrains Mono", Font.BOLD, 11));
+        chip.setBackground(new Color(0x333333));
+        chip.setForeground(new Color(0x00FF88));
+        chip.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(0x00FF88), 1),
+                new EmptyBorder(2, 6, 2, 6)
+        ));
+        chip.setFocusPainted(false);
+        chip.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        chip.setToolTipText(tooltip);
+        chip.addActionListener(e -> copyToClipboard(value, what));
+        return chip;
+    }
+
+    /**
+     * Shortens a link to its host for display, e.g. "accounts.example.com".
+     */
+    private static String linkLabel(String link) {
+        int hostStart = link.indexOf("://") + 3;
+        int hostEnd = hostStart;
+        while (hostEnd < link.length() && "/?#:".indexOf(link.charAt(hostEnd)) < 0) hostEnd++;
+        String host = link.substring(hostStart, hostEnd);
+        return host.length() > 28 ? host.substring(0, 25) + "..." : host;
+    }
+
+    /**
+     * Rebuilds the card of a message on screen, so codes found in its body appear on it.
+     */
+    private void refreshMessageCard(String accountId, String messageId) {
+        if (searchQuery != null || !accountId.equals(renderedAccountId)) return;
+        MessageRow row = messageRows.get(messageId);
+        if (row == null) return;
+
+        int index = messagesPanel.getComponentZOrder(row.card());
+        if (index < 0) return;
+        JPanel card = createMessageCard(accountId, row.message(), false);
+        messagesPanel.remove(index);
+        messagesPanel.add(card, index);
+        messageRows.put(messageId, new MessageRow(row.message(), card, row.gap()));
+
+        messagesPanel.revalidate();
+        messagesPanel.repaint();
+    }
+
+    private void viewMessage(TempEmail email, TempMessage message) {
+        if (email == null) return;
+
+        // A message opened before renders straight from memory
+        String cached = TempEmailImpl.getInstance().getCachedMessageContent(email.id(), message.id());
+        if (cached != null) {
+            showMessageContent(message, cached);
+            loadAttachments(email, message);
+            return;
+        }
 
         messageContentArea.setText("Loading message content...");
+        showAttachments(email, List.of());
 
         new SwingWorker<String, Void>() {
             @Override
             protected String doInBackground() throws Exception {
-                TempEmailImpl impl = new TempEmailImpl();
-                return impl.getMessageContent(currentSelectedEmail.id(), message.id(), currentSelectedEmail.token());
+                TempEmailImpl impl = TempEmailImpl.getInstance();
+                return impl.getMessageContent(email.id(), message.id(), email.token());
             }
 
             @Override
             protected void done() {
                 try {
-                    String content = get();
-                    StringBuilder display = new StringBuilder();
-                    display.append("Subject: ").append(message.subject()).append("\n");
-                    display.append("From: ").append(message.from()).append("\n");
-                    display.append("Date: ").append(message.receivedAt().format(DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm:ss"))).append("\n");
-                    display.append("─".repeat(60)).append("\n\n");
-                    display.append(content);
-
-                    messageContentArea.setText(display.toString());
-                    messageContentArea.setCaretPosition(0);
+                    showMessageContent(message, get());
+                    refreshMessageCard(email.id(), message.id());
+                    // The fetch above has already listed the attachments
+                    loadAttachments(email, message);
                 } catch (Exception ex) {
                     messageContentArea.setText("Error loading message content: " + ex.getMessage());
                 }
@@ -550,6 +1032,135 @@ public final class TempEmailUI extends AbstractModule {
         }.execute();
     }
 
+    private void loadAttachments(TempEmail email, TempMessage message) {
+        showAttachments(email, List.of());
+        if (!message.hasAttachments()) return;
+
+        new SwingWorker<List<TempAttachment>, Void>() {
+            @Override
+            protected List<TempAttachment> doInBackground() throws Exception {
+                TempEmailImpl impl = TempEmailImpl.getInstance();
+                return impl.getAttachments(email.id(), message.id(), email.token());
+            }
+
+            @Override
+            protected void done() {
+                if (!isSelectedMessage(message)) return;
+                try {
+                    showAttachments(email, get());
+                } catch (Exception ex) {
+                    statusLabel.setText("Error loading attachments: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void showAttachments(TempEmail email, List<TempAttachment> attachments) {
+        attachmentsPanel.removeAll();
+        attachmentButtons.clear();
+        for (TempAttachment attachment : attachments) {
+            JButton button = createIconButton("", "Save " + attachment.filename());
+            button.setFont(new Font("JetBrains Mono", Font.PLAIN, 12));
+            button.setPreferredSize(null);
+            button.setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(new Color(0x555555), 1),
+                    new EmptyBorder(3, 8, 3, 8)
+            ));
+            button.addActionListener(e -> toggleDownload(email, attachment));
+            attachmentButtons.put(attachment.downloadUrl(), button);
+            updateAttachmentButton(attachment, -1, -1);
+            attachmentsPanel.add(button);
+        }
+
+        attachmentsPanel.setVisible(!attachments.isEmpty());
+        attachmentsPanel.revalidate();
+        attachmentsPanel.repaint();
+    }
+
+    /**
+     * Starts, cancels or resumes the download of an attachment.
+     */
+    private void toggleDownload(TempEmail email, TempAttachment attachment) {
+        AttachmentDownload running = downloads.get(attachment.downloadUrl());
+        if (running != null) {
+            running.cancel();
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new java.io.File(System.getProperty("user.home"), attachment.filename()));
+        if (chooser.showSaveDialog(ui) != JFileChooser.APPROVE_OPTION) return;
+        Path target = chooser.getSelectedFile().toPath();
+
+        final AttachmentDownload download = TempEmailImpl.getInstance().openDownload(email, attachment, target,
+                (done, total) -> SwingUtilities.invokeLater(() -> updateAttachmentButton(attachment, done, total)));
+        if (Files.exists(download.partFile())) {
+            statusLabel.setText("Resuming " + attachment.filename() + "...");
+        }
+        downloads.put(attachment.downloadUrl(), download);
+        updateAttachmentButton(attachment, 0, attachment.size());
+
+        new SwingWorker<Path, Void>() {
+            @Override
+            protected Path doInBackground() throws Exception {
+                return download.run();
+            }
+
+            @Override
+            protected void done() {
+                downloads.remove(attachment.downloadUrl());
+                updateAttachmentButton(attachment, -1, -1);
+                try {
+                    statusLabel.setText("Saved " + get().getFileName());
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof CancellationException) {
+                        statusLabel.setText("Download of " + attachment.filename() + " stopped; save to the same file to resume");
+                    } else {
+                        statusLabel.setText("Download failed: " + ex.getCause().getMessage());
+                        showErrorNotification("Failed to download " + attachment.filename());
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Shows an attachment's name and size, or its progress while it downloads.
+     * @param done the bytes downloaded, or -1 when no download is running.
+     */
+    private void updateAttachmentButton(TempAttachment attachment, long done, long total) {
+        JButton button = attachmentButtons.get(attachment.downloadUrl());
+        if (button == null) return;
+
+        if (done >= 0 && downloads.containsKey(attachment.downloadUrl())) {
+            String progress = total > 0 ? (done * 100 / total) + "%" : (done / 1024) + " KB";
+            button.setText("⏹ " + attachment.filename() + " " + progress);
+            button.setToolTipText("Downloading, click to stop");
+            statusLabel.setText("Downloading " + attachment.filename() + ": " + progress);
+        } else {
+            button.setText("📎 " + attachment.filename() + " (" + attachment.getReadableSize() + ")");
+            button.setToolTipText("Save " + attachment.filename());
+        }
+    }
+
+    private void showMessageContent(TempMessage message, String content) {
+        StringBuilder display = new StringBuilder();
+        display.append("Subject: ").append(message.subject()).append("\n");
+        display.append("From: ").append(message.from()).append("\n");
+        display.append("Date: ").append(formatLocal(message.receivedAt(), FULL_DATE)).append("\n");
+        display.append("─".repeat(60)).append("\n\n");
+        display.append(content);
+
+        messageContentArea.setText(display.toString());
+        messageContentArea.setCaretPosition(0);
+    }
+
+    private boolean isSelectedMessage(TempMessage message) {
+        return currentSelectedMessage != null && currentSelectedMessage.id().equals(message.id());
+    }
+
     private void highlightSelectedMessage(JPanel selectedCard) {
         for (Component comp : messagesPanel.getComponents()) {
             if (comp instanceof JPanel panel) {
@@ -578,7 +1189,7 @@ public final class TempEmailUI extends AbstractModule {
     private void toggleAutoRefresh(boolean enabled) {
         if (enabled) {
             startAutoRefresh();
-            statusLabel.setText("Auto-refresh enabled (30s interval)");
+            statusLabel.setText("Auto-refresh enabled for all addresses");
         } else {
             stopAutoRefresh();
             statusLabel.setText("Auto-refresh disabled");
@@ -586,25 +1197,49 @@ public final class TempEmailUI extends AbstractModule {
     }
 
     private void startAutoRefresh() {
-        if (pollingTimer != null) {
-            pollingTimer.stop();
+        if (poller == null) {
+            poller = new InboxPoller(TempEmailImpl.getInstance(), this::onInboxPolled);
         }
-
-        pollingTimer = new Timer(30000, e -> {
-            if (currentSelectedEmail != null) {
-                loadMessages(currentSelectedEmail);
-            }
-        });
-        pollingTimer.start();
+        poller.start();
         isPolling.set(true);
+
+        for (TempEmail email : activeEmails.values()) {
+            poller.track(email);
+            subscribe(email);
+        }
     }
 
     private void stopAutoRefresh() {
-        if (pollingTimer != null) {
-            pollingTimer.stop();
-            pollingTimer = null;
+        if (poller != null) {
+            poller.stop();
         }
         isPolling.set(false);
+
+        inboxStreams.values().forEach(InboxEventStream::close);
+        inboxStreams.clear();
+    }
+
+    private void subscribe(TempEmail email) {
+        if (inboxStreams.containsKey(email.id())) return;
+
+        InboxEventStream stream = TempEmailImpl.getInstance().subscribe(email, new InboxEventStream.Listener() {
+            @Override
+            public void onEvent(String id, String data) {
+                poller.wake(email.id());
+            }
+
+            @Override
+            public void onConnectionChanged(boolean connected) {
+                // Catch up on anything that arrived while the stream was down
+                if (connected) poller.wake(email.id());
+            }
+        });
+        inboxStreams.put(email.id(), stream);
+    }
+
+    private void unsubscribe(String accountId) {
+        InboxEventStream stream = inboxStreams.remove(accountId);
+        if (stream != null) stream.close();
     }
 
     private void clearAllEmails() {
@@ -617,21 +1252,36 @@ public final class TempEmailUI extends AbstractModule {
         );
 
         if (result == JOptionPane.YES_OPTION) {
+            for (String accountId : activeEmails.keySet()) {
+                MessageIndex.getInstance().removeAccount(accountId);
+            }
+            SpecterScheduler.scheduleNow(MessageBodyCache.getInstance()::clear); // disk I/O, keep it off the EDT
+            searchQuery = null;
+            searchField.setText("");
+
             emailsPanel.removeAll();
-            messagesPanel.removeAll();
+            clearMessages();
             messageContentArea.setText("");
             currentSelectedEmail = null;
+            activeEmails.clear();
+            unreadBadges.clear();
             stopAutoRefresh();
+            if (poller != null) poller.clear();
 
             emailsPanel.revalidate();
             emailsPanel.repaint();
-            messagesPanel.revalidate();
-            messagesPanel.repaint();
 
             statusLabel.setText("All emails cleared");
         }
     }
 
+    /**
+     * Formats a server timestamp in the user's own time zone.
+     */
+    private static String formatLocal(OffsetDateTime time, DateTimeFormatter formatter) {
+        return time.atZoneSameInstant(ZoneId.systemDefault()).format(formatter);
+    }
+
     private void showErrorNotification(String message) {
         ToastNotification.builder(SpecterForm.frame)
                 .setBackground(new Color(0xFF4444))
@@ -650,12 +1300,19 @@ public final class TempEmailUI extends AbstractModule {
 
     @Override
     public void onEnable() {
+        if (warmPool == null) {
+            warmPool = WarmAddressPool.fromConfig(TempEmailImpl.getInstance());
+        }
+        warmPool.start();
     }
 
 
     @Override
     public void onDisable() {
         stopAutoRefresh();
+        if (warmPool != null) {
+            warmPool.shutdown();
+        }
     }
 
     @Override
@@ -679,4 +1336,14 @@ public final class TempEmailUI extends AbstractModule {
     public JPanel getUI() {
         return ui;
     }
+
+    /**
+     * The card shown for one message, with the gap below it.
+     */
+    private record MessageRow(TempMessage message, JPanel card, Component gap) {}
+
+    /**
+     * A card and how far into it the viewport starts.
+     */
+    private record ScrollAnchor(String messageId, int offset) {}
 }
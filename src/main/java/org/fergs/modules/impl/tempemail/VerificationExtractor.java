@@ -0,0 +1,415 @@
+package org.fergs.modules.impl.tempemail;
+
+import org.fergs.utils.KeywordAutomaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * VerificationExtractor pulls one-time codes and verification links out of a message, so they
+ * can be copied without reading through the mail.
+ * <p>
+ * Every pattern it looks for, namely the cue words that introduce a code or a link, the words
+ * that mark a link as unwanted and the URL schemes, is compiled into a single
+ * {@link KeywordAutomaton}, and the text is walked once to collect all of their positions.
+ * <p>
+ * A code is a run of 4 to 8 digits, optionally grouped as "123 456" or "123-456", or a 6 to 10
+ * character run of capitals and digits, that appears close to a cue such as "code" or
+ * "verification". A link is a URL that has a cue in its path or close to it, and is closer to
+ * that cue than to any "unsubscribe"; in HTML only anchor targets count. Candidates are ranked
+ * by how close their cue is and only the best few are kept.
+ * <p>
+ * Only the text near a cue is examined for codes, so the cost is one automaton pass over the
+ * message plus a little work per cue.
+ * <p>
+ * Example usage:
+ * <pre>
+ * VerificationExtractor.Extraction found = VerificationExtractor.extract(subject, text, html);
+ * found.codes(); // ["482913"]
+ * </pre>
+ * </p>
+ * @Author Fergs32
+ */
+public final class VerificationExtractor {
+    private static final long CODE_CUE = 1L;
+    private static final long LINK_CUE = 1L << 1;
+    private static final long EXCLUDED = 1L << 2;
+    private static final long HTTP = 1L << 3;
+    private static final long HTTPS = 1L << 4;
+
+    private static final int MAX_CODES = 2;
+    private static final int MAX_LINKS = 2;
+    private static final int MAX_CODE_LENGTH = 10;
+    // How far a code may follow or precede its cue, e.g. "Your code is 123456" or "123456 is your code"
+    private static final int CODE_CUE_BEFORE = 80;
+    private static final int CODE_CUE_AFTER = 40;
+    private static final int LINK_CUE_BEFORE = 120;
+    private static final int LINK_CUE_AFTER = 40;
+    // In HTML a cue after the link counts only inside its anchor, which can follow a long style attribute
+    private static final int ANCHOR_TEXT_LIMIT = 600;
+    private static final int MAX_URL_LENGTH = 2048;
+
+    private static final KeywordAutomaton AUTOMATON = KeywordAutomaton.builder()
+            .addWord("code", CODE_CUE)
+            .addWord("otp", CODE_CUE)
+            .addWord("pin", CODE_CUE)
+            .addWord("2fa", CODE_CUE)
+            .add("passcode", CODE_CUE)
+            .add("one-time", CODE_CUE)
+            .add("one time", CODE_CUE)
+            .add("authenticat", CODE_CUE)
+            .add("verif", CODE_CUE | LINK_CUE)
+            .add("confirm", CODE_CUE | LINK_CUE)
+            .add("token", CODE_CUE | LINK_CUE)
+            .add("activat", LINK_CUE)
+            .add("validat", LINK_CUE)
+            .add("magic", LINK_CUE)
+            .addWord("signin", LINK_CUE)
+            .addWord("sign-in", LINK_CUE)
+            .addWord("sign in", LINK_CUE)
+            .addWord("login", LINK_CUE)
+            .add("log in", LINK_CUE)
+            .add("reset", LINK_CUE)
+            .add("unsubscribe", EXCLUDED)
+            .add("opt-out", EXCLUDED)
+            .add("optout", EXCLUDED)
+            .add("http://", HTTP)
+            .add("https://", HTTPS)
+            .build();
+
+    private VerificationExtractor() {}
+
+    /**
+     * Finds the codes and verification links in a message.
+     * @param subject the subject, may be null.
+     * @param text the plain text body, may be null.
+     * @param html the HTML body, may be null; links are taken from it when present, since the
+     *             plain text rendering drops the targets of anchors.
+     * @return what was found, never null.
+     */
+    public static Extraction extract(String subject, String text, String html) {
+        String plain = subject == null ? text : text == null ? subject : subject + "\n" + text;
+        List<String> codes = plain == null ? List.of() : findCodes(plain);
+        List<String> links;
+        if (html != null && !html.isEmpty()) {
+            links = findLinks(html, true);
+        } else {
+            links = plain == null ? List.of() : findLinks(plain, false);
+        }
+        return codes.isEmpty() && links.isEmpty() ? Extraction.EMPTY : new Extraction(codes, links);
+    }
+
+    private static List<String> findCodes(String text) {
+        Matches matches = Matches.of(text);
+
+        // Cue words inside a URL say nothing about the codes around it
+        int[] cues = new int[matches.size];
+        int cueCount = 0;
+        for (int k = 0; k < matches.size; k++) {
+            if ((matches.masks[k] & CODE_CUE) != 0 && !matches.inUrl[k]) cues[cueCount++] = matches.ends[k];
+        }
+        if (cueCount == 0) return List.of();
+        cues = Arrays.copyOf(cues, cueCount);
+
+        List<Candidate> candidates = new ArrayList<>();
+        final int length = text.length();
+        int scanned = 0;
+        for (int cue : cues) {
+            // Codes can only sit in a window around a cue; windows of nearby cues are walked once
+            int i = Math.max(scanned, cue - CODE_CUE_AFTER - MAX_CODE_LENGTH);
+            int limit = Math.min(length, cue + CODE_CUE_BEFORE + MAX_CODE_LENGTH);
+            if (i > 0 && i != scanned && isAsciiLetterOrDigit(text.charAt(i - 1))) i = runEnd(text, i);
+
+            while (i < limit) {
+                if (!isAsciiLetterOrDigit(text.charAt(i))) {
+                    i++;
+                    continue;
+                }
+
+                int start = i;
+                int end = runEnd(text, start);
+                i = end;
+                if (end - start > MAX_CODE_LENGTH) continue;
+
+                // "123 456" and "123-456" are one code
+                boolean grouped = end - start == 3 && isDigits(text, start, end) && end + 4 <= length
+                        && (text.charAt(end) == ' ' || text.charAt(end) == '-')
+                        && runEnd(text, end + 1) == end + 4 && isDigits(text, end + 1, end + 4);
+                if (grouped) i = end += 4;
+
+                int score = scoreCode(text, start, end, grouped, cues);
+                if (score < 0 || matches.inUrl(start)) continue;
+                String code = grouped
+                        ? text.substring(start, start + 3) + text.substring(start + 4, end)
+                        : text.substring(start, end);
+                candidates.add(new Candidate(code, score));
+            }
+            scanned = Math.max(scanned, i);
+        }
+        return best(candidates, MAX_CODES);
+    }
+
+    /**
+     * Scores a code candidate; lower is better.
+     * @param grouped whether the run is a "123 456" style code, separator included.
+     * @return the score, or -1 if the run does not look like a code.
+     */
+    private static int scoreCode(String text, int start, int end, boolean grouped, int[] cues) {
+        final int length = grouped ? 6 : end - start;
+        final boolean digits = grouped || isDigits(text, start, end);
+        if (digits) {
+            if (length < 4 || length > 8) return -1;
+        } else {
+            if (length < 6 || length > MAX_CODE_LENGTH) return -1;
+            boolean hasDigit = false;
+            boolean hasLetter = false;
+            for (int k = start; k < end; k++) {
+                char c = text.charAt(k);
+                if (c >= 'a' && c <= 'z') return -1;
+                if (isDigit(c)) hasDigit = true; else hasLetter = true;
+            }
+            if (!hasDigit || !hasLetter) return -1;
+        }
+
+        // Prices, colours, times, decimals, phone numbers, paths and email addresses are not codes
+        char before = start > 0 ? text.charAt(start - 1) : ' ';
+        char after = end < text.length() ? text.charAt(end) : ' ';
+        char beforeThat = start > 1 ? text.charAt(start - 2) : ' ';
+        char afterThat = end + 1 < text.length() ? text.charAt(end + 1) : ' ';
+        if ("#$\u00A3\u20AC@/\\_&=?%+".indexOf(before) >= 0) return -1;
+        if ("@/\\_%".indexOf(after) >= 0) return -1;
+        if (".,: -".indexOf(before) >= 0 && isDigit(beforeThat)) return -1;
+        if (".,: -".indexOf(after) >= 0 && isDigit(afterThat)) return -1;
+
+        int distance = cueDistance(cues, start, end);
+        if (distance < 0) return -1;
+        if (digits && length == 4 && (text.startsWith("19", start) || text.startsWith("20", start)) && distance > 12) {
+            return -1; // most likely a year
+        }
+        return distance + (length == 6 ? 0 : 10);
+    }
+
+    /**
+     * Returns the distance from a code to the closest cue that may introduce it, or -1 if
+     * none is close enough.
+     */
+    private static int cueDistance(int[] cues, int start, int end) {
+        int at = Arrays.binarySearch(cues, start);
+        if (at < 0) at = -at - 1;
+
+        int best = -1;
+        if (at > 0 && start - cues[at - 1] <= CODE_CUE_BEFORE) best = start - cues[at - 1];
+        while (at < cues.length && cues[at] < end) at++; // a cue ending inside the code itself
+        if (at < cues.length) {
+            // A cue's end is past its start, so allow for the cue's own length
+            int distance = cues[at] - end;
+            if (distance <= CODE_CUE_AFTER + 12 && (best < 0 || distance < best)) best = distance;
+        }
+        return best;
+    }
+
+    /**
+     * @param html whether the source is HTML, in which case only anchor targets are links.
+     */
+    private static List<String> findLinks(String source, boolean html) {
+        Matches matches = Matches.of(source);
+        List<Candidate> candidates = new ArrayList<>();
+
+        for (int k = 0; k < matches.size; k++) {
+            long mask = matches.masks[k];
+            if ((mask & (HTTP | HTTPS)) == 0 || matches.inUrl[k]) continue;
+
+            int start = matches.ends[k] - ((mask & HTTPS) != 0 ? 8 : 7);
+            int end = urlEnd(source, matches.ends[k]);
+            if (end - matches.ends[k] < 4) continue;
+            if (html && !isHref(source, start)) continue;
+
+            int afterLimit = end + LINK_CUE_AFTER;
+            if (html) {
+                int anchorEnd = indexOfIgnoreCase(source, "</a", end, end + ANCHOR_TEXT_LIMIT);
+                afterLimit = anchorEnd < 0 ? end : anchorEnd;
+            }
+
+            int score = scoreLink(matches, k, start, end, afterLimit);
+            if (score < 0) continue;
+
+            String url = source.substring(start, end);
+            if (html) url = url.replace("&amp;", "&");
+            String lower = url.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".png") || lower.endsWith(".jpg") || lower.endsWith(".gif") || lower.endsWith(".svg")) {
+                continue;
+            }
+            candidates.add(new Candidate(url, score));
+        }
+        return best(candidates, MAX_LINKS);
+    }
+
+    /**
+     * Scores a link by its nearest cue; lower is better. Cues and "unsubscribe" words count
+     * inside the URL, before it back to the previous URL, and after it up to the limit.
+     * @param k the index of the match for the URL's scheme.
+     * @return the score, or -1 if the link has no cue or is closer to an "unsubscribe".
+     */
+    private static int scoreLink(Matches matches, int k, int start, int end, int afterLimit) {
+        int cue = -1;
+        int excluded = -1;
+
+        for (int j = k - 1; j >= 0 && start - matches.ends[j] <= LINK_CUE_BEFORE; j--) {
+            long mask = matches.masks[j];
+            if (matches.inUrl[j] || (mask & (HTTP | HTTPS)) != 0) break; // the previous link's cues are its own
+            int distance = start - matches.ends[j];
+            if (cue < 0 && (mask & LINK_CUE) != 0) cue = distance;
+            if (excluded < 0 && (mask & EXCLUDED) != 0) excluded = distance;
+        }
+
+        for (int j = k + 1; j < matches.size && matches.ends[j] <= afterLimit; j++) {
+            long mask = matches.masks[j];
+            int position = matches.ends[j];
+            if (position > end && (mask & (HTTP | HTTPS)) != 0) break;
+            int distance = position <= end ? 0 : position - end;
+            if ((mask & LINK_CUE) != 0 && (cue < 0 || distance < cue)) cue = distance;
+            if ((mask & EXCLUDED) != 0 && (excluded < 0 || distance < excluded)) excluded = distance;
+        }
+
+        if (cue < 0 || (excluded >= 0 && excluded <= cue)) return -1;
+        return cue;
+    }
+
+    private static boolean isHref(String source, int start) {
+        int at = start;
+        if (at > 0 && (source.charAt(at - 1) == '"' || source.charAt(at - 1) == '\'')) at--;
+        return at >= 5 && source.regionMatches(true, at - 5, "href=", 0, 5);
+    }
+
+    private static int indexOfIgnoreCase(String source, String target, int from, int to) {
+        int last = Math.min(source.length(), to) - target.length();
+        for (int i = from; i <= last; i++) {
+            if (source.regionMatches(true, i, target, 0, target.length())) return i;
+        }
+        return -1;
+    }
+
+    private static int urlEnd(String source, int from) {
+        final int limit = Math.min(source.length(), from + MAX_URL_LENGTH);
+        int end = from;
+        while (end < limit) {
+            char c = source.charAt(end);
+            if (c <= ' ' || c == '"' || c == '\'' || c == '<' || c == '>' || c == '`' || c == '\u00A0') break;
+            end++;
+        }
+        // Sentence punctuation after a URL in plain text
+        while (end > from && ".,;:!?)]".indexOf(source.charAt(end - 1)) >= 0) end--;
+        return end;
+    }
+
+    private static List<String> best(List<Candidate> candidates, int limit) {
+        if (candidates.isEmpty()) return List.of();
+        candidates.sort((a, b) -> Integer.compare(a.score(), b.score()));
+
+        Set<String> best = new LinkedHashSet<>();
+        for (Candidate candidate : candidates) {
+            best.add(candidate.value());
+            if (best.size() == limit) break;
+        }
+        return List.copyOf(best);
+    }
+
+    private static int runEnd(String text, int from) {
+        int end = from;
+        while (end < text.length() && isAsciiLetterOrDigit(text.charAt(end))) end++;
+        return end;
+    }
+
+    private static boolean isDigits(String text, int from, int to) {
+        for (int k = from; k < to; k++) {
+            if (!isDigit(text.charAt(k))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Every keyword match in a text in order of position, with the spans of the URLs in it.
+     */
+    private static final class Matches {
+        private int[] ends = new int[16];
+        private long[] masks = new long[16];
+        private boolean[] inUrl;
+        private int size;
+        private int[] urlStarts = new int[4];
+        private int[] urlEnds = new int[4];
+        private int urls;
+
+        private static Matches of(String text) {
+            Matches matches = new Matches();
+            AUTOMATON.scan(text, matches::add);
+
+            // Flag the matches that fall inside a URL, such as "token" in "?token=..."
+            matches.inUrl = new boolean[matches.size];
+            int urlEnd = -1;
+            for (int k = 0; k < matches.size; k++) {
+                long mask = matches.masks[k];
+                if (matches.ends[k] <= urlEnd) {
+                    matches.inUrl[k] = true;
+                } else if ((mask & (HTTP | HTTPS)) != 0) {
+                    urlEnd = urlEnd(text, matches.ends[k]);
+                    matches.addUrl(matches.ends[k] - ((mask & HTTPS) != 0 ? 8 : 7), urlEnd);
+                }
+            }
+            return matches;
+        }
+
+        private void add(int end, long mask) {
+            if (size == ends.length) {
+                ends = Arrays.copyOf(ends, size * 2);
+                masks = Arrays.copyOf(masks, size * 2);
+            }
+            ends[size] = end;
+            masks[size] = mask;
+            size++;
+        }
+
+        private void addUrl(int start, int end) {
+            if (urls == urlStarts.length) {
+                urlStarts = Arrays.copyOf(urlStarts, urls * 2);
+                urlEnds = Arrays.copyOf(urlEnds, urls * 2);
+            }
+            urlStarts[urls] = start;
+            urlEnds[urls] = end;
+            urls++;
+        }
+
+        private boolean inUrl(int position) {
+            int at = Arrays.binarySearch(urlStarts, 0, urls, position);
+            if (at >= 0) return true;
+            at = -at - 2; // the last URL starting before the position
+            return at >= 0 && position < urlEnds[at];
+        }
+    }
+
+    private record Candidate(String value, int score) {}
+
+    /**
+     * The codes and links found in a message, best first.
+     * @param codes one-time codes, at most two.
+     * @param links verification links, at most two.
+     */
+    public record Extraction(List<String> codes, List<String> links) {
+        public static final Extraction EMPTY = new Extraction(List.of(), List.of());
+
+        public boolean isEmpty() {
+            return codes.isEmpty() && links.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.fergs.modules.impl.tempemail;
+
+import org.fergs.Specter;
+import org.fergs.configuration.YamlConfigFile;
+import org.fergs.managers.LoggingManager;
+import org.fergs.objects.TempEmail;
+import org.fergs.scheduler.SpecterScheduler;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * WarmAddressPool keeps a few temp mail addresses created and authenticated ahead of time, so
+ * "Create Email" can hand one out without waiting on the account and token calls.
+ * <p>
+ * The pool refills in the background on {@link SpecterScheduler}, both periodically and right
+ * after an address is taken. Addresses that sit in the pool longer than the TTL are deleted
+ * from mail.tm and replaced. All pooled addresses are deleted when the pool shuts down, and
+ * from a JVM shutdown hook if Specter exits without disabling the module first.
+ * <p>
+ * The size and TTL come from the temp-email.warm-pool section of modules.yml. The size
+ * defaults to 0, which disables the pool, since every pooled address is a real account.
+ *
+ * @Author Fergs32
+ */
+public final class WarmAddressPool {
+    private static final LoggingManager LOGGER = LoggingManager.getInstance();
+    private static final long MAINTAIN_INTERVAL_SECONDS = 30;
+
+    private final TempEmailImpl api;
+    private final int size;
+    private final long ttlMillis;
+    private final Deque<Pooled> pool = new ConcurrentLinkedDeque<>();
+    private final AtomicBoolean maintaining = new AtomicBoolean(false);
+    private volatile boolean running;
+    private ScheduledFuture<?> ticker;
+    private Thread exitHook;
+
+    /**
+     * @param api the mail.tm client used to create and delete addresses.
+     * @param size how many addresses to keep ready; 0 disables the pool.
+     * @param ttl how long a pooled address may wait before it is replaced.
+     */
+    public WarmAddressPool(TempEmailImpl api, int size, Duration ttl) {
+        this.api = api;
+        this.size = Math.max(0, size);
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Builds a pool sized from the temp-email.warm-pool section of modules.yml.
+     */
+    public static WarmAddressPool fromConfig(TempEmailImpl api) {
+        YamlConfigFile config = Specter.getInstance().getConfigurationManager().getConfig("modules");
+        int size = config != null ? config.getInt("temp-email.warm-pool.size", 0) : 0;
+        int ttlMinutes = config != null ? config.getInt("temp-email.warm-pool.ttl-minutes", 30) : 30;
+        return new WarmAddressPool(api, size, Duration.ofMinutes(ttlMinutes));
+    }
+
+    /**
+     * Starts filling the pool. Does nothing if the pool is disabled or already running.
+     */
+    public synchronized void start() {
+        if (size == 0 || running) return;
+        running = true;
+        ticker = SpecterScheduler.scheduleWithFixedDelay(this::maintain, 0, MAINTAIN_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        if (exitHook == null) {
+            // The scheduler is gone by the time the JVM exits, so delete on the hook's own thread
+            exitHook = new Thread(() -> {
+                running = false;
+                drain();
+            }, "WarmAddressPool-Exit");
+            Runtime.getRuntime().addShutdownHook(exitHook);
+        }
+    }
+
+    /**
+     * Takes a ready address from the pool without blocking.
+     * @return a created and authenticated address, or null if none is ready.
+     */
+    public TempEmail poll() {
+        long now = System.currentTimeMillis();
+        Pooled pooled;
+        while ((pooled = pool.pollFirst()) != null) {
+            if (now - pooled.provisionedAt() <= ttlMillis) break;
+            final TempEmail expired = pooled.email();
+            SpecterScheduler.scheduleNow(() -> delete(expired)); // never block the caller on the network
+        }
+
+        if (running) SpecterScheduler.scheduleNow(this::maintain);
+        return pooled != null ? pooled.email() : null;
+    }
+
+    /**
+     * Stops refilling and deletes every address still in the pool.
+     */
+    public synchronized void shutdown() {
+        if (!running) return;
+        running = false;
+        ticker.cancel(false);
+        ticker = null;
+
+        SpecterScheduler.scheduleNow(this::drain);
+    }
+
+    private void drain() {
+        Pooled pooled;
+        while ((pooled = pool.pollFirst()) != null) {
+            delete(pooled.email());
+        }
+    }
+
+    /**
+     * Replaces expired addresses and tops the pool up to its size.
+     */
+    private void maintain() {
+        if (!maintaining.compareAndSet(false, true)) return;
+        try {
+            long now = System.currentTimeMillis();
+            pool.removeIf(pooled -> {
+                boolean expired = now - pooled.provisionedAt() > ttlMillis;
+                if (expired) delete(pooled.email());
+                return expired;
+            });
+
+            while (running && pool.size() < size) {
+                Pooled pooled = new Pooled(api.createTempEmail(), System.currentTimeMillis());
+                pool.addLast(pooled);
+                // Shut down while this one was being created, after the pool was drained
+                if (!running && pool.removeLastOccurrence(pooled)) {
+                    delete(pooled.email());
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to refill warm address pool: " + e.getMessage());
+        } finally {
+            maintaining.set(false);
+        }
+    }
+
+    private void delete(TempEmail email) {
+        try {
+            api.deleteEmail(email.id(), email.token());
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to delete pooled address " + email.address() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * An address waiting in the pool and when it was created.
+     */
+    private record Pooled(TempEmail email, long provisionedAt) {}
+}
@@ -6,7 +6,8 @@ import lombok.Setter;
 import java.util.logging.Level;
 
 /**
- * Internal class to represent a log entry
+ * Internal class to represent a log entry. The message is formatted later, on the logging
+ * thread, so the time and the name of the logging thread are taken when the entry is created.
  */
 @Getter @Setter
 public final class LogEntry {
@@ -14,11 +15,22 @@ public final class LogEntry {
     public final String message;
     public final Throwable throwable;
     public final Object[] params;
+    public final long timestamp;
+    public final String thread;
 
     public LogEntry(Level level, String message, Throwable throwable, Object[] params) {
+        this(level, message, throwable, params, System.currentTimeMillis());
+    }
+
+    /**
+     * @param timestamp when the event happened, in epoch milliseconds.
+     */
+    public LogEntry(Level level, String message, Throwable throwable, Object[] params, long timestamp) {
         this.level = level;
         this.message = message;
         this.throwable = throwable;
         this.params = params;
+        this.timestamp = timestamp;
+        this.thread = Thread.currentThread().getName();
     }
 }
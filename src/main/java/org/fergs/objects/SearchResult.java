@@ -4,9 +4,14 @@ package org.fergs.objects;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 @Getter @Setter
 public final class SearchResult {
     public final String title, url, thumbnail;
+    /** Near-duplicates collapsed into this result, e.g. the same profile under another locale. */
+    public final List<SearchResult> variants = new CopyOnWriteArrayList<>();
     public SearchResult(String t, String u, String th) {
         title = t; url = u; thumbnail = th;
     }
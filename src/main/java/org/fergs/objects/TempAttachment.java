@@ -0,0 +1,32 @@
+package org.fergs.objects;
+
+/**
+ * Represents a file attached to a message in a temporary email inbox.
+ *
+ * @param id          The attachment's identifier within its message (e.g., ATTACH000001)
+ * @param filename    The file name given by the sender
+ * @param contentType The MIME type of the file
+ * @param size        The size reported by the server in bytes, or -1 if unknown. mail.tm reports
+ *                    attachment sizes in kilobytes, so this is only accurate to the kilobyte;
+ *                    the download's Content-Length is the exact size
+ * @param downloadUrl The API path the file is downloaded from (e.g., /messages/{id}/attachment/ATTACH000001)
+ *
+ * @Author Fergs32
+ */
+public record TempAttachment(
+    String id,
+    String filename,
+    String contentType,
+    long size,
+    String downloadUrl
+) {
+    /**
+     * Returns the size in a human-readable form, e.g. "1.4 MB".
+     */
+    public String getReadableSize() {
+        if (size < 0) return "unknown size";
+        if (size < 1024) return size + " B";
+        if (size < 1024 * 1024) return String.format("%.1f KB", size / 1024.0);
+        return String.format("%.1f MB", size / (1024.0 * 1024.0));
+    }
+}
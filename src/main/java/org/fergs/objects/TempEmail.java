@@ -1,6 +1,6 @@
 package org.fergs.objects;
 
-import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 
 /**
  * Represents a temporary email address with its associated metadata.
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
  * @param address   The full email address (e.g., user@domain.com)
  * @param password  The password for the email account
  * @param token     JWT authentication token for API access
- * @param createdAt The timestamp when the email was created
+ * @param createdAt The timestamp when the email was created, with the offset sent by the server
  *
  * @Author Fergs32
  */
@@ -19,13 +19,13 @@ public record TempEmail(
     String address,
     String password,
     String token,
-    LocalDateTime createdAt
+    OffsetDateTime createdAt
 ) {
     /**
      * Creates a TempEmail with the current timestamp.
      */
     public static TempEmail create(String id, String address, String password, String token) {
-        return new TempEmail(id, address, password, token, LocalDateTime.now());
+        return new TempEmail(id, address, password, token, OffsetDateTime.now());
     }
 
     /**
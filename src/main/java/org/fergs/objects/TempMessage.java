@@ -1,6 +1,6 @@
 package org.fergs.objects;
 
-import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 
 /**
  * Represents a message received in a temporary email inbox.
@@ -9,8 +9,9 @@ import java.time.LocalDateTime;
  * @param id         The unique identifier for the message
  * @param subject    The subject line of the email
  * @param from       The sender's email address
- * @param receivedAt The timestamp when the message was received
+ * @param receivedAt The timestamp when the message was received, with the offset sent by the server
  * @param isRead     Whether the message has been read/viewed
+ * @param hasAttachments Whether the message carries any attachments
  *
  * @Author Fergs32
  */
@@ -18,14 +19,15 @@ public record TempMessage(
     String id,
     String subject,
     String from,
-    LocalDateTime receivedAt,
-    boolean isRead
+    OffsetDateTime receivedAt,
+    boolean isRead,
+    boolean hasAttachments
 ) {
     /**
      * Creates a TempMessage with the current timestamp and unread status.
      */
     public static TempMessage create(String id, String subject, String from) {
-        return new TempMessage(id, subject, from, LocalDateTime.now(), false);
+        return new TempMessage(id, subject, from, OffsetDateTime.now(), false, false);
     }
 
     /**
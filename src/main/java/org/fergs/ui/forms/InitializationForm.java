@@ -166,6 +166,7 @@ public class InitializationForm extends AbstractForm {
 
                     publish("Loading configuration(s)...");
                     cfgm.loadFromClasspath("modules", "modules.yml");
+                    Specter.getInstance().getLogger().configure(cfgm.getConfig("modules"));
                     Thread.sleep(1000);
                     return null;
                 } catch (Exception e) {
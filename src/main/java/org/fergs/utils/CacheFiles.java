@@ -0,0 +1,158 @@
+package org.fergs.utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CacheFiles holds the file handling shared by the on-disk caches: file names derived from a
+ * key, length-prefixed strings, gzip-compressed data files, and writes that never leave a
+ * half-written file where a reader could find it.
+ * <p>
+ * A file name is only the SHA-256 of its key, so caches store the full key inside the file and
+ * compare it on read; two keys with the same hash then read as a miss instead of as each
+ * other's entry.
+ * <p>
+ * Example usage:
+ * <pre>
+ * Path file = dir.resolve(CacheFiles.hash(query) + ".gz");
+ * CacheFiles.writeCompressed(file, out -> CacheFiles.writeString(out, query));
+ * try (DataInputStream in = CacheFiles.openCompressed(file)) {
+ *     String stored = CacheFiles.readString(in);
+ * }
+ * </pre>
+ * </p>
+ * @Author Fergs32
+ */
+public final class CacheFiles {
+    /** Longest string {@link #readString} accepts; anything longer is a corrupt length prefix. */
+    private static final int MAX_STRING_BYTES = 64 * 1024 * 1024;
+
+    private CacheFiles() {}
+
+    /**
+     * Writes the content of a cache file.
+     */
+    @FunctionalInterface
+    public interface Writer<T extends OutputStream> {
+        void write(T out) throws IOException;
+    }
+
+    /**
+     * Returns the SHA-256 of a key as 64 lowercase hex digits, for use as a file name.
+     */
+    public static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Writes a file through a temporary file in the same directory and moves it into place, so a
+     * concurrent reader sees either the old file or the complete new one. If the write fails
+     * the temporary file is deleted and the target is left as it was.
+     * @param target the file to write; its directory is created if needed.
+     */
+    public static void write(Path target, Writer<OutputStream> writer) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "cache", ".tmp");
+
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                writer.write(out);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(tmp);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a gzip-compressed data file with {@link #write}.
+     */
+    public static void writeCompressed(Path target, Writer<DataOutputStream> writer) throws IOException {
+        write(target, out -> {
+            try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(out)))) {
+                writer.write(data);
+            }
+        });
+    }
+
+    /**
+     * Opens a file written by {@link #writeCompressed}.
+     */
+    public static DataInputStream openCompressed(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        try {
+            return new DataInputStream(new BufferedInputStream(new GZIPInputStream(in)));
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its bytes; null is written as "".
+     */
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     * @throws StreamCorruptedException if the length prefix is negative or implausibly large.
+     */
+    public static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new StreamCorruptedException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deletes the files in a cache directory that were last written more than maxAgeMillis ago,
+     * including temporary files left behind by a crash. A missing directory is ignored.
+     * @param glob the cache files to consider, e.g. "*.gz"; temporary files are always included.
+     * @return the number of files deleted.
+     */
+    public static int deleteOlderThan(Path dir, String glob, long maxAgeMillis) {
+        if (!Files.isDirectory(dir)) return 0;
+
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "{" + glob + ",cache*.tmp}")) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < cutoff && Files.deleteIfExists(file)) deleted++;
+                } catch (IOException ignored) {
+                    // Deleted or locked by someone else meanwhile
+                }
+            }
+        } catch (IOException ignored) {}
+        return deleted;
+    }
+
+    public static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {}
+    }
+}
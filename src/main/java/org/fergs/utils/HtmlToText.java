@@ -0,0 +1,284 @@
+package org.fergs.utils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * HtmlToText turns an HTML document into readable plain text in a single left-to-right pass.
+ * <p>
+ * Tags are dropped. Block tags become line breaks: paragraphs, headings and lists get a blank
+ * line, other blocks a single one. Whitespace is collapsed the way a browser does, except inside
+ * {@code <pre>}. Named and numeric entities are decoded, and the content of {@code <style>} and
+ * {@code <script>} elements and comments is skipped. Invisible spacer characters, which many
+ * marketing emails use to pad their preview text, are dropped. Runs of blank lines collapse to
+ * one and the result is trimmed.
+ * <p>
+ * Example usage:
+ * <pre>
+ * String text = HtmlToText.convert("&lt;p&gt;Hello&amp;nbsp;&lt;b&gt;world&lt;/b&gt;&lt;/p&gt;"); // "Hello world"
+ * </pre>
+ * </p>
+ * @Author Fergs32
+ */
+public final class HtmlToText {
+    private static final Set<String> PARAGRAPH_TAGS = Set.of(
+            "p", "h1", "h2", "h3", "h4", "h5", "h6", "ul", "ol", "dl", "blockquote", "pre", "table", "hr"
+    );
+    private static final Set<String> LINE_TAGS = Set.of(
+            "div", "tr", "li", "dt", "dd", "section", "article", "header", "footer", "nav", "aside",
+            "main", "address", "figure", "figcaption", "center", "form", "fieldset", "title"
+    );
+    private static final Set<String> CELL_TAGS = Set.of("td", "th");
+    private static final Set<String> SKIPPED_TAGS = Set.of("style", "script");
+
+    private static final Map<String, Integer> ENTITIES = Map.ofEntries(
+            Map.entry("nbsp", 0xA0), Map.entry("amp", (int) '&'), Map.entry("lt", (int) '<'),
+            Map.entry("gt", (int) '>'), Map.entry("quot", (int) '"'), Map.entry("apos", (int) '\''),
+            Map.entry("copy", 0xA9), Map.entry("reg", 0xAE), Map.entry("trade", 0x2122),
+            Map.entry("hellip", 0x2026), Map.entry("mdash", 0x2014), Map.entry("ndash", 0x2013),
+            Map.entry("lsquo", 0x2018), Map.entry("rsquo", 0x2019), Map.entry("ldquo", 0x201C),
+            Map.entry("rdquo", 0x201D), Map.entry("bull", 0x2022), Map.entry("middot", 0xB7),
+            Map.entry("euro", 0x20AC), Map.entry("pound", 0xA3), Map.entry("yen", 0xA5),
+            Map.entry("cent", 0xA2), Map.entry("deg", 0xB0), Map.entry("times", 0xD7),
+            Map.entry("laquo", 0xAB), Map.entry("raquo", 0xBB), Map.entry("ensp", 0x2002),
+            Map.entry("emsp", 0x2003), Map.entry("thinsp", 0x2009), Map.entry("zwnj", 0x200C),
+            Map.entry("zwj", 0x200D), Map.entry("shy", 0xAD)
+    );
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    private final String html;
+    private final StringBuilder out;
+    private int pendingBreaks;
+    private boolean pendingSpace;
+    private int preDepth;
+
+    private HtmlToText(String html) {
+        this.html = html;
+        this.out = new StringBuilder(html.length() / 2);
+    }
+
+    /**
+     * Converts HTML to plain text.
+     * @param html the HTML to convert, may be null.
+     * @return the text content, or an empty string for null input.
+     */
+    public static String convert(String html) {
+        if (html == null || html.isEmpty()) return "";
+        HtmlToText converter = new HtmlToText(html);
+        converter.run();
+        return converter.out.toString();
+    }
+
+    private void run() {
+        final int length = html.length();
+        int i = 0;
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                i = tag(i);
+            } else if (c == '&') {
+                i = entity(i);
+            } else {
+                text(c);
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Handles the markup starting at a '<' and returns the index just past it.
+     */
+    private int tag(int start) {
+        final int length = html.length();
+        if (start + 1 >= length) {
+            text('<');
+            return length;
+        }
+
+        char next = html.charAt(start + 1);
+        if (next == '!') {
+            if (html.startsWith("--", start + 2)) {
+                int end = html.indexOf("-->", start + 4);
+                return end < 0 ? length : end + 3;
+            }
+            return skipPast('>', start + 2); // doctype or CDATA
+        }
+        if (next == '?') {
+            return skipPast('>', start + 2);
+        }
+
+        boolean closing = next == '/';
+        int nameStart = closing ? start + 2 : start + 1;
+        if (nameStart >= length || !isAsciiLetter(html.charAt(nameStart))) {
+            // A bare '<' in text, e.g. "a < b"
+            text('<');
+            return start + 1;
+        }
+
+        int nameEnd = nameStart + 1;
+        while (nameEnd < length && isAsciiLetterOrDigit(html.charAt(nameEnd))) nameEnd++;
+        String name = html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+
+        // Find the closing '>', ignoring any inside quoted attribute values
+        int end = nameEnd;
+        char quote = 0;
+        while (end < length) {
+            char c = html.charAt(end);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                break;
+            }
+            end++;
+        }
+        boolean selfClosing = end < length && html.charAt(end - 1) == '/';
+        int after = Math.min(length, end + 1);
+
+        if (!closing && !selfClosing && SKIPPED_TAGS.contains(name)) {
+            return skipElement(name, after);
+        }
+
+        if (name.equals("br")) {
+            pendingBreaks = Math.min(2, pendingBreaks + 1);
+        } else if (PARAGRAPH_TAGS.contains(name)) {
+            pendingBreaks = 2;
+            if (name.equals("pre") && !selfClosing) {
+                preDepth = closing ? Math.max(0, preDepth - 1) : preDepth + 1;
+            }
+        } else if (LINE_TAGS.contains(name)) {
+            pendingBreaks = Math.max(pendingBreaks, 1);
+        } else if (CELL_TAGS.contains(name)) {
+            pendingSpace = true;
+        }
+        return after;
+    }
+
+    /**
+     * Skips the content of an element such as style or script, up to and including its end tag.
+     */
+    private int skipElement(String name, int from) {
+        final int length = html.length();
+        int i = from;
+        while ((i = html.indexOf("</", i)) >= 0) {
+            if (html.regionMatches(true, i + 2, name, 0, name.length())) {
+                return skipPast('>', i + 2 + name.length());
+            }
+            i += 2;
+        }
+        return length;
+    }
+
+    private int skipPast(char target, int from) {
+        int end = html.indexOf(target, from);
+        return end < 0 ? html.length() : end + 1;
+    }
+
+    /**
+     * Decodes the entity starting at a '&' and returns the index just past it.
+     * Anything that is not a well-formed entity is kept as a literal '&'.
+     */
+    private int entity(int start) {
+        final int length = html.length();
+        int semicolon = -1;
+        int limit = Math.min(length, start + 2 + MAX_ENTITY_LENGTH);
+        for (int k = start + 1; k < limit; k++) {
+            char c = html.charAt(k);
+            if (c == ';') {
+                semicolon = k;
+                break;
+            }
+            if (!isAsciiLetterOrDigit(c) && !(k == start + 1 && c == '#')) break;
+        }
+        if (semicolon < 0 || semicolon == start + 1) {
+            text('&');
+            return start + 1;
+        }
+
+        int codePoint = -1;
+        if (html.charAt(start + 1) == '#') {
+            boolean hex = start + 2 < semicolon && (html.charAt(start + 2) == 'x' || html.charAt(start + 2) == 'X');
+            int digits = hex ? start + 3 : start + 2;
+            if (digits < semicolon) {
+                try {
+                    codePoint = Integer.parseInt(html, digits, semicolon, hex ? 16 : 10);
+                } catch (NumberFormatException ignored) {}
+            }
+        } else {
+            Integer named = ENTITIES.get(html.substring(start + 1, semicolon));
+            if (named != null) codePoint = named;
+        }
+
+        if (codePoint < 0 || codePoint > Character.MAX_CODE_POINT
+                || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            text('&');
+            return start + 1;
+        }
+
+        if (Character.isBmpCodePoint(codePoint)) {
+            text((char) codePoint);
+        } else {
+            flushPending();
+            out.appendCodePoint(codePoint);
+        }
+        return semicolon + 1;
+    }
+
+    private void text(char c) {
+        if (isInvisible(c)) return;
+
+        if (preDepth > 0) {
+            if (c == '\n') {
+                pendingBreaks = Math.min(2, pendingBreaks + 1);
+                pendingSpace = false;
+            } else if (c != '\r') {
+                flushPending();
+                out.append(c == '\u00A0' ? ' ' : c);
+            }
+            return;
+        }
+
+        if (c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f' || c == '\u00A0') {
+            pendingSpace = true;
+            return;
+        }
+
+        flushPending();
+        out.append(c);
+    }
+
+    /**
+     * Writes any line breaks or space owed before the next visible character.
+     * Nothing is written at the very start, which keeps the result trimmed.
+     */
+    private void flushPending() {
+        if (!out.isEmpty()) {
+            if (pendingBreaks > 0) {
+                // Drop trailing spaces so lines never end in whitespace
+                int end = out.length();
+                while (end > 0 && out.charAt(end - 1) == ' ') end--;
+                out.setLength(end);
+                out.repeat('\n', pendingBreaks);
+            } else if (pendingSpace && out.charAt(out.length() - 1) != '\n') {
+                out.append(' ');
+            }
+        }
+        pendingBreaks = 0;
+        pendingSpace = false;
+    }
+
+    private static boolean isInvisible(char c) {
+        return c == '\u034F' || c == '\u00AD' || (c >= '\u200B' && c <= '\u200D')
+                || c == '\u2060' || c == '\uFEFF';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+}
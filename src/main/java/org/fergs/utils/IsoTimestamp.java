@@ -0,0 +1,116 @@
+package org.fergs.utils;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * IsoTimestamp parses ISO-8601 date-times such as "2025-03-14T09:26:53+00:00" directly from the
+ * characters, without a DateTimeFormatter, regex or intermediate strings, and keeps the offset.
+ * <p>
+ * Accepted form: {@code yyyy-MM-dd'T'HH:mm:ss}, an optional fraction of up to nine digits, then
+ * {@code Z}, {@code ±HH:mm}, {@code ±HHmm} or {@code ±HH}. A 'T' or a space may separate date and
+ * time. A timestamp without an offset is taken to be UTC.
+ * <p>
+ * Example usage:
+ * <pre>
+ * OffsetDateTime receivedAt = IsoTimestamp.parse("2025-03-14T09:26:53.120+01:00");
+ * </pre>
+ * </p>
+ * @Author Fergs32
+ */
+public final class IsoTimestamp {
+    private IsoTimestamp() {}
+
+    /**
+     * Parses an ISO-8601 date-time.
+     * @param text the text to parse.
+     * @return the date-time with the offset given in the text.
+     * @throws DateTimeParseException if the text is not a valid ISO-8601 date-time.
+     */
+    public static OffsetDateTime parse(CharSequence text) {
+        final int length = text.length();
+        if (length < 19) throw error(text, length, "too short");
+
+        int year = digits(text, 0, 4);
+        expect(text, 4, '-');
+        int month = digits(text, 5, 2);
+        expect(text, 7, '-');
+        int day = digits(text, 8, 2);
+        char separator = text.charAt(10);
+        if (separator != 'T' && separator != 't' && separator != ' ') throw error(text, 10, "expected 'T'");
+        int hour = digits(text, 11, 2);
+        expect(text, 13, ':');
+        int minute = digits(text, 14, 2);
+        expect(text, 16, ':');
+        int second = digits(text, 17, 2);
+
+        int i = 19;
+        int nano = 0;
+        if (i < length && text.charAt(i) == '.') {
+            int start = ++i;
+            while (i < length && isDigit(text.charAt(i))) {
+                if (i - start < 9) nano = nano * 10 + (text.charAt(i) - '0');
+                i++;
+            }
+            int count = i - start;
+            if (count == 0) throw error(text, i, "empty fraction");
+            for (int k = Math.min(count, 9); k < 9; k++) nano *= 10;
+        }
+
+        ZoneOffset offset = ZoneOffset.UTC;
+        if (i < length) {
+            char c = text.charAt(i);
+            if (c == 'Z' || c == 'z') {
+                i++;
+            } else if (c == '+' || c == '-') {
+                int sign = c == '-' ? -1 : 1;
+                int hours = digits(text, i + 1, 2);
+                i += 3;
+                int minutes = 0;
+                if (i < length) {
+                    if (text.charAt(i) == ':') i++;
+                    minutes = digits(text, i, 2);
+                    i += 2;
+                }
+                try {
+                    offset = ZoneOffset.ofHoursMinutes(sign * hours, sign * minutes);
+                } catch (RuntimeException e) {
+                    throw error(text, i, "invalid offset");
+                }
+            } else {
+                throw error(text, i, "expected offset");
+            }
+        }
+        if (i != length) throw error(text, i, "unexpected trailing characters");
+
+        try {
+            return OffsetDateTime.of(year, month, day, hour, minute, second, nano, offset);
+        } catch (RuntimeException e) {
+            throw error(text, 0, e.getMessage());
+        }
+    }
+
+    private static int digits(CharSequence text, int from, int count) {
+        if (from + count > text.length()) throw error(text, from, "truncated");
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) throw error(text, i, "expected a digit");
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void expect(CharSequence text, int index, char expected) {
+        if (text.charAt(index) != expected) throw error(text, index, "expected '" + expected + "'");
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static DateTimeParseException error(CharSequence text, int index, String reason) {
+        return new DateTimeParseException("Invalid ISO-8601 date-time (" + reason + "): " + text, text, index);
+    }
+}
@@ -0,0 +1,275 @@
+package org.fergs.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * KeywordAutomaton is an Aho-Corasick matcher that finds every registered keyword
+ * in a single left-to-right pass over the input text.
+ * Each keyword carries a bitmask, and a scan returns the OR of the masks of all
+ * keywords that occur, so a long chain of contains() checks collapses into one walk.
+ * <p>
+ * Matching is case-insensitive for ASCII and keywords must be ASCII.
+ * Keywords registered with {@link Builder#addWord(String, long)} only match when they are
+ * not surrounded by letters, digits or underscores, mirroring a regex \b boundary.
+ * <p>
+ * Example usage:
+ * <pre>
+ * KeywordAutomaton automaton = KeywordAutomaton.builder()
+ *         .add("verified", VERIFIED)
+ *         .add("authentic", VERIFIED)
+ *         .addWord("55", SENIOR_AGE)
+ *         .build();
+ * long features = automaton.scan(title);
+ * </pre>
+ * Where the matches are needed as well, {@link #scan(CharSequence, MatchHandler)} reports each
+ * position at which a keyword ends.
+ * </p>
+ * @Author Fergs32
+ */
+public final class KeywordAutomaton {
+    private static final int ALPHABET = 128;
+
+    private final int[] transitions;
+    private final long[] outputs;
+    private final int[][] wordOutputs;
+    private final int[] wordLengths;
+    private final long[] wordMasks;
+
+    private KeywordAutomaton(int[] transitions, long[] outputs, int[][] wordOutputs,
+                             int[] wordLengths, long[] wordMasks) {
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.wordOutputs = wordOutputs;
+        this.wordLengths = wordLengths;
+        this.wordMasks = wordMasks;
+    }
+
+    /**
+     * Creates a new builder for a KeywordAutomaton.
+     * @return a new, empty Builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Scans the text once and returns the combined mask of every keyword found in it.
+     * @param text the text to scan, may be null.
+     * @return the OR of the masks of all matching keywords, or 0 if none matched.
+     */
+    public long scan(CharSequence text) {
+        if (text == null) return 0L;
+
+        long mask = 0L;
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+
+            state = c < ALPHABET ? transitions[state * ALPHABET + c] : 0;
+            mask |= outputs[state];
+
+            final int[] words = wordOutputs[state];
+            if (words != null) {
+                for (int id : words) {
+                    int start = i - wordLengths[id] + 1;
+                    if (!isWordChar(text, start - 1) && !isWordChar(text, i + 1)) {
+                        mask |= wordMasks[id];
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Scans the text once and reports every position at which one or more keywords end.
+     * @param text the text to scan, may be null.
+     * @param handler called with the index just past the match and the OR of the masks of all
+     *                keywords ending there, in increasing order of position.
+     */
+    public void scan(CharSequence text, MatchHandler handler) {
+        if (text == null) return;
+
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+
+            state = c < ALPHABET ? transitions[state * ALPHABET + c] : 0;
+            long mask = outputs[state];
+
+            final int[] words = wordOutputs[state];
+            if (words != null) {
+                for (int id : words) {
+                    int start = i - wordLengths[id] + 1;
+                    if (!isWordChar(text, start - 1) && !isWordChar(text, i + 1)) {
+                        mask |= wordMasks[id];
+                    }
+                }
+            }
+            if (mask != 0L) handler.onMatch(i + 1, mask);
+        }
+    }
+
+    private static boolean isWordChar(CharSequence text, int index) {
+        if (index < 0 || index >= text.length()) return false;
+        char c = text.charAt(index);
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * Builder for KeywordAutomaton. Keywords may be added in any order and the same
+     * keyword may be added more than once; their masks are merged.
+     */
+    public static final class Builder {
+        private final List<Keyword> keywords = new ArrayList<>();
+
+        private Builder() {}
+
+        /**
+         * Registers a keyword that matches anywhere in the text, like String.contains().
+         * @param keyword the ASCII keyword to match.
+         * @param mask the bits to set when the keyword is found.
+         * @return this builder.
+         */
+        public Builder add(String keyword, long mask) {
+            keywords.add(new Keyword(normalise(keyword), mask, false));
+            return this;
+        }
+
+        /**
+         * Registers a keyword that only matches as a whole word.
+         * @param keyword the ASCII keyword to match.
+         * @param mask the bits to set when the keyword is found.
+         * @return this builder.
+         */
+        public Builder addWord(String keyword, long mask) {
+            keywords.add(new Keyword(normalise(keyword), mask, true));
+            return this;
+        }
+
+        /**
+         * Compiles the registered keywords into a deterministic automaton.
+         * @return the compiled KeywordAutomaton.
+         */
+        public KeywordAutomaton build() {
+            final List<int[]> children = new ArrayList<>();
+            final List<Long> nodeMasks = new ArrayList<>();
+            final List<List<Integer>> nodeWords = new ArrayList<>();
+            newNode(children, nodeMasks, nodeWords);
+
+            final int[] wordLengths = new int[keywords.size()];
+            final long[] wordMasks = new long[keywords.size()];
+
+            for (int id = 0; id < keywords.size(); id++) {
+                Keyword keyword = keywords.get(id);
+                int node = 0;
+                for (int i = 0; i < keyword.text.length(); i++) {
+                    char c = keyword.text.charAt(i);
+                    int next = children.get(node)[c];
+                    if (next < 0) {
+                        next = newNode(children, nodeMasks, nodeWords);
+                        children.get(node)[c] = next;
+                    }
+                    node = next;
+                }
+                if (keyword.wholeWord) {
+                    wordLengths[id] = keyword.text.length();
+                    wordMasks[id] = keyword.mask;
+                    nodeWords.get(node).add(id);
+                } else {
+                    nodeMasks.set(node, nodeMasks.get(node) | keyword.mask);
+                }
+            }
+
+            final int nodes = children.size();
+            final int[] transitions = new int[nodes * ALPHABET];
+            final int[] fail = new int[nodes];
+            final long[] outputs = new long[nodes];
+            final int[][] wordOutputs = new int[nodes][];
+            final Deque<Integer> queue = new ArrayDeque<>();
+
+            outputs[0] = nodeMasks.get(0);
+            for (int c = 0; c < ALPHABET; c++) {
+                int child = children.get(0)[c];
+                if (child < 0) {
+                    transitions[c] = 0;
+                } else {
+                    transitions[c] = child;
+                    fail[child] = 0;
+                    queue.add(child);
+                }
+            }
+
+            // Breadth-first, so every suffix link points at a node whose outputs are already merged
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                outputs[node] = nodeMasks.get(node) | outputs[fail[node]];
+                wordOutputs[node] = mergeWords(nodeWords.get(node), wordOutputs[fail[node]]);
+
+                for (int c = 0; c < ALPHABET; c++) {
+                    int child = children.get(node)[c];
+                    if (child < 0) {
+                        transitions[node * ALPHABET + c] = transitions[fail[node] * ALPHABET + c];
+                    } else {
+                        transitions[node * ALPHABET + c] = child;
+                        fail[child] = transitions[fail[node] * ALPHABET + c];
+                        queue.add(child);
+                    }
+                }
+            }
+
+            return new KeywordAutomaton(transitions, outputs, wordOutputs, wordLengths, wordMasks);
+        }
+
+        private static int newNode(List<int[]> children, List<Long> nodeMasks, List<List<Integer>> nodeWords) {
+            int[] row = new int[ALPHABET];
+            Arrays.fill(row, -1);
+            children.add(row);
+            nodeMasks.add(0L);
+            nodeWords.add(new ArrayList<>());
+            return children.size() - 1;
+        }
+
+        private static int[] mergeWords(List<Integer> own, int[] inherited) {
+            if (own.isEmpty()) return inherited;
+            int extra = inherited == null ? 0 : inherited.length;
+            int[] merged = new int[own.size() + extra];
+            for (int i = 0; i < own.size(); i++) merged[i] = own.get(i);
+            if (inherited != null) System.arraycopy(inherited, 0, merged, own.size(), extra);
+            return merged;
+        }
+
+        private static String normalise(String keyword) {
+            if (keyword == null || keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keyword must not be empty");
+            }
+            for (int i = 0; i < keyword.length(); i++) {
+                if (keyword.charAt(i) >= ALPHABET) {
+                    throw new IllegalArgumentException("Keyword must be ASCII: " + keyword);
+                }
+            }
+            return keyword.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Receives the matches found by {@link #scan(CharSequence, MatchHandler)}.
+     */
+    @FunctionalInterface
+    public interface MatchHandler {
+        /**
+         * @param end the index just past the last character of the match.
+         * @param mask the OR of the masks of every keyword ending at this position.
+         */
+        void onMatch(int end, long mask);
+    }
+
+    private record Keyword(String text, long mask, boolean wholeWord) {}
+}
@@ -0,0 +1,70 @@
+package org.fergs.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SimHash provides 64-bit similarity fingerprints for sets of text features.
+ * Inputs that share most of their features get fingerprints that differ in only a few bits,
+ * so near-duplicates can be found by Hamming distance instead of comparing the texts.
+ * <p>
+ * Example usage:
+ * <pre>
+ * long a = SimHash.fingerprint(List.of("jane", "doe", "tinder.com"));
+ * long b = SimHash.fingerprint(List.of("jane", "doe", "tinder.com", "de"));
+ * boolean similar = SimHash.distance(a, b) <= 3;
+ * </pre>
+ * </p>
+ * @Author Fergs32
+ */
+public final class SimHash {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {}
+
+    /**
+     * Computes the fingerprint of a bag of features. Repeating a feature increases its weight.
+     * @param features the features, e.g. normalised tokens.
+     * @return the 64-bit fingerprint.
+     */
+    public static long fingerprint(Iterable<String> features) {
+        final int[] weights = new int[64];
+        for (String feature : features) {
+            long hash = hash64(feature);
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((hash >>> bit) & 1L) != 0 ? 1 : -1;
+            }
+        }
+
+        long fingerprint = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) fingerprint |= 1L << bit;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns the number of bits in which two fingerprints differ.
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, followed by a murmur finaliser so every input bit
+     * affects every output bit.
+     */
+    private static long hash64(String value) {
+        long hash = FNV_OFFSET;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
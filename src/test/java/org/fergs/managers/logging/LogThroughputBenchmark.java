@@ -0,0 +1,128 @@
+package org.fergs.managers.logging;
+
+import org.fergs.managers.LoggingManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.stream.Stream;
+
+/**
+ * LogThroughputBenchmark measures how many log lines per second reach the log file.
+ * <p>
+ * It times three paths:
+ * <ul>
+ *     <li>The per-line {@code Files.write(..., APPEND)} and file name check the logging thread
+ *         used before {@link LogFileWriter}.</li>
+ *     <li>{@link LogFileWriter} alone, with a flush check after every line as the logging
+ *         thread does it.</li>
+ *     <li>{@link LoggingManager} end to end, from {@code info()} until every line is in the
+ *         file. This writes to ./logs like the app does, and the console window is never
+ *         shown.</li>
+ * </ul>
+ * The first two write the same preformatted 100-character line to a temporary directory.
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;deps&gt; org.fergs.managers.logging.LogThroughputBenchmark [lines] [rounds]
+ * </pre>
+ *
+ * @Author Fergs32
+ */
+public final class LogThroughputBenchmark {
+    private static final String LINE =
+            "[2026-10-19 10:00:00.000] INFO    - Fetching content for message: 65f1a2b3c4d5e6f7a8b9c0d1 from inbox"
+                    + System.lineSeparator();
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // The old path is about ten times slower; time it on fewer lines
+    private static final int LEGACY_DIVISOR = 10;
+    private static final long END_TO_END_TIMEOUT_MILLIS = 120_000;
+
+    public static void main(String[] args) throws Exception {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        Path dir = Files.createTempDirectory("log-bench");
+        for (int round = 0; round < rounds; round++) {
+            double legacy = legacy(dir.resolve("legacy-" + round), lines / LEGACY_DIVISOR);
+            double writer = writer(dir.resolve("writer-" + round), lines);
+            System.out.printf("round %d: Files.write per line %,11.0f lines/s, LogFileWriter %,11.0f lines/s%n",
+                    round, legacy, writer);
+        }
+
+        endToEnd(lines / 5);
+        System.exit(0); // the logging and archiver threads are daemons, but the JDK logger is not
+    }
+
+    /**
+     * The old logging thread: a file name check and an open, append and close per line.
+     */
+    private static double legacy(Path dir, int lines) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve(fileName());
+        Files.createFile(file);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            String expected = fileName();
+            if (!file.getFileName().toString().equals(expected)) file = dir.resolve(expected);
+            Files.write(file, LINE.getBytes(), StandardOpenOption.APPEND);
+        }
+        return lines / seconds(start);
+    }
+
+    private static double writer(Path dir, int lines) throws IOException {
+        LogArchiver archiver = new LogArchiver(dir, Long.MAX_VALUE);
+        long start = System.nanoTime();
+        try (LogFileWriter writer = new LogFileWriter(dir, 64 * 1024, 1000, Long.MAX_VALUE, archiver)) {
+            for (int i = 0; i < lines; i++) {
+                writer.write(LINE);
+                writer.flushIfDue(System.currentTimeMillis());
+            }
+        } finally {
+            archiver.shutdown();
+        }
+        return lines / seconds(start);
+    }
+
+    private static void endToEnd(int lines) throws Exception {
+        LoggingManager logging = LoggingManager.getInstance();
+        Path file = Paths.get("logs", fileName());
+        String marker = "bench-" + System.nanoTime() + " ";
+
+        long start = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            logging.info(marker + i);
+        }
+
+        // Lines reach the file in batches, at the latest one flush interval after the last one
+        long written;
+        long deadline = System.currentTimeMillis() + END_TO_END_TIMEOUT_MILLIS;
+        while ((written = countLines(file, marker)) < lines && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        double rate = written / seconds(start);
+        logging.shutdown();
+
+        System.out.printf("LoggingManager end to end: %,.0f lines/s, %,d of %,d lines in %s%n",
+                rate, written, lines, file);
+    }
+
+    private static long countLines(Path file, String marker) throws IOException {
+        if (!Files.exists(file)) return 0;
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return lines.filter(line -> line.contains(marker)).count();
+        }
+    }
+
+    private static String fileName() {
+        return String.format("specter-%s.log", LocalDateTime.now().format(FILE_DATE_FORMAT));
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+}
@@ -0,0 +1,162 @@
+package org.fergs.modules.impl.dating;
+
+import org.fergs.objects.SearchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * KeywordMatchBenchmark compares the dating result filter and scores {@link DateSearchEngineImpl}
+ * computes from one {@link ResultFeatureMatcher} scan with the per-keyword
+ * {@code toLowerCase().contains(...)} checks they replaced, on synthetic results.
+ * <p>
+ * Both versions filter with the same settings (ages 25-35, within 25 miles, no spam) and compute
+ * all four sort scores for every result; the new ones are the engine's own methods. The run fails
+ * if they disagree on any result.
+ * <pre>
+ * java -cp target/classes:target/test-classes org.fergs.modules.impl.dating.KeywordMatchBenchmark [results] [rounds]
+ * </pre>
+ *
+ * @Author Fergs32
+ */
+public final class KeywordMatchBenchmark {
+    private static final String AGE_RANGE = "25-35";
+    private static final String LOCATION = "Within 25 miles";
+    private static final String[] WORDS = {
+            "john", "smith", "dating", "profile", "single", "looking", "for", "match", "verified", "local",
+            "nearby", "online", "today", "new", "premium", "photos", "about", "chat", "likes", "city",
+            "area", "miles", "28", "31", "45", "2025", "active", "recently", "fake", "reviews"
+    };
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        List<SearchResult> results = generate(count, new Random(42));
+        DateSearchEngineImpl engine = new DateSearchEngineImpl(List.of(), "NONE", "john",
+                AGE_RANGE, LOCATION, "All", "Relevance", 50, false, false);
+
+        int mismatches = 0;
+        for (SearchResult result : results) {
+            if (legacy(result) != production(engine, result)) mismatches++;
+        }
+        if (mismatches > 0) throw new IllegalStateException(mismatches + " results scored differently");
+
+        long sink = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            for (SearchResult result : results) sink += legacy(result);
+            long legacyNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (SearchResult result : results) sink += production(engine, result);
+            long automatonNanos = System.nanoTime() - start;
+
+            System.out.printf("round %2d: contains %,6d ns/result, automaton %,6d ns/result%n",
+                    round, legacyNanos / count, automatonNanos / count);
+        }
+        System.out.println("checksum " + sink);
+    }
+
+    private static List<SearchResult> generate(int count, Random random) {
+        List<SearchResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 4 + random.nextInt(8); w > 0; w--) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                title.append(random.nextBoolean() ? word : word.toUpperCase()).append(' ');
+            }
+            String url = "https://example.com/" + WORDS[random.nextInt(WORDS.length)] + "/profile/" + i
+                    + (random.nextInt(4) == 0 ? "-active" : "");
+            String thumbnail = random.nextBoolean() ? "https://img.example.com/" + i + ".jpg" : "";
+            results.add(new SearchResult(title.toString().trim(), url, thumbnail));
+        }
+        return results;
+    }
+
+    /**
+     * The filter and scores as DateSearchEngineImpl computed them before the automaton; -1 if
+     * the result is filtered out.
+     */
+    private static long legacy(SearchResult result) {
+        String titleLower = result.title.toLowerCase();
+        String urlLower = result.url.toLowerCase();
+
+        boolean ageMatch = false;
+        for (int age = 25; age <= 35; age++) {
+            if (titleLower.contains(String.valueOf(age)) || urlLower.contains(String.valueOf(age))) {
+                ageMatch = true;
+                break;
+            }
+        }
+        if (titleLower.contains(AGE_RANGE) || urlLower.contains(AGE_RANGE)) ageMatch = true;
+        if (!ageMatch) return -1;
+
+        boolean locationMatch = titleLower.contains("nearby") || titleLower.contains("local")
+                || titleLower.contains("miles") || titleLower.contains("close") || urlLower.contains("local");
+        if (!locationMatch) return -1;
+
+        if (titleLower.contains("spam") || titleLower.contains("fake")
+                || titleLower.contains("scam") || titleLower.contains("bot")) return -1;
+
+        boolean thumbnail = !result.thumbnail.isEmpty();
+
+        int recency = 0;
+        if (titleLower.contains("today") || titleLower.contains("now")) recency += 10;
+        if (titleLower.contains("recent") || titleLower.contains("new")) recency += 8;
+        if (titleLower.contains("online") || titleLower.contains("active")) recency += 6;
+        if (titleLower.contains("2024") || titleLower.contains("2025")) recency += 5;
+        if (titleLower.contains("updated") || titleLower.contains("fresh")) recency += 4;
+        if (urlLower.contains("2024") || urlLower.contains("2025")) recency += 3;
+        if (urlLower.contains("recent") || urlLower.contains("new")) recency += 2;
+
+        int distance = 0;
+        if (titleLower.contains("nearby") || titleLower.contains("close")) distance += 10;
+        if (titleLower.contains("local")) distance += 8;
+        if (titleLower.contains("miles")) distance += 6;
+        if (titleLower.contains("city") || titleLower.contains("downtown")) distance += 4;
+        if (titleLower.contains("area") || titleLower.contains("region")) distance += 3;
+        if (urlLower.contains("local")) distance += 2;
+
+        int activity = thumbnail ? 15 : 0;
+        if (titleLower.contains("online") || titleLower.contains("active")) activity += 10;
+        if (titleLower.contains("recently") || titleLower.contains("today")) activity += 8;
+        if (titleLower.contains("messages") || titleLower.contains("chat")) activity += 6;
+        if (titleLower.contains("responses") || titleLower.contains("replies")) activity += 5;
+        if (titleLower.contains("views") || titleLower.contains("visits")) activity += 4;
+        if (titleLower.contains("likes") || titleLower.contains("matches")) activity += 3;
+        if (urlLower.contains("profile") && urlLower.contains("active")) activity += 5;
+
+        int quality = Math.min(result.title.length() / 10, 15) + (thumbnail ? 20 : 0);
+        if (titleLower.contains("verified") || titleLower.contains("authentic")) quality += 25;
+        if (titleLower.contains("premium") || titleLower.contains("plus")) quality += 15;
+        if (titleLower.contains("photos") || titleLower.contains("pictures")) quality += 10;
+        if (titleLower.contains("education") || titleLower.contains("profession")) quality += 8;
+        if (titleLower.contains("interests") || titleLower.contains("hobbies")) quality += 6;
+        if (titleLower.contains("about") || titleLower.contains("description")) quality += 5;
+        if (titleLower.contains("reviews") || titleLower.contains("ratings")) quality += 12;
+        if (titleLower.contains("connections") || titleLower.contains("matches")) quality += 8;
+        if (titleLower.contains("incomplete") || titleLower.contains("basic")) quality -= 10;
+        if (titleLower.contains("limited") || titleLower.contains("partial")) quality -= 5;
+        if (urlLower.contains("premium") || urlLower.contains("verified")) quality += 5;
+        if (urlLower.contains("profile") && urlLower.contains("complete")) quality += 3;
+
+        return pack(recency, distance, activity, Math.max(quality, 0));
+    }
+
+    /**
+     * The filter and scores DateSearchEngineImpl computes now, from one feature scan.
+     */
+    private static long production(DateSearchEngineImpl engine, SearchResult result) {
+        DateSearchEngineImpl.Candidate candidate = engine.candidate(result);
+        if (!engine.shouldIncludeResult(candidate)) return -1;
+
+        return pack(engine.getRecencyScore(candidate), engine.getDistanceScore(candidate),
+                engine.getActivityScore(candidate), engine.getProfileQualityScore(candidate));
+    }
+
+    private static long pack(int recency, int distance, int activity, int quality) {
+        return ((long) recency << 48) | ((long) distance << 32) | ((long) activity << 16) | quality;
+    }
+}
@@ -0,0 +1,149 @@
+package org.fergs.modules.impl.tempemail;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InboxEventStreamCheck runs {@link InboxEventStream} against a local stand-in for the mail.tm
+ * Mercure hub.
+ * <p>
+ * The stand-in serves two connections:
+ * <ul>
+ *     <li>The first sends a keep-alive comment and two events, one of them over several data
+ *         lines. It then drops the connection halfway through a third event.</li>
+ *     <li>The second must carry the ID of the last complete event in its Last-Event-ID header.
+ *         It sends one more event and stays open until the stream is closed.</li>
+ * </ul>
+ * The run fails if the listener sees anything other than those three events, connected,
+ * disconnected and connected again, or if the stream connects again after it was closed.
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;deps&gt; org.fergs.modules.impl.tempemail.InboxEventStreamCheck
+ * </pre>
+ *
+ * @Author Fergs32
+ */
+public final class InboxEventStreamCheck {
+    private static final String ACCOUNT_ID = "6541a1b2c3d4e5f6a7b8c9d0";
+    private static final String TOKEN = "test-token";
+    private static final long TIMEOUT_SECONDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        AtomicInteger connections = new AtomicInteger();
+        BlockingQueue<String> lastEventIds = new LinkedBlockingQueue<>();
+        CountDownLatch released = new CountDownLatch(1);
+
+        HttpServer hub = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        hub.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "SseStandIn");
+            t.setDaemon(true);
+            return t;
+        }));
+        hub.createContext("/.well-known/mercure", exchange -> {
+            int connection = connections.incrementAndGet();
+            Headers headers = exchange.getRequestHeaders();
+            lastEventIds.add(String.valueOf(headers.getFirst("Last-Event-ID")));
+
+            boolean valid = ("topic=/accounts/" + ACCOUNT_ID).equals(exchange.getRequestURI().getQuery())
+                    && ("Bearer " + TOKEN).equals(headers.getFirst("Authorization"))
+                    && "text/event-stream".equals(headers.getFirst("Accept"));
+            if (!valid) {
+                exchange.sendResponseHeaders(400, -1);
+                exchange.close();
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (connection == 1) {
+                    send(out, ": keep-alive\n\n");
+                    send(out, "id: urn:uuid:1\ndata: {\"@id\":\"/accounts/" + ACCOUNT_ID + "\"}\n\n");
+                    send(out, "event: update\nid: urn:uuid:2\ndata: {\"@id\":\"/messages/a1\",\ndata: \"seen\":false}\n\n");
+                    send(out, "id: urn:uuid:3\ndata: {\"@id\":\"/mess"); // cut off before the blank line
+                } else {
+                    send(out, "id: urn:uuid:4\ndata: {\"@id\":\"/messages/b2\"}\n\n");
+                    released.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+            } catch (IOException e) {
+                // The stream hung up first
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        hub.start();
+
+        BlockingQueue<String> seen = new LinkedBlockingQueue<>();
+        String hubUrl = "http://127.0.0.1:" + hub.getAddress().getPort() + "/.well-known/mercure";
+        InboxEventStream stream = new InboxEventStream(new OkHttpClient(), hubUrl, ACCOUNT_ID, TOKEN,
+                new InboxEventStream.Listener() {
+                    @Override
+                    public void onEvent(String id, String data) {
+                        seen.add(id + " " + data);
+                    }
+
+                    @Override
+                    public void onConnectionChanged(boolean connected) {
+                        seen.add(connected ? "connected" : "disconnected");
+                    }
+                });
+
+        long started = System.nanoTime();
+        stream.start();
+        expect(seen, List.of(
+                "connected",
+                "urn:uuid:1 {\"@id\":\"/accounts/" + ACCOUNT_ID + "\"}",
+                "urn:uuid:2 {\"@id\":\"/messages/a1\",\n\"seen\":false}",
+                "disconnected",
+                "connected",
+                "urn:uuid:4 {\"@id\":\"/messages/b2\"}"));
+        long reconnectMillis = (System.nanoTime() - started) / 1_000_000;
+
+        check("null".equals(lastEventIds.poll()), "the first connection sent a Last-Event-ID");
+        String resumedFrom = lastEventIds.poll();
+        check("urn:uuid:2".equals(resumedFrom), "the reconnect sent Last-Event-ID " + resumedFrom);
+
+        stream.close();
+        expect(seen, List.of("disconnected"));
+        check(!stream.isConnected(), "the stream still reports a connection after close");
+
+        released.countDown();
+        Thread.sleep(2_000); // longer than the first retry delay
+        check(connections.get() == 2, "the stream connected " + connections.get() + " times");
+        check(seen.isEmpty(), "events after close: " + seen);
+
+        hub.stop(0);
+        System.out.printf("ok: resumed from %s, all events received after %d ms%n", resumedFrom, reconnectMillis);
+        System.exit(0); // OkHttp's connection pool threads linger for a minute
+    }
+
+    private static void send(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void expect(BlockingQueue<String> seen, List<String> expected) throws InterruptedException {
+        for (String next : expected) {
+            String actual = seen.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            check(next.equals(actual), "expected <" + next + "> but got <" + actual + ">");
+        }
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) throw new IllegalStateException(failure);
+    }
+}
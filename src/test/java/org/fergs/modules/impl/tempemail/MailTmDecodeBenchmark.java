@@ -0,0 +1,139 @@
+package org.fergs.modules.impl.tempemail;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.fergs.objects.TempMessage;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * MailTmDecodeBenchmark compares {@link MailTmDecoder#decodeMessagePage} with the JsonNode tree
+ * decoding TempEmailImpl used before, on a generated GET /messages page shaped like mail.tm's.
+ * <p>
+ * The run fails if the two disagree on any message, then prints the time and the bytes
+ * allocated per page for each, alternating between them.
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;deps&gt; org.fergs.modules.impl.tempemail.MailTmDecodeBenchmark [messages] [iterations]
+ * </pre>
+ *
+ * @Author Fergs32
+ */
+public final class MailTmDecodeBenchmark {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final DateTimeFormatter LEGACY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        byte[] page = page(count);
+        MailTmDecoder decoder = new MailTmDecoder(new JsonFactory());
+
+        List<TempMessage> streamed = streaming(decoder, page);
+        List<LegacyMessage> parsed = legacy(page);
+        int mismatches = 0;
+        for (int i = 0; i < parsed.size(); i++) {
+            LegacyMessage expected = parsed.get(i);
+            TempMessage actual = streamed.get(i);
+            if (!expected.id().equals(actual.id()) || !expected.subject().equals(actual.subject())
+                    || !expected.from().equals(actual.from()) || expected.read() != actual.isRead()
+                    || !expected.receivedAt().equals(actual.receivedAt().toLocalDateTime())) {
+                mismatches++;
+            }
+        }
+        if (streamed.size() != parsed.size() || mismatches > 0) {
+            throw new IllegalStateException(mismatches + " messages decoded differently");
+        }
+        System.out.printf("page of %,d messages, %,d bytes%n", count, page.length);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long sink = 0;
+        for (int i = 0; i < iterations * 2; i++) {
+            sink += legacy(page).size() + streaming(decoder, page).size();
+        }
+
+        for (int round = 0; round < 4; round++) {
+            boolean tree = round % 2 == 0;
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += tree ? legacy(page).size() : streaming(decoder, page).size();
+            }
+            long nanos = System.nanoTime() - start;
+            allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+            System.out.printf("%-11s %8.3f ms/page, %,8.0f KB allocated/page%n", tree ? "tree:" : "streaming:",
+                    nanos / 1e6 / iterations, allocated / 1024.0 / iterations);
+        }
+        System.out.println("checksum " + sink);
+    }
+
+    private static List<TempMessage> streaming(MailTmDecoder decoder, byte[] page) throws Exception {
+        return decoder.decodeMessagePage(new ByteArrayInputStream(page)).messages();
+    }
+
+    /**
+     * The message list as TempEmailImpl decoded it before MailTmDecoder: the body buffered into
+     * a String, parsed into a tree, and the timestamp cut at its offset.
+     */
+    private static List<LegacyMessage> legacy(byte[] page) throws Exception {
+        String responseBody = new String(page, StandardCharsets.UTF_8);
+        JsonNode json = MAPPER.readTree(responseBody);
+
+        List<LegacyMessage> messages = new ArrayList<>();
+        for (JsonNode node : json.get("hydra:member")) {
+            String id = node.get("id").asText();
+            String subject = node.has("subject") ? node.get("subject").asText() : "No Subject";
+            String from = "Unknown Sender";
+            JsonNode fromNode = node.get("from");
+            if (fromNode != null && fromNode.has("address")) from = fromNode.get("address").asText();
+            boolean read = node.has("seen") && node.get("seen").asBoolean();
+            messages.add(new LegacyMessage(id, subject, from, legacyTimestamp(node.get("createdAt").asText()), read));
+        }
+        return messages;
+    }
+
+    private static LocalDateTime legacyTimestamp(String value) {
+        if (value.contains("+")) {
+            value = value.substring(0, value.indexOf('+'));
+        } else if (value.contains("Z")) {
+            value = value.replace("Z", "");
+        }
+        return LocalDateTime.parse(value, LEGACY_FORMAT);
+    }
+
+    private static byte[] page(int count) {
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder("{\"@context\":\"/contexts/Message\",\"@id\":\"/messages\","
+                + "\"@type\":\"hydra:Collection\",\"hydra:member\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(',');
+            String id = String.format("%024x", random.nextLong() & Long.MAX_VALUE);
+            sb.append("{\"@id\":\"/messages/").append(id).append("\",\"@type\":\"Message\",\"id\":\"").append(id)
+                    .append("\",\"accountId\":\"/accounts/6541a1b2c3d4e5f6a7b8c9d0\",\"msgid\":\"<").append(id)
+                    .append("@mail.example.com>\"")
+                    .append(",\"from\":{\"address\":\"news").append(i % 50).append("@shop.example.com\",\"name\":\"Example Shop\"}")
+                    .append(",\"to\":[{\"address\":\"abcd1234@indigobook.com\",\"name\":\"\"}],\"subject\":\"Your order #")
+                    .append(100000 + i).append(" has shipped \\u2014 track it now\"")
+                    .append(",\"intro\":\"Hi there, good news! Your package is on its way and should arrive within 3-5 business days...\"")
+                    .append(",\"seen\":").append(i % 3 == 0).append(",\"isDeleted\":false,\"hasAttachments\":").append(i % 7 == 0)
+                    .append(",\"size\":").append(2000 + random.nextInt(90000))
+                    .append(",\"downloadUrl\":\"/messages/").append(id).append("/download\"")
+                    .append(",\"createdAt\":\"2025-0").append(1 + i % 9).append("-1").append(i % 10)
+                    .append("T0").append(i % 10).append(":1").append(i % 6).append(":2").append(i % 10)
+                    .append("+0").append(i % 3).append(":00\"")
+                    .append(",\"updatedAt\":\"2025-03-14T09:26:53+00:00\"}");
+        }
+        return sb.append("],\"hydra:totalItems\":").append(count).append("}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record LegacyMessage(String id, String subject, String from, LocalDateTime receivedAt, boolean read) {}
+}
@@ -0,0 +1,123 @@
+package org.fergs.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * HtmlToTextBenchmark compares {@link HtmlToText#convert} with the chain of
+ * {@code replaceAll} calls TempEmailImpl used to strip message HTML, on generated
+ * newsletter-style emails.
+ * <p>
+ * Each email has a style block, a padded preheader, a table layout, entities and tracking
+ * links. For each size the run converts 10 emails and prints the best of 5 timed rounds per
+ * email. The two versions intentionally produce different text, so only the timings compare.
+ * <pre>
+ * java -cp target/classes:target/test-classes org.fergs.utils.HtmlToTextBenchmark [sizeKb...]
+ * </pre>
+ *
+ * @Author Fergs32
+ */
+public final class HtmlToTextBenchmark {
+    private static final int EMAILS_PER_SIZE = 10;
+    private static final int ROUNDS = 5;
+    private static final int BLOCK_CHARS = 700;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        int[] sizesKb = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[] {8, 60, 500};
+
+        for (int kb : sizesKb) {
+            List<String> corpus = new ArrayList<>(EMAILS_PER_SIZE);
+            for (int seed = 0; seed < EMAILS_PER_SIZE; seed++) {
+                corpus.add(email(Math.max(1, (kb * 1024 - 5000) / BLOCK_CHARS), seed));
+            }
+            int chars = corpus.stream().mapToInt(String::length).sum() / corpus.size();
+
+            long regexNanos = time(corpus, true);
+            long converterNanos = time(corpus, false);
+            System.out.printf("avg %,9d chars: replaceAll %,9.1f us/email, HtmlToText %,8.1f us/email, %.1fx%n",
+                    chars, regexNanos / 1e3 / corpus.size(), converterNanos / 1e3 / corpus.size(),
+                    (double) regexNanos / converterNanos);
+        }
+        System.out.println("checksum " + sink);
+    }
+
+    /**
+     * Best time of one pass over the corpus, after a warm-up of the same length.
+     */
+    private static long time(List<String> corpus, boolean regex) {
+        int passes = Math.max(20, 20_000_000 / corpus.get(0).length());
+        for (int p = 0; p < passes; p++) convertAll(corpus, regex);
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int p = 0; p < passes; p++) convertAll(corpus, regex);
+            best = Math.min(best, (System.nanoTime() - start) / passes);
+        }
+        return best;
+    }
+
+    private static void convertAll(List<String> corpus, boolean regex) {
+        for (String html : corpus) sink += (regex ? legacy(html) : HtmlToText.convert(html)).length();
+    }
+
+    /**
+     * TempEmailImpl.stripHtmlTags as it was before HtmlToText.
+     */
+    private static String legacy(String html) {
+        return html
+                .replaceAll("<br[^>]*>", "\n")
+                .replaceAll("<p[^>]*>", "\n")
+                .replaceAll("</p>", "\n")
+                .replaceAll("<div[^>]*>", "\n")
+                .replaceAll("</div>", "\n")
+                .replaceAll("<[^>]+>", "")
+                .replaceAll("&nbsp;", " ")
+                .replaceAll("&amp;", "&")
+                .replaceAll("&lt;", "<")
+                .replaceAll("&gt;", ">")
+                .replaceAll("&quot;", "\"")
+                .replaceAll("&#39;", "'")
+                .replaceAll("\\n\\s*\\n", "\n\n")
+                .trim();
+    }
+
+    private static String email(int blocks, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>Deals</title>"
+                + "<style type=\"text/css\">\n");
+        for (int i = 0; i < 60; i++) {
+            sb.append(".c").append(i).append(" td > a { color:#00").append(i).append("; padding: 0 4px; }\n");
+        }
+        sb.append("</style><!--[if mso]><xml><o:OfficeDocumentSettings></o:OfficeDocumentSettings></xml><![endif]-->"
+                + "</head>\n<body style=\"margin:0\">\n");
+
+        sb.append("<div style=\"display:none;max-height:0\">Your weekly picks are here");
+        for (int i = 0; i < 80; i++) sb.append("&#847; &zwnj;&nbsp;");
+        sb.append("</div>\n<table role=\"presentation\" width=\"100%\" cellpadding=\"0\" cellspacing=\"0\" border=\"0\">\n");
+
+        for (int b = 0; b < blocks; b++) {
+            sb.append("  <tr>\n    <td class=\"c").append(b % 60)
+                    .append("\" align=\"left\" style=\"font-family:Arial,sans-serif;font-size:14px;\">\n");
+            sb.append("      <h2 style=\"margin:0\">Offer #").append(b)
+                    .append(" &mdash; save &pound;").append(random.nextInt(90)).append("</h2>\n");
+            sb.append("      <p>Hi there, we&#39;ve picked <b>").append(random.nextInt(20))
+                    .append("</b> items you&rsquo;ll love &amp; more.<br/>");
+            sb.append("Only &lt;24h&gt; left &#x2014; don&apos;t miss &quot;it&quot;.</p>\n");
+            sb.append("      <a href=\"https://example.com/track?u=").append(Long.toHexString(random.nextLong()))
+                    .append("&amp;id=").append(b).append("\" title=\"a > b\">Shop now</a>\n");
+            sb.append("      <img src=\"https://img.example.com/").append(b).append(".png\" alt=\"\" width=\"600\"/>\n");
+            sb.append("    </td>\n  </tr>\n");
+        }
+
+        sb.append("</table><script>var x = '<p>nope</p>';</script>\n"
+                + "<p style=\"font-size:11px\">&copy; 2025 Example Ltd. <a href=\"#\">Unsubscribe</a></p></body></html>");
+        return sb.toString();
+    }
+}